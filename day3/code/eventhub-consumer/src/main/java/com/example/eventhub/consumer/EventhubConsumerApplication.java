@@ -2,6 +2,7 @@ package com.example.eventhub.consumer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Event Hub Consumer Application
@@ -11,8 +12,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - Manual checkpointing for reliability
  * - Error handling and retry logic
  * - Processing metrics collection
+ * - Materialized order state with snapshot-based fast restart
  */
 @SpringBootApplication
+@EnableScheduling
 public class EventhubConsumerApplication {
     
     public static void main(String[] args) {
@@ -24,6 +27,8 @@ public class EventhubConsumerApplication {
         System.out.println("Consumer Group: order-processor-group");
         System.out.println("\nAPI Endpoints:");
         System.out.println("  GET  http://localhost:8082/api/stats");
+        System.out.println("  GET  http://localhost:8082/api/stats/ordering");
+        System.out.println("  GET  http://localhost:8082/api/orders/{orderId}");
         System.out.println("\nHealth & Metrics:");
         System.out.println("  GET  http://localhost:8082/actuator/health");
         System.out.println("  GET  http://localhost:8082/actuator/metrics");
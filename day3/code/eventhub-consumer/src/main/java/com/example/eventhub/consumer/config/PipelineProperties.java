@@ -0,0 +1,42 @@
+package com.example.eventhub.consumer.config;
+
+import com.example.eventhub.consumer.pipeline.WaitStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Staged Pipeline Properties
+ * 
+ * eventhub.consumer.pipeline.* - when enabled, orders flow through the
+ * validate -> inventory -> status stages on dedicated worker threads
+ * instead of being processed on the receiving thread.
+ */
+@Data
+@ConfigurationProperties(prefix = "eventhub.consumer.pipeline")
+public class PipelineProperties {
+    
+    private boolean enabled = false;
+    
+    /** Slots per worker ring buffer (rounded up to a power of two) */
+    private int ringSize = 1024;
+    
+    private WaitStrategy waitStrategy = WaitStrategy.SLEEPING;
+    
+    /** Per-stage settings, keyed by stage name: validate, inventory, status */
+    private Map<String, Stage> stages = new LinkedHashMap<>();
+    
+    public Stage stage(String name) {
+        return stages.getOrDefault(name, new Stage());
+    }
+    
+    @Data
+    public static class Stage {
+        private int parallelism = 1;
+        
+        /** Most items a worker claims from its ring at once */
+        private int batchSize = 32;
+    }
+}
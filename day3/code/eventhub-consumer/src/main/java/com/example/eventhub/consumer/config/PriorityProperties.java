@@ -0,0 +1,50 @@
+package com.example.eventhub.consumer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Priority Lane Properties
+ * 
+ * eventhub.consumer.priority.* - when enabled, received orders are queued in
+ * weighted lanes and dispatched by weighted fair scheduling, so high-value
+ * orders are not stuck behind a backlog of low-value ones.
+ * 
+ * Lanes are checked in order; an order goes to the first lane with any
+ * matching rule. A lane without rules matches every order.
+ */
+@Data
+@ConfigurationProperties(prefix = "eventhub.consumer.priority")
+public class PriorityProperties {
+    
+    private boolean enabled = false;
+    
+    /** Dispatcher threads; orders are sharded by customer ID */
+    private int shards = 4;
+    
+    /** Queued orders per shard before receiving waits */
+    private int capacity = 10000;
+    
+    private List<Lane> lanes = new ArrayList<>();
+    
+    /** Customer tier by customer ID, for tier-based lane rules */
+    private Map<String, String> customerTiers = new HashMap<>();
+    
+    @Data
+    public static class Lane {
+        private String name;
+        private int weight = 1;
+        private Double minAmount;
+        private Integer minQuantity;
+        private List<String> tiers = new ArrayList<>();
+        
+        public boolean hasRules() {
+            return minAmount != null || minQuantity != null || !tiers.isEmpty();
+        }
+    }
+}
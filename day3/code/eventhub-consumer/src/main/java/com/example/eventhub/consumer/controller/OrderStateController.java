@@ -0,0 +1,48 @@
+package com.example.eventhub.consumer.controller;
+
+import com.example.eventhub.consumer.state.OrderState;
+import com.example.eventhub.consumer.state.OrderStateStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order State API Controller
+ * 
+ * Point lookups against the materialized order state
+ */
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderStateController {
+    
+    private final OrderStateStore stateStore;
+    
+    /**
+     * Get the latest known state of an order
+     * 
+     * GET /api/orders/{orderId}
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrder(@PathVariable String orderId) {
+        return stateStore.get(orderId)
+            .map(state -> ResponseEntity.ok(toResponse(state)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    private Map<String, Object> toResponse(OrderState state) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", state.orderId());
+        response.put("status", state.status());
+        response.put("totalAmount", state.totalAmount());
+        response.put("updatedAt", Instant.ofEpochMilli(state.updatedAt()).toString());
+        return response;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.eventhub.consumer.controller;
 
+import com.example.eventhub.consumer.service.ConsumerBackpressure;
+import com.example.eventhub.consumer.service.DownstreamGuard;
 import com.example.eventhub.consumer.service.OrderConsumerService;
+import com.example.eventhub.consumer.service.SequenceVerifier;
+import com.example.eventhub.consumer.state.OrderStateStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +25,10 @@ import java.util.Map;
 public class StatsController {
     
     private final OrderConsumerService consumerService;
+    private final OrderStateStore stateStore;
+    private final DownstreamGuard downstreamGuard;
+    private final ConsumerBackpressure backpressure;
+    private final SequenceVerifier sequenceVerifier;
     
     /**
      * Get consumer processing statistics
@@ -37,12 +45,30 @@ public class StatsController {
         stats.put("errorCount", errors);
         stats.put("successCount", processed - errors);
         stats.put("successRate", calculateSuccessRate(processed, errors));
+        stats.put("stateStore", stateStore.getStats());
+        stats.put("pipeline", consumerService.getPipelineStats());
+        stats.put("priorityLanes", consumerService.getPriorityLaneStats());
+        stats.put("downstream", downstreamGuard.getStats());
+        stats.put("backpressure", backpressure.getStats());
+        stats.put("ordering", sequenceVerifier.getStats());
         stats.put("applicationName", "eventhub-consumer");
         stats.put("status", "running");
         
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Per-customer ordering verification with the most recent violations
+     * 
+     * GET /api/stats/ordering
+     */
+    @GetMapping("/ordering")
+    public ResponseEntity<Map<String, Object>> getOrderingStats() {
+        Map<String, Object> response = new HashMap<>(sequenceVerifier.getStats());
+        response.put("recentViolations", sequenceVerifier.getRecentViolations());
+        return ResponseEntity.ok(response);
+    }
+    
     private double calculateSuccessRate(int total, int errors) {
         if (total == 0) return 100.0;
         return Math.round(((total - errors) * 100.0 / total) * 100.0) / 100.0;
@@ -0,0 +1,337 @@
+package com.example.eventhub.consumer.pipeline;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Priority Lane Scheduler
+ * 
+ * Queues items in weighted lanes and hands them to a handler in smooth
+ * weighted round-robin order across the non-empty lanes, so a lane with
+ * weight 8 gets eight dispatches for every one of a weight-1 lane while
+ * both have work, and an idle lane costs nothing.
+ * 
+ * Items are sharded by key onto single-threaded dispatchers and queued per
+ * key in arrival order, so they are only reordered across keys, never
+ * within one. Lanes schedule keys rather than items: a key is placed in the
+ * highest lane of any item it has queued, so a high-value order lifts the
+ * earlier orders of the same customer instead of waiting behind them in a
+ * slow lane. Queueing delay is recorded under each item's own lane.
+ * 
+ * Metrics per lane: orders.lane.queue.delay and orders.lane.depth, tagged
+ * with lane=name.
+ */
+@Slf4j
+public class PriorityLaneScheduler<T> {
+    
+    private final String name;
+    private final List<String> laneNames;
+    private final int[] weights;
+    private final ToIntFunction<T> classifier;
+    private final Function<T, Object> keyOf;
+    private final Consumer<T> handler;
+    private final List<Shard> shards = new ArrayList<>();
+    private final List<Timer> queueDelays = new ArrayList<>();
+    private volatile boolean accepting;
+    
+    /**
+     * @param laneNames  lane names, in the index order returned by the classifier
+     * @param weights    dispatch weight per lane (at least 1)
+     * @param classifier lane index for an item
+     * @param keyOf      ordering key; items with equal keys are never reordered
+     */
+    public PriorityLaneScheduler(String name,
+                                 List<String> laneNames,
+                                 int[] weights,
+                                 int shardCount,
+                                 int capacityPerShard,
+                                 ToIntFunction<T> classifier,
+                                 Function<T, Object> keyOf,
+                                 Consumer<T> handler,
+                                 MeterRegistry meterRegistry) {
+        if (laneNames.isEmpty() || laneNames.size() != weights.length) {
+            throw new IllegalArgumentException("Each lane needs exactly one weight");
+        }
+        this.name = name;
+        this.laneNames = List.copyOf(laneNames);
+        this.weights = weights.clone();
+        for (int i = 0; i < this.weights.length; i++) {
+            this.weights[i] = Math.max(1, this.weights[i]);
+        }
+        this.classifier = classifier;
+        this.keyOf = keyOf;
+        this.handler = handler;
+        
+        for (int s = 0; s < Math.max(1, shardCount); s++) {
+            shards.add(new Shard(Math.max(1, capacityPerShard)));
+        }
+        for (int lane = 0; lane < laneNames.size(); lane++) {
+            int index = lane;
+            queueDelays.add(Timer.builder("orders.lane.queue.delay")
+                .description("Time an item waited in its priority lane")
+                .tag("lane", laneNames.get(lane))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+            Gauge.builder("orders.lane.depth", this, scheduler -> scheduler.depth(index))
+                .description("Items waiting in a priority lane")
+                .tag("lane", laneNames.get(lane))
+                .register(meterRegistry);
+        }
+    }
+    
+    public synchronized void start() {
+        if (accepting) {
+            return;
+        }
+        for (int s = 0; s < shards.size(); s++) {
+            Shard shard = shards.get(s);
+            shard.running = true;
+            shard.thread = new Thread(shard::dispatchLoop, name + "-dispatch-" + s);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+        accepting = true;
+        log.info("Priority lanes started", kv("scheduler", name), kv("lanes", laneNames), kv("shards", shards.size()));
+    }
+    
+    /**
+     * Stop accepting items and let each dispatcher drain its lanes
+     */
+    public synchronized void stop(long timeoutMillis) throws InterruptedException {
+        accepting = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Shard shard : shards) {
+            shard.shutdown();
+        }
+        for (Shard shard : shards) {
+            if (shard.thread != null) {
+                shard.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+                shard.thread = null;
+            }
+        }
+    }
+    
+    /**
+     * Queue an item in its lane, waiting while the shard is full
+     */
+    public void submit(T item) throws InterruptedException {
+        if (!accepting) {
+            throw new IllegalStateException("Scheduler " + name + " is not running");
+        }
+        Object key = keyOf.apply(item);
+        int lane = Math.floorMod(classifier.applyAsInt(item), laneNames.size());
+        shards.get(Math.floorMod(Objects.hashCode(key), shards.size())).enqueue(item, key, lane);
+    }
+    
+    /**
+     * Depth, weight and queueing delay per lane, for diagnostics
+     */
+    public List<Map<String, Object>> getLaneStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int lane = 0; lane < laneNames.size(); lane++) {
+            Timer delay = queueDelays.get(lane);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("lane", laneNames.get(lane));
+            stats.put("weight", weights[lane]);
+            stats.put("depth", depth(lane));
+            stats.put("dispatched", delay.count());
+            stats.put("meanQueueDelayMs", delay.mean(TimeUnit.MILLISECONDS));
+            stats.put("maxQueueDelayMs", delay.max(TimeUnit.MILLISECONDS));
+            result.add(stats);
+        }
+        return result;
+    }
+    
+    private int depth(int lane) {
+        int depth = 0;
+        for (Shard shard : shards) {
+            depth += shard.depth(lane);
+        }
+        return depth;
+    }
+    
+    private record Queued<T>(T item, int lane, long enqueuedAt) {
+    }
+    
+    /**
+     * A key's queued items in arrival order; the key sits in the highest lane
+     * of any of its items
+     */
+    private final class KeyQueue {
+        private final Object key;
+        private final ArrayDeque<Queued<T>> items = new ArrayDeque<>();
+        private final int[] perLane = new int[weights.length];
+        private int lane;
+        
+        private KeyQueue(Object key) {
+            this.key = key;
+        }
+        
+        private int highestLane() {
+            for (int i = 0; i < perLane.length; i++) {
+                if (perLane[i] > 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+    
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final List<LinkedHashSet<KeyQueue>> lanes = new ArrayList<>();
+        private final Map<Object, KeyQueue> keys = new HashMap<>();
+        private final int[] current = new int[weights.length];
+        private final int[] depths = new int[weights.length];
+        private final int capacity;
+        private int size;
+        private volatile boolean running;
+        private Thread thread;
+        
+        private Shard(int capacity) {
+            this.capacity = capacity;
+            for (int i = 0; i < weights.length; i++) {
+                lanes.add(new LinkedHashSet<>());
+            }
+        }
+        
+        private void enqueue(T item, Object key, int lane) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (size >= capacity) {
+                    notFull.await();
+                }
+                KeyQueue queue = keys.get(key);
+                if (queue == null) {
+                    queue = new KeyQueue(key);
+                    queue.lane = lane;
+                    keys.put(key, queue);
+                    lanes.get(lane).add(queue);
+                } else if (lane < queue.lane) {
+                    // Promote the key so earlier orders do not hold back this one
+                    lanes.get(queue.lane).remove(queue);
+                    queue.lane = lane;
+                    lanes.get(lane).add(queue);
+                }
+                queue.items.addLast(new Queued<>(item, lane, System.nanoTime()));
+                queue.perLane[lane]++;
+                depths[lane]++;
+                size++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void dispatchLoop() {
+            while (true) {
+                Queued<T> next;
+                lock.lock();
+                try {
+                    while (size == 0 && running) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (size == 0) {
+                        return;
+                    }
+                    next = take(pickLane());
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+                
+                queueDelays.get(next.lane()).record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+                try {
+                    handler.accept(next.item());
+                } catch (RuntimeException e) {
+                    log.error("✗ Priority lane handler failed", kv("scheduler", name), kv("lane", laneNames.get(next.lane())), e);
+                }
+            }
+        }
+        
+        /**
+         * Take the oldest item of the first key in the lane; a key with more
+         * items goes to the back of its (possibly lower) lane
+         */
+        private Queued<T> take(int lane) {
+            Iterator<KeyQueue> it = lanes.get(lane).iterator();
+            KeyQueue queue = it.next();
+            it.remove();
+            
+            Queued<T> next = queue.items.pollFirst();
+            queue.perLane[next.lane()]--;
+            depths[next.lane()]--;
+            size--;
+            
+            if (queue.items.isEmpty()) {
+                keys.remove(queue.key);
+            } else {
+                queue.lane = queue.highestLane();
+                lanes.get(queue.lane).add(queue);
+            }
+            return next;
+        }
+        
+        /**
+         * Smooth weighted round-robin over the non-empty lanes
+         */
+        private int pickLane() {
+            int total = 0;
+            int best = -1;
+            for (int lane = 0; lane < weights.length; lane++) {
+                if (lanes.get(lane).isEmpty()) {
+                    current[lane] = 0;
+                    continue;
+                }
+                current[lane] += weights[lane];
+                total += weights[lane];
+                if (best < 0 || current[lane] > current[best]) {
+                    best = lane;
+                }
+            }
+            current[best] -= total;
+            return best;
+        }
+        
+        private void shutdown() {
+            lock.lock();
+            try {
+                running = false;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private int depth(int lane) {
+            lock.lock();
+            try {
+                return depths[lane];
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
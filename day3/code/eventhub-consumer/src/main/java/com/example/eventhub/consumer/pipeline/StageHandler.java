@@ -0,0 +1,10 @@
+package com.example.eventhub.consumer.pipeline;
+
+/**
+ * Work done by one pipeline stage for one item
+ */
+@FunctionalInterface
+public interface StageHandler<T> {
+    
+    void handle(T item) throws Exception;
+}
@@ -0,0 +1,12 @@
+package com.example.eventhub.consumer.pipeline;
+
+/**
+ * Definition of one pipeline stage
+ * 
+ * @param name - stage name, used for thread names and metric tags
+ * @param parallelism - worker threads, each with its own ring buffer
+ * @param batchSize - most items a worker claims from its ring per pass
+ * @param handler - work done per item
+ */
+public record StageSpec<T>(String name, int parallelism, int batchSize, StageHandler<T> handler) {
+}
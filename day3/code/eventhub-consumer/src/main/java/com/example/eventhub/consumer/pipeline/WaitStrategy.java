@@ -0,0 +1,56 @@
+package com.example.eventhub.consumer.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wait Strategy
+ * 
+ * What a pipeline thread does while its ring buffer is empty (consumers)
+ * or full (producers). Trade CPU for latency per deployment:
+ * - BUSY_SPIN: lowest latency, burns a core per waiting thread
+ * - YIELDING: spins briefly, then yields the CPU
+ * - SLEEPING: spins, yields, then parks ~100µs; cheap on shared nodes
+ */
+public enum WaitStrategy {
+    
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    
+    YIELDING {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    
+    SLEEPING {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+    };
+    
+    private static final int SPIN_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+    
+    /**
+     * Wait once
+     * 
+     * @param attempt - consecutive idle attempts so far (reset after work is found)
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,83 @@
+package com.example.eventhub.consumer.service;
+
+import com.azure.spring.messaging.eventhubs.support.EventHubsHeaders;
+import org.springframework.messaging.Message;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.azure.spring.messaging.AzureHeaders.RAW_PARTITION_ID;
+
+/**
+ * Completion Tracker
+ * 
+ * When events finish out of order (parallel pipeline workers), only the
+ * contiguous prefix of finished events in each partition is safe to
+ * checkpoint. This tracks in-flight events per partition by sequence number
+ * and returns the newest message that may be checkpointed.
+ */
+class CompletionTracker {
+    
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    
+    /**
+     * Register a message before it is handed off for processing
+     */
+    void begin(Message<?> message) {
+        Object partitionId = message.getHeaders().get(RAW_PARTITION_ID);
+        Object sequence = message.getHeaders().get(EventHubsHeaders.SEQUENCE_NUMBER);
+        if (partitionId != null && sequence instanceof Number n) {
+            partitions.computeIfAbsent(partitionId.toString(), k -> new Partition()).begin(n.longValue(), message);
+        }
+    }
+    
+    /**
+     * Mark a message finished (successfully or not)
+     * 
+     * @return the newest message whose predecessors have all finished and that
+     *         has not been returned before, or null if the watermark did not move
+     */
+    Message<?> complete(Message<?> message) {
+        Object partitionId = message.getHeaders().get(RAW_PARTITION_ID);
+        Object sequence = message.getHeaders().get(EventHubsHeaders.SEQUENCE_NUMBER);
+        if (partitionId == null || !(sequence instanceof Number n)) {
+            return message;
+        }
+        Partition partition = partitions.get(partitionId.toString());
+        return partition == null ? message : partition.complete(n.longValue());
+    }
+    
+    private static final class Partition {
+        private final TreeMap<Long, Entry> inFlight = new TreeMap<>();
+        
+        private synchronized void begin(long sequence, Message<?> message) {
+            inFlight.put(sequence, new Entry(message));
+        }
+        
+        private synchronized Message<?> complete(long sequence) {
+            Entry entry = inFlight.get(sequence);
+            if (entry == null) {
+                return null;
+            }
+            entry.done = true;
+            
+            Message<?> watermark = null;
+            Map.Entry<Long, Entry> first;
+            while ((first = inFlight.firstEntry()) != null && first.getValue().done) {
+                watermark = first.getValue().message;
+                inFlight.pollFirstEntry();
+            }
+            return watermark;
+        }
+    }
+    
+    private static final class Entry {
+        private final Message<?> message;
+        private boolean done;
+        
+        private Entry(Message<?> message) {
+            this.message = message;
+        }
+    }
+}
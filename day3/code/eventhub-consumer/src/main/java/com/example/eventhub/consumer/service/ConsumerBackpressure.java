@@ -0,0 +1,141 @@
+package com.example.eventhub.consumer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Consumer Backpressure
+ * 
+ * Gates event intake on the health of downstream dependencies. Event Hubs
+ * delivers each partition on its own thread and only prefetches a bounded
+ * amount ahead, so holding a partition's delivery thread here pauses
+ * receiving on that partition without buffering events in memory.
+ * 
+ * - While any downstream breaker is open, partitions wait at the gate
+ * - When a bulkhead saturates, partitions wait for a short cool-down
+ * - After recovery, intake ramps back up from a slow pace to full speed
+ */
+@Slf4j
+@Component
+public class ConsumerBackpressure {
+    
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    
+    private final Set<String> openBreakers = ConcurrentHashMap.newKeySet();
+    private final Set<String> pausedPartitions = ConcurrentHashMap.newKeySet();
+    private final long saturationPauseNanos;
+    private final long rampUpNanos;
+    private final long initialPaceNanos;
+    private final Counter pauseCounter;
+    
+    private volatile long saturatedUntilNanos;
+    private volatile long resumedAtNanos;
+    
+    public ConsumerBackpressure(
+        @Value("${eventhub.consumer.backpressure.saturation-pause:500ms}") Duration saturationPause,
+        @Value("${eventhub.consumer.backpressure.ramp-up:30s}") Duration rampUp,
+        @Value("${eventhub.consumer.backpressure.initial-pace:200ms}") Duration initialPace,
+        MeterRegistry meterRegistry) {
+        
+        this.saturationPauseNanos = saturationPause.toNanos();
+        this.rampUpNanos = Math.max(1, rampUp.toNanos());
+        this.initialPaceNanos = initialPace.toNanos();
+        
+        long now = System.nanoTime();
+        this.saturatedUntilNanos = now;
+        this.resumedAtNanos = now - rampUpNanos;
+        
+        this.pauseCounter = Counter.builder("orders.backpressure.pauses")
+            .description("Times intake was paused because a downstream degraded")
+            .register(meterRegistry);
+        Gauge.builder("orders.backpressure.paused.partitions", pausedPartitions, Set::size)
+            .description("Partitions currently held at the backpressure gate")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Block the calling partition until intake is allowed, then apply the
+     * recovery ramp pace
+     */
+    public void awaitAdmission(String partitionId) throws InterruptedException {
+        String partition = partitionId == null ? "unknown" : partitionId;
+        if (isPaused()) {
+            pausedPartitions.add(partition);
+            try {
+                awaitRecovery();
+            } finally {
+                pausedPartitions.remove(partition);
+            }
+        }
+        
+        long sinceResume = System.nanoTime() - resumedAtNanos;
+        if (sinceResume < rampUpNanos) {
+            long pace = (long) (initialPaceNanos * (1.0 - (double) sinceResume / rampUpNanos));
+            TimeUnit.NANOSECONDS.sleep(pace);
+        }
+    }
+    
+    /**
+     * Wait until no breaker is open and no bulkhead cool-down is running
+     */
+    public void awaitRecovery() throws InterruptedException {
+        while (isPaused()) {
+            long coolDown = saturatedUntilNanos - System.nanoTime();
+            TimeUnit.NANOSECONDS.sleep(coolDown > 0 ? Math.min(coolDown, POLL_NANOS) : POLL_NANOS);
+        }
+    }
+    
+    public boolean isPaused() {
+        return !openBreakers.isEmpty() || saturatedUntilNanos - System.nanoTime() > 0;
+    }
+    
+    void breakerOpened(String downstream) {
+        if (openBreakers.add(downstream)) {
+            pauseCounter.increment();
+            log.warn("⚠ Downstream breaker open - pausing intake", kv("downstream", downstream));
+        }
+    }
+    
+    void breakerRecovering(String downstream) {
+        if (openBreakers.remove(downstream)) {
+            resumedAtNanos = System.nanoTime();
+            log.info("✓ Downstream recovering - resuming intake gradually",
+                kv("downstream", downstream),
+                kv("rampUpMs", TimeUnit.NANOSECONDS.toMillis(rampUpNanos)));
+        }
+    }
+    
+    void bulkheadSaturated(String downstream) {
+        long now = System.nanoTime();
+        if (saturatedUntilNanos - now <= 0) {
+            pauseCounter.increment();
+            log.warn("⚠ Downstream bulkhead saturated - pausing intake", kv("downstream", downstream));
+        }
+        saturatedUntilNanos = now + saturationPauseNanos;
+        resumedAtNanos = saturatedUntilNanos;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("paused", isPaused());
+        stats.put("openBreakers", new TreeSet<>(openBreakers));
+        stats.put("pausedPartitions", new TreeSet<>(pausedPartitions));
+        stats.put("rampingUp", System.nanoTime() - resumedAtNanos < rampUpNanos);
+        stats.put("pauses", (long) pauseCounter.count());
+        return stats;
+    }
+}
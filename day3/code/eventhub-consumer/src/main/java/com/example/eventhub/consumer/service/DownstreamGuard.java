@@ -0,0 +1,122 @@
+package com.example.eventhub.consumer.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.CheckedRunnable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Downstream Guard
+ * 
+ * Wraps calls to downstream dependencies (inventory service, order database)
+ * in a resilience4j bulkhead and circuit breaker, and feeds their state into
+ * {@link ConsumerBackpressure} so intake pauses instead of piling up failures.
+ * 
+ * Calls rejected by an open breaker or a full bulkhead are not failures of
+ * the event: the caller waits for the downstream to recover and tries again.
+ */
+@Slf4j
+@Component
+public class DownstreamGuard {
+    
+    public static final String INVENTORY = "inventory";
+    public static final String DATABASE = "database";
+    
+    private static final long REJECTED_RETRY_DELAY_MS = 50;
+    
+    private final boolean enabled;
+    private final ConsumerBackpressure backpressure;
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+    
+    public DownstreamGuard(
+        @Value("${eventhub.consumer.backpressure.enabled:true}") boolean enabled,
+        CircuitBreakerRegistry circuitBreakerRegistry,
+        BulkheadRegistry bulkheadRegistry,
+        ConsumerBackpressure backpressure) {
+        
+        this.enabled = enabled;
+        this.backpressure = backpressure;
+        
+        for (String downstream : List.of(INVENTORY, DATABASE)) {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(downstream);
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                log.info("Circuit breaker state transition",
+                    kv("downstream", downstream),
+                    kv("transition", event.getStateTransition()));
+                switch (event.getStateTransition().getToState()) {
+                    case OPEN, FORCED_OPEN -> backpressure.breakerOpened(downstream);
+                    default -> backpressure.breakerRecovering(downstream);
+                }
+            });
+            
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(downstream);
+            bulkhead.getEventPublisher().onCallRejected(event -> backpressure.bulkheadSaturated(downstream));
+            
+            circuitBreakers.put(downstream, circuitBreaker);
+            bulkheads.put(downstream, bulkhead);
+        }
+    }
+    
+    /**
+     * Run a downstream call, waiting out open breakers and saturated bulkheads
+     */
+    public void call(String downstream, CheckedRunnable call) throws Exception {
+        if (!enabled) {
+            invoke(call);
+            return;
+        }
+        
+        // Bulkhead outside the breaker so saturation is not counted as a downstream failure
+        CheckedRunnable guarded = Bulkhead.decorateCheckedRunnable(bulkheads.get(downstream),
+            CircuitBreaker.decorateCheckedRunnable(circuitBreakers.get(downstream), call));
+        
+        while (true) {
+            try {
+                invoke(guarded);
+                return;
+            } catch (CallNotPermittedException | BulkheadFullException e) {
+                TimeUnit.MILLISECONDS.sleep(REJECTED_RETRY_DELAY_MS);
+                backpressure.awaitRecovery();
+            }
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        circuitBreakers.forEach((downstream, circuitBreaker) -> {
+            Bulkhead.Metrics bulkhead = bulkheads.get(downstream).getMetrics();
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("circuitBreakerState", circuitBreaker.getState().name());
+            entry.put("failureRate", circuitBreaker.getMetrics().getFailureRate());
+            entry.put("slowCallRate", circuitBreaker.getMetrics().getSlowCallRate());
+            entry.put("bulkheadAvailable", bulkhead.getAvailableConcurrentCalls());
+            entry.put("bulkheadMax", bulkhead.getMaxAllowedConcurrentCalls());
+            stats.put(downstream, entry);
+        });
+        return stats;
+    }
+    
+    private static void invoke(CheckedRunnable call) throws Exception {
+        try {
+            call.run();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.eventhub.consumer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Event Deduplicator
+ * 
+ * Remembers event IDs seen within a sliding window and flags redeliveries.
+ * 
+ * Producer event IDs are time-ordered (UUIDv7-style), so each ID carries its
+ * creation time. IDs are grouped into time buckets by that embedded time, and
+ * whole buckets are dropped once they fall out of the window - no per-entry
+ * timestamps or sweeps. IDs without an embedded time (e.g. UUIDv4) are bucketed
+ * by arrival time instead.
+ */
+@Slf4j
+@Component
+public class EventDeduplicator {
+    
+    private static final int BUCKETS_PER_WINDOW = 10;
+    
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    
+    public EventDeduplicator(
+        @Value("${eventhub.consumer.dedup.enabled:true}") boolean enabled,
+        @Value("${eventhub.consumer.dedup.window:10m}") Duration window,
+        MeterRegistry meterRegistry) {
+        
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS_PER_WINDOW);
+        
+        Gauge.builder("orders.dedup.tracked", this, EventDeduplicator::getTrackedCount)
+            .description("Event IDs currently tracked in the dedup window")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record an event ID and report whether it was already seen in the window
+     * 
+     * @return true if the event is a duplicate and should be skipped
+     */
+    public boolean isDuplicate(String eventId) {
+        if (!enabled || eventId == null) {
+            return false;
+        }
+        
+        long now = System.currentTimeMillis();
+        long eventTime = timestampOf(eventId);
+        if (eventTime < 0) {
+            eventTime = now;
+        }
+        
+        long horizon = now - windowMillis;
+        evictBefore(horizon);
+        
+        if (eventTime < horizon) {
+            // Older than the window - cannot be tracked, treat as new
+            return false;
+        }
+        
+        Set<String> bucket = buckets.computeIfAbsent(eventTime / bucketMillis, k -> ConcurrentHashMap.newKeySet());
+        return !bucket.add(eventId);
+    }
+    
+    private void evictBefore(long horizon) {
+        Map.Entry<Long, Set<String>> oldest;
+        while ((oldest = buckets.firstEntry()) != null && (oldest.getKey() + 1) * bucketMillis <= horizon) {
+            if (buckets.remove(oldest.getKey(), oldest.getValue())) {
+                log.debug("Evicted dedup bucket", kv("bucket", oldest.getKey()), kv("ids", oldest.getValue().size()));
+            }
+        }
+    }
+    
+    /**
+     * Extract the embedded epoch millis from a UUIDv7-style event ID
+     * 
+     * @return epoch millis, or -1 if the ID carries no timestamp
+     */
+    static long timestampOf(String eventId) {
+        try {
+            UUID uuid = UUID.fromString(eventId);
+            return uuid.version() == 7 ? uuid.getMostSignificantBits() >>> 16 : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+    
+    public long getTrackedCount() {
+        long total = 0;
+        for (Set<String> bucket : buckets.values()) {
+            total += bucket.size();
+        }
+        return total;
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.eventhub.consumer.service;
 
 import com.azure.spring.messaging.checkpoint.Checkpointer;
+import com.example.eventhub.consumer.config.PipelineProperties;
+import com.example.eventhub.consumer.config.PriorityProperties;
 import com.example.eventhub.consumer.model.OrderEvent;
+import com.example.eventhub.consumer.pipeline.PriorityLaneScheduler;
+import com.example.eventhub.consumer.pipeline.StageHandler;
+import com.example.eventhub.consumer.pipeline.StageSpec;
+import com.example.eventhub.consumer.pipeline.StagedPipeline;
+import com.example.eventhub.consumer.state.OrderStateStore;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static com.azure.spring.messaging.AzureHeaders.CHECKPOINTER;
+import static com.azure.spring.messaging.AzureHeaders.RAW_PARTITION_ID;
 import static net.logstash.logback.argument.StructuredArguments.*;
 
 /**
@@ -21,30 +34,115 @@ import static net.logstash.logback.argument.StructuredArguments.*;
  * 
  * Handles consuming order events from Event Hub with:
  * - Manual checkpointing for reliability
+ * - Duplicate delivery detection by event ID
+ * - Materialized order state, with optional snapshot-linked checkpoints
+ * - Optional staged pipeline (validate -> inventory -> status) on ring buffers
+ * - Downstream circuit breakers and bulkheads that pause intake when tripped
+ * - Optional value-based priority lanes with weighted fair dispatch
+ * - Per-customer ordering verification from producer sequence headers
  * - Metrics collection
  * - Error handling with retry
  * - Processing time tracking
  */
 @Slf4j
 @Configuration
+@EnableConfigurationProperties({PipelineProperties.class, PriorityProperties.class})
 public class OrderConsumerService {
     
+    private final EventDeduplicator deduplicator;
+    private final OrderStateStore stateStore;
+    private final DownstreamGuard downstreamGuard;
+    private final ConsumerBackpressure backpressure;
+    private final SequenceVerifier sequenceVerifier;
+    private final StagedPipeline<PipelineOrder> pipeline;
+    private final PriorityLaneScheduler<PipelineOrder> priorityLanes;
+    private final CompletionTracker completionTracker = new CompletionTracker();
     private final AtomicInteger processedCount = new AtomicInteger(0);
+    // Handed-off orders finished either way; paces their checkpoints
+    private final AtomicInteger finishedCount = new AtomicInteger(0);
     private final AtomicInteger errorCount = new AtomicInteger(0);
     private final Counter processedCounter;
     private final Counter errorCounter;
+    private final Counter duplicateCounter;
     private final Timer processingTimer;
     
-    public OrderConsumerService(MeterRegistry meterRegistry) {
+    public OrderConsumerService(EventDeduplicator deduplicator,
+                                OrderStateStore stateStore,
+                                DownstreamGuard downstreamGuard,
+                                ConsumerBackpressure backpressure,
+                                SequenceVerifier sequenceVerifier,
+                                PipelineProperties pipelineProperties,
+                                PriorityProperties priorityProperties,
+                                MeterRegistry meterRegistry) {
+        this.deduplicator = deduplicator;
+        this.stateStore = stateStore;
+        this.downstreamGuard = downstreamGuard;
+        this.backpressure = backpressure;
+        this.sequenceVerifier = sequenceVerifier;
         this.processedCounter = Counter.builder("orders.processed")
             .description("Number of orders processed successfully")
             .register(meterRegistry);
         this.errorCounter = Counter.builder("orders.errors")
             .description("Number of orders failed to process")
             .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("orders.duplicates")
+            .description("Number of redelivered orders skipped by event ID")
+            .register(meterRegistry);
         this.processingTimer = Timer.builder("orders.processing.time")
             .description("Time taken to process orders")
             .register(meterRegistry);
+        this.pipeline = pipelineProperties.isEnabled() ? createPipeline(pipelineProperties, meterRegistry) : null;
+        this.priorityLanes = priorityProperties.isEnabled() ? createPriorityLanes(priorityProperties, meterRegistry) : null;
+    }
+    
+    /**
+     * Build the validate -> inventory -> status pipeline; orders are routed
+     * by customer ID so each customer's orders stay in sequence
+     */
+    private StagedPipeline<PipelineOrder> createPipeline(PipelineProperties properties, MeterRegistry meterRegistry) {
+        List<StageSpec<PipelineOrder>> stages = List.of(
+            stageSpec("validate", properties, item -> validateOrder(item.order())),
+            stageSpec("inventory", properties, item -> checkInventory(item.order())),
+            stageSpec("status", properties, item -> updateOrderStatus(item.order())));
+        
+        StagedPipeline<PipelineOrder> staged = new StagedPipeline<>(
+            "order-pipeline",
+            stages,
+            properties.getRingSize(),
+            properties.getWaitStrategy(),
+            item -> Objects.hashCode(item.order().getCustomerId()),
+            this::onProcessed,
+            this::onFailed,
+            meterRegistry);
+        staged.start();
+        return staged;
+    }
+    
+    /**
+     * Build the priority lanes in front of processing; lanes only reorder
+     * orders of different customers
+     */
+    private PriorityLaneScheduler<PipelineOrder> createPriorityLanes(PriorityProperties properties, MeterRegistry meterRegistry) {
+        OrderLaneClassifier classifier = new OrderLaneClassifier(properties);
+        PriorityLaneScheduler<PipelineOrder> lanes = new PriorityLaneScheduler<>(
+            "order-lanes",
+            classifier.laneNames(),
+            classifier.weights(),
+            properties.getShards(),
+            properties.getCapacity(),
+            item -> classifier.classify(item.order()),
+            item -> item.order().getCustomerId(),
+            this::dispatchFromLane,
+            meterRegistry);
+        lanes.start();
+        return lanes;
+    }
+    
+    private static StageSpec<PipelineOrder> stageSpec(
+        String name, PipelineProperties properties, StageHandler<PipelineOrder> handler) {
+        
+        PipelineProperties.Stage stage = properties.stage(name);
+        return new StageSpec<>(name, stage.getParallelism(), stage.getBatchSize(), handler);
     }
     
     /**
@@ -57,6 +155,40 @@ public class OrderConsumerService {
             
             try {
                 OrderEvent order = message.getPayload();
+                
+                // Hold this partition while a downstream is unhealthy
+                backpressure.awaitAdmission(Objects.toString(message.getHeaders().get(RAW_PARTITION_ID), null));
+                
+                if (deduplicator.isDuplicate(order.getEventId())) {
+                    duplicateCounter.increment();
+                    log.info("⏭ Skipping duplicate order",
+                        kv("orderId", order.getOrderId()),
+                        kv("eventId", order.getEventId()));
+                    return;
+                }
+                
+                if (priorityLanes != null || pipeline != null) {
+                    log.info("📥 Dispatching order",
+                        kv("orderId", order.getOrderId()),
+                        kv("customerId", order.getCustomerId()));
+                    completionTracker.begin(message);
+                    PipelineOrder item = new PipelineOrder(message, sample);
+                    try {
+                        if (priorityLanes != null) {
+                            priorityLanes.submit(item);
+                        } else {
+                            pipeline.publish(item);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        onFailed(item, e);
+                    } catch (RuntimeException e) {
+                        // Never handed off: finish it here so it does not hold back the partition
+                        onFailed(item, e);
+                    }
+                    return;
+                }
+                
                 int count = processedCount.incrementAndGet();
                 
                 log.info("📥 Processing order #{}",
@@ -66,23 +198,18 @@ public class OrderConsumerService {
                     kv("amount", order.getTotalAmount()),
                     kv("quantity", order.getQuantity()));
                 
-                // Simulate processing time (remove in production)
-                Thread.sleep(50);
-                
                 // Business logic
+                sequenceVerifier.verify(message, order.getCustomerId());
                 processOrder(order);
                 
                 // Update metrics
                 processedCounter.increment();
                 sample.stop(processingTimer);
                 
-                // Manual checkpoint every 10 messages for reliability
-                if (count % 10 == 0) {
-                    checkpoint(message, count);
-                }
+                checkpointProcessed(message, count);
                 
                 log.debug("✓ Order processed: {}", order.getOrderId());
-                
+            
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 errorCount.incrementAndGet();
@@ -97,10 +224,70 @@ public class OrderConsumerService {
         };
     }
     
+    /**
+     * Orders leaving a priority lane go through the pipeline when enabled,
+     * otherwise they are processed on the lane's dispatcher thread
+     */
+    private void dispatchFromLane(PipelineOrder item) {
+        if (pipeline != null) {
+            pipeline.publish(item);
+            return;
+        }
+        try {
+            processOrder(item.order());
+            onProcessed(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailed(item, e);
+        } catch (Exception e) {
+            onFailed(item, e);
+        }
+    }
+    
+    private void onProcessed(PipelineOrder item) {
+        sequenceVerifier.verify(item.message(), item.order().getCustomerId());
+        processedCount.incrementAndGet();
+        processedCounter.increment();
+        item.sample().stop(processingTimer);
+        log.debug("✓ Order processed: {}", item.order().getOrderId());
+        
+        Message<?> checkpointable = completionTracker.complete(item.message());
+        int finished = finishedCount.incrementAndGet();
+        if (checkpointable != null) {
+            checkpointProcessed(checkpointable, finished);
+        }
+    }
+    
+    private void onFailed(PipelineOrder item, Throwable error) {
+        sequenceVerifier.verify(item.message(), item.order().getCustomerId());
+        errorCount.incrementAndGet();
+        errorCounter.increment();
+        log.error("✗ Error processing order", kv("orderId", item.order().getOrderId()), error);
+        
+        // Failed orders are not retried, so they must not hold back the partition
+        Message<?> checkpointable = completionTracker.complete(item.message());
+        int finished = finishedCount.incrementAndGet();
+        if (checkpointable != null) {
+            checkpointProcessed(checkpointable, finished);
+        }
+    }
+    
+    /**
+     * With state snapshots, checkpoints follow the snapshot that covers them;
+     * otherwise checkpoint every 10 messages for reliability
+     */
+    private void checkpointProcessed(Message<?> message, int count) {
+        if (stateStore.isSnapshotLinked()) {
+            stateStore.trackCheckpoint(message);
+        } else if (count % 10 == 0) {
+            checkpoint(message, count);
+        }
+    }
+    
     /**
      * Business logic for processing orders
      */
-    private void processOrder(OrderEvent order) {
+    private void processOrder(OrderEvent order) throws Exception {
         // Simulate business operations
         log.debug("  → Validating order: {}", order.getOrderId());
         validateOrder(order);
@@ -123,14 +310,17 @@ public class OrderConsumerService {
         }
     }
     
-    private void checkInventory(OrderEvent order) {
-        // Simulate inventory check
+    private void checkInventory(OrderEvent order) throws Exception {
+        // Simulate inventory check latency (remove in production)
         // In production, this would call inventory service
+        downstreamGuard.call(DownstreamGuard.INVENTORY, () -> Thread.sleep(50));
     }
     
-    private void updateOrderStatus(OrderEvent order) {
-        // Simulate status update
-        // In production, this would update database
+    private void updateOrderStatus(OrderEvent order) throws Exception {
+        // Materialize the new status for point lookups
+        // In production, this would also update database
+        downstreamGuard.call(DownstreamGuard.DATABASE, () ->
+            stateStore.update(order.getOrderId(), "PROCESSING", order.getTotalAmount(), System.currentTimeMillis()));
     }
     
     /**
@@ -150,6 +340,30 @@ public class OrderConsumerService {
         }
     }
     
+    /**
+     * Per-stage pipeline statistics, or null when the pipeline is disabled
+     */
+    public List<Map<String, Object>> getPipelineStats() {
+        return pipeline == null ? null : pipeline.getStageStats();
+    }
+    
+    /**
+     * Per-lane depth and queueing delay, or null when priority lanes are disabled
+     */
+    public List<Map<String, Object>> getPriorityLaneStats() {
+        return priorityLanes == null ? null : priorityLanes.getLaneStats();
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (priorityLanes != null) {
+            priorityLanes.stop(10_000);
+        }
+        if (pipeline != null) {
+            pipeline.stop(10_000);
+        }
+    }
+    
     public int getProcessedCount() {
         return processedCount.get();
     }
@@ -157,4 +371,14 @@ public class OrderConsumerService {
     public int getErrorCount() {
         return errorCount.get();
     }
+    
+    /**
+     * An order handed off to the priority lanes or pipeline, with its source message
+     */
+    private record PipelineOrder(Message<OrderEvent> message, Timer.Sample sample) {
+        
+        private OrderEvent order() {
+            return message.getPayload();
+        }
+    }
 }
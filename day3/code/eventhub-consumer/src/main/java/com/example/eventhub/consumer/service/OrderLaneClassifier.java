@@ -0,0 +1,68 @@
+package com.example.eventhub.consumer.service;
+
+import com.example.eventhub.consumer.config.PriorityProperties;
+import com.example.eventhub.consumer.model.OrderEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order Lane Classifier
+ * 
+ * Maps an order to a priority lane index using the configured rules on
+ * total amount, quantity and customer tier.
+ */
+class OrderLaneClassifier {
+    
+    private final List<PriorityProperties.Lane> lanes;
+    private final Map<String, String> customerTiers;
+    
+    OrderLaneClassifier(PriorityProperties properties) {
+        this.lanes = properties.getLanes().isEmpty()
+            ? List.of(defaultLane())
+            : List.copyOf(properties.getLanes());
+        this.customerTiers = Map.copyOf(properties.getCustomerTiers());
+    }
+    
+    List<String> laneNames() {
+        return lanes.stream().map(PriorityProperties.Lane::getName).toList();
+    }
+    
+    int[] weights() {
+        return lanes.stream().mapToInt(PriorityProperties.Lane::getWeight).toArray();
+    }
+    
+    /**
+     * Index of the first lane matching the order, or the last lane if none does
+     */
+    int classify(OrderEvent order) {
+        String tier = order.getCustomerId() == null ? null : customerTiers.get(order.getCustomerId());
+        for (int i = 0; i < lanes.size(); i++) {
+            if (matches(lanes.get(i), order, tier)) {
+                return i;
+            }
+        }
+        return lanes.size() - 1;
+    }
+    
+    private static boolean matches(PriorityProperties.Lane lane, OrderEvent order, String tier) {
+        if (!lane.hasRules()) {
+            return true;
+        }
+        if (lane.getMinAmount() != null && order.getTotalAmount() != null
+            && order.getTotalAmount() >= lane.getMinAmount()) {
+            return true;
+        }
+        if (lane.getMinQuantity() != null && order.getQuantity() != null
+            && order.getQuantity() >= lane.getMinQuantity()) {
+            return true;
+        }
+        return tier != null && lane.getTiers().contains(tier);
+    }
+    
+    private static PriorityProperties.Lane defaultLane() {
+        PriorityProperties.Lane lane = new PriorityProperties.Lane();
+        lane.setName("standard");
+        return lane;
+    }
+}
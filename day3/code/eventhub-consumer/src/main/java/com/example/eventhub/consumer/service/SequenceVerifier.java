@@ -0,0 +1,290 @@
+package com.example.eventhub.consumer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Sequence Verifier
+ * 
+ * Checks the per-customer sequence numbers stamped by the producer and
+ * counts gaps (missing sequences), duplicates and reorderings (a sequence
+ * older than one already seen).
+ * 
+ * Producers number each customer's orders in a series with its own source
+ * ID, so sequences are tracked per (customer, sequence source): with several
+ * producer replicas each replica's orders for a customer are checked against
+ * that replica's last sequence, and a restarted producer (or one that let an
+ * idle customer's series expire) simply starts a new series.
+ * 
+ * Built to stay on in production: the last sequence per customer and source
+ * lives in striped open-addressing tables of primitive arrays (a 64-bit key
+ * hash, the last sequence and when it was seen - 24 bytes per entry), and
+ * the in-order path allocates nothing. When a table fills up, entries idle
+ * for longer than idle-timeout (e.g. those of a stopped producer) are
+ * dropped before it grows. Only violations are logged and kept.
+ */
+@Slf4j
+@Component
+public class SequenceVerifier {
+    
+    public static final String SEQUENCE_HEADER = "customerSequence";
+    public static final String SOURCE_HEADER = "sequenceSource";
+    
+    private static final int SEGMENTS = 16;
+    private static final int RECENT_VIOLATIONS = 50;
+    
+    enum Outcome { FIRST, IN_ORDER, GAP, DUPLICATE, REORDERED }
+    
+    private final boolean enabled;
+    private final long idleTimeoutMillis;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final ArrayDeque<Map<String, Object>> recentViolations = new ArrayDeque<>();
+    private final Counter inOrderCounter;
+    private final Counter gapCounter;
+    private final Counter missingCounter;
+    private final Counter duplicateCounter;
+    private final Counter reorderCounter;
+    
+    public SequenceVerifier(
+        @Value("${eventhub.consumer.sequence-check.enabled:true}") boolean enabled,
+        @Value("${eventhub.consumer.sequence-check.idle-timeout:1h}") Duration idleTimeout,
+        MeterRegistry meterRegistry) {
+        
+        this.enabled = enabled;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        
+        this.inOrderCounter = outcomeCounter(meterRegistry, "in_order");
+        this.gapCounter = outcomeCounter(meterRegistry, "gap");
+        this.duplicateCounter = outcomeCounter(meterRegistry, "duplicate");
+        this.reorderCounter = outcomeCounter(meterRegistry, "reordered");
+        this.missingCounter = Counter.builder("orders.sequence.missing")
+            .description("Customer sequence numbers skipped over by gaps")
+            .register(meterRegistry);
+        Gauge.builder("orders.sequence.customers", this, SequenceVerifier::getTrackedCustomers)
+            .description("Customer and producer pairs with a tracked last sequence")
+            .register(meterRegistry);
+    }
+    
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("orders.sequence.checks")
+            .description("Customer sequence checks by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Check a message's customer sequence against the last one seen; messages
+     * without sequence headers are ignored
+     */
+    public void verify(Message<?> message, String customerId) {
+        if (!enabled || customerId == null) {
+            return;
+        }
+        Object sequence = message.getHeaders().get(SEQUENCE_HEADER);
+        Object source = message.getHeaders().get(SOURCE_HEADER);
+        if (!(sequence instanceof Number seq)) {
+            return;
+        }
+        int sourceId = source instanceof Number n ? n.intValue() : 0;
+        
+        long hash = hash(customerId, sourceId);
+        Segment segment = segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+        long now = System.currentTimeMillis();
+        long previous;
+        Outcome outcome;
+        synchronized (segment) {
+            previous = segment.last(hash);
+            outcome = segment.record(hash, seq.longValue(), now, now - idleTimeoutMillis);
+        }
+        
+        switch (outcome) {
+            case FIRST, IN_ORDER -> inOrderCounter.increment();
+            case GAP -> {
+                gapCounter.increment();
+                missingCounter.increment(seq.longValue() - previous - 1);
+                violation(outcome, customerId, sourceId, previous, seq.longValue());
+            }
+            case DUPLICATE -> {
+                duplicateCounter.increment();
+                violation(outcome, customerId, sourceId, previous, seq.longValue());
+            }
+            case REORDERED -> {
+                reorderCounter.increment();
+                violation(outcome, customerId, sourceId, previous, seq.longValue());
+            }
+        }
+    }
+    
+    private void violation(Outcome outcome, String customerId, int source, long previous, long sequence) {
+        log.warn("⚠ Customer sequence violation",
+            kv("type", outcome),
+            kv("customerId", customerId),
+            kv("source", source),
+            kv("lastSequence", previous),
+            kv("sequence", sequence));
+        
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("type", outcome.name());
+        entry.put("customerId", customerId);
+        entry.put("source", source);
+        entry.put("lastSequence", previous);
+        entry.put("sequence", sequence);
+        entry.put("at", Instant.now().toString());
+        synchronized (recentViolations) {
+            if (recentViolations.size() == RECENT_VIOLATIONS) {
+                recentViolations.removeFirst();
+            }
+            recentViolations.addLast(entry);
+        }
+    }
+    
+    public int getTrackedCustomers() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.size;
+            }
+        }
+        return total;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("trackedCustomers", getTrackedCustomers());
+        stats.put("idleTimeoutMs", idleTimeoutMillis);
+        stats.put("inOrder", (long) inOrderCounter.count());
+        stats.put("gaps", (long) gapCounter.count());
+        stats.put("missingSequences", (long) missingCounter.count());
+        stats.put("duplicates", (long) duplicateCounter.count());
+        stats.put("reordered", (long) reorderCounter.count());
+        return stats;
+    }
+    
+    public List<Map<String, Object>> getRecentViolations() {
+        synchronized (recentViolations) {
+            return new ArrayList<>(recentViolations);
+        }
+    }
+    
+    /**
+     * 64-bit FNV-1a of the customer and source with a final avalanche; never
+     * returns 0 (the empty marker)
+     */
+    private static long hash(String key, int source) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        for (int shift = 0; shift < 32; shift += 8) {
+            h ^= (source >>> shift) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+    
+    /**
+     * Open-addressing table from key hash to last sequence and when it was
+     * seen; callers synchronize on the segment
+     */
+    private static final class Segment {
+        private static final int INITIAL_CAPACITY = 1024;
+        
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] sequences = new long[INITIAL_CAPACITY];
+        private long[] seenAt = new long[INITIAL_CAPACITY];
+        private int size;
+        
+        private long last(long hash) {
+            int slot = find(keys, hash);
+            return keys[slot] == hash ? sequences[slot] : 0;
+        }
+        
+        private Outcome record(long hash, long sequence, long now, long idleBefore) {
+            int slot = find(keys, hash);
+            if (keys[slot] == 0) {
+                keys[slot] = hash;
+                sequences[slot] = sequence;
+                seenAt[slot] = now;
+                if (++size > keys.length * 7 / 10) {
+                    rehash(idleBefore);
+                }
+                return Outcome.FIRST;
+            }
+            
+            long last = sequences[slot];
+            seenAt[slot] = now;
+            if (sequence == last + 1) {
+                sequences[slot] = sequence;
+                return Outcome.IN_ORDER;
+            }
+            if (sequence > last) {
+                sequences[slot] = sequence;
+                return Outcome.GAP;
+            }
+            return sequence == last ? Outcome.DUPLICATE : Outcome.REORDERED;
+        }
+        
+        private static int find(long[] keys, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != 0 && keys[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+        
+        /**
+         * Drop entries last seen before idleBefore, doubling the table only
+         * if it would still be over half full
+         */
+        private void rehash(long idleBefore) {
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && seenAt[i] >= idleBefore) {
+                    live++;
+                }
+            }
+            long[] oldKeys = keys;
+            long[] oldSequences = sequences;
+            long[] oldSeenAt = seenAt;
+            int capacity = live > oldKeys.length / 2 ? oldKeys.length * 2 : oldKeys.length;
+            keys = new long[capacity];
+            sequences = new long[capacity];
+            seenAt = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldSeenAt[i] >= idleBefore) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    sequences[slot] = oldSequences[i];
+                    seenAt[slot] = oldSeenAt[i];
+                    size++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.eventhub.consumer.state;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-Heap Order Table
+ * 
+ * Fixed-capacity open-addressing hash table of orderId -> status/amount/updatedAt,
+ * stored in direct ByteBuffers so tens of millions of orders add no GC pressure.
+ * 
+ * The table is split into segments, each with its own StampedLock; reads are
+ * optimistic and only fall back to a read lock under contention. Each slot is
+ * 64 bytes with linear probing:
+ * 
+ *   0  long   key hash (0 = empty)
+ *   8  long   updatedAt (epoch millis)
+ *   16 double totalAmount
+ *   24 byte   status code
+ *   25 byte   key length
+ *   26 bytes  key (UTF-8, up to 38 bytes)
+ * 
+ * There is no resize or delete; size the table for the expected order count.
+ */
+final class OffHeapOrderTable {
+    
+    static final int SLOT_BYTES = 64;
+    static final int MAX_KEY_BYTES = 38;
+    
+    // Largest power of two whose segment still fits one ByteBuffer
+    static final int MAX_SLOTS_PER_SEGMENT = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_BYTES);
+    
+    private static final int OFFSET_UPDATED_AT = 8;
+    private static final int OFFSET_AMOUNT = 16;
+    private static final int OFFSET_STATUS = 24;
+    private static final int OFFSET_KEY_LENGTH = 25;
+    private static final int OFFSET_KEY = 26;
+    private static final double MAX_LOAD = 0.9;
+    private static final int NO_SLOT = Integer.MIN_VALUE;
+    
+    private static final String[] STATUSES = {"UNKNOWN", "PENDING", "PROCESSING", "COMPLETED", "FAILED", "CANCELLED"};
+    
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int slotsPerSegment;
+    
+    /**
+     * @param segmentCount - power of two
+     * @param slotsPerSegment - power of two
+     */
+    OffHeapOrderTable(int segmentCount, int slotsPerSegment) {
+        if (Integer.bitCount(segmentCount) != 1 || Integer.bitCount(slotsPerSegment) != 1) {
+            throw new IllegalArgumentException("Segment count and slots per segment must be powers of two");
+        }
+        if ((long) slotsPerSegment * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment too large: " + slotsPerSegment + " slots");
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        this.slotsPerSegment = slotsPerSegment;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slotsPerSegment);
+        }
+    }
+    
+    /**
+     * Insert or update an order
+     * 
+     * @return false if the key is too long or its segment is full
+     */
+    boolean put(String orderId, String status, double totalAmount, long updatedAt) {
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            return false;
+        }
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.find(hash, key);
+            int offset;
+            if (slot == NO_SLOT) {
+                return false;
+            } else if (slot >= 0) {
+                offset = slot * SLOT_BYTES;
+            } else {
+                if (segment.size >= segment.maxSize) {
+                    return false;
+                }
+                offset = (-slot - 1) * SLOT_BYTES;
+                ByteBuffer buf = segment.buffer;
+                buf.put(offset + OFFSET_KEY_LENGTH, (byte) key.length);
+                buf.put(offset + OFFSET_KEY, key);
+                buf.putLong(offset, hash);
+                segment.size++;
+            }
+            ByteBuffer buf = segment.buffer;
+            buf.putLong(offset + OFFSET_UPDATED_AT, updatedAt);
+            buf.putDouble(offset + OFFSET_AMOUNT, totalAmount);
+            buf.put(offset + OFFSET_STATUS, statusCode(status));
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Look up an order
+     * 
+     * @return the order state, or null if unknown
+     */
+    OrderState get(String orderId) {
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            return null;
+        }
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        
+        long stamp = segment.lock.tryOptimisticRead();
+        OrderState state = segment.read(orderId, hash, key);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                state = segment.read(orderId, hash, key);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return state;
+    }
+    
+    long size() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+    
+    long capacity() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.maxSize;
+        }
+        return total;
+    }
+    
+    long memoryBytes() {
+        return (long) segments.length * slotsPerSegment * SLOT_BYTES;
+    }
+    
+    int segmentCount() {
+        return segments.length;
+    }
+    
+    int slotsPerSegment() {
+        return slotsPerSegment;
+    }
+    
+    /**
+     * Copy one segment's raw slots to the target under its read lock
+     */
+    void copySegmentTo(int index, ByteBuffer target) {
+        Segment segment = segments[index];
+        long stamp = segment.lock.readLock();
+        try {
+            target.put(segment.buffer.duplicate().clear());
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Replace one segment's raw slots from the source and recount its entries
+     */
+    void loadSegmentFrom(int index, ByteBuffer source) {
+        Segment segment = segments[index];
+        long stamp = segment.lock.writeLock();
+        try {
+            ByteBuffer buf = segment.buffer.duplicate().clear();
+            buf.put(source);
+            int count = 0;
+            for (int offset = 0; offset < buf.capacity(); offset += SLOT_BYTES) {
+                if (buf.getLong(offset) != 0) {
+                    count++;
+                }
+            }
+            segment.size = count;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+    
+    private static byte statusCode(String status) {
+        for (int i = 1; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 64-bit FNV-1a with a final avalanche; never returns 0 (the empty marker)
+     */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+    
+    private static final class Segment {
+        private final ByteBuffer buffer;
+        private final StampedLock lock = new StampedLock();
+        private final int mask;
+        private final int maxSize;
+        private volatile int size;
+        
+        private Segment(int slots) {
+            this.buffer = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+            this.mask = slots - 1;
+            this.maxSize = (int) (slots * MAX_LOAD);
+        }
+        
+        /**
+         * @return the slot holding the key, (-emptySlot - 1) if absent,
+         *         or NO_SLOT if the segment has no empty slot
+         */
+        private int find(long hash, byte[] key) {
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int offset = slot * SLOT_BYTES;
+                long slotHash = buffer.getLong(offset);
+                if (slotHash == 0) {
+                    return -slot - 1;
+                }
+                if (slotHash == hash && keyEquals(offset, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NO_SLOT;
+        }
+        
+        private OrderState read(String orderId, long hash, byte[] key) {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = slot * SLOT_BYTES;
+            int code = buffer.get(offset + OFFSET_STATUS);
+            return new OrderState(
+                orderId,
+                STATUSES[code >= 0 && code < STATUSES.length ? code : 0],
+                buffer.getDouble(offset + OFFSET_AMOUNT),
+                buffer.getLong(offset + OFFSET_UPDATED_AT));
+        }
+        
+        private boolean keyEquals(int offset, byte[] key) {
+            if (buffer.get(offset + OFFSET_KEY_LENGTH) != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(offset + OFFSET_KEY + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.eventhub.consumer.state;
+
+/**
+ * Materialized view of one order
+ * 
+ * @param updatedAt - epoch millis of the last status change
+ */
+public record OrderState(String orderId, String status, double totalAmount, long updatedAt) {
+}
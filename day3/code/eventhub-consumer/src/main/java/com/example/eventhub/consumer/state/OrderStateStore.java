@@ -0,0 +1,288 @@
+package com.example.eventhub.consumer.state;
+
+import com.azure.spring.messaging.checkpoint.Checkpointer;
+import com.azure.spring.messaging.eventhubs.support.EventHubsHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.azure.spring.messaging.AzureHeaders.CHECKPOINTER;
+import static com.azure.spring.messaging.AzureHeaders.RAW_PARTITION_ID;
+import static net.logstash.logback.argument.StructuredArguments.*;
+
+/**
+ * Order State Store
+ * 
+ * Materialized orderId -> status/amount/updatedAt view kept off-heap
+ * (see {@link OffHeapOrderTable}), with optional periodic snapshots for fast
+ * restart. Snapshots are off unless snapshot-path is set; each one writes
+ * the whole table (orders.state.memory bytes), however little has changed.
+ * 
+ * Snapshots are linked to Event Hub checkpoints: while snapshots are enabled
+ * the consumer does not checkpoint on its own. Instead the store remembers the
+ * latest processed event per partition and, once a snapshot containing that
+ * event is safely on disk, checkpoints it. After a restart the snapshot is
+ * loaded and the hub only redelivers the tail written after it.
+ */
+@Slf4j
+@Component
+public class OrderStateStore {
+    
+    private static final byte[] MAGIC = "OSTATE01".getBytes(StandardCharsets.US_ASCII);
+    private static final int SEGMENTS = 64;
+    private static final double TARGET_LOAD = 0.75;
+    
+    private final OffHeapOrderTable table;
+    private final Path snapshotPath;
+    private final Map<String, PendingCheckpoint> pendingCheckpoints = new ConcurrentHashMap<>();
+    private final Map<String, Long> snapshotSequenceNumbers = new ConcurrentHashMap<>();
+    private final Counter rejectedCounter;
+    private final Timer snapshotTimer;
+    private volatile long lastSnapshotAt;
+    
+    public OrderStateStore(
+        @Value("${eventhub.consumer.state-store.capacity:1000000}") long capacity,
+        @Value("${eventhub.consumer.state-store.snapshot-path:}") String snapshotPath,
+        MeterRegistry meterRegistry) {
+        
+        // Power-of-two segments, capped at the largest segment a ByteBuffer can hold
+        long maxSlots = (long) OffHeapOrderTable.MAX_SLOTS_PER_SEGMENT * SEGMENTS;
+        long slots = Math.min(maxSlots, Math.max(SEGMENTS, (long) (capacity / TARGET_LOAD)));
+        long slotsPerSegment = Long.highestOneBit((slots + SEGMENTS - 1) / SEGMENTS);
+        if (slotsPerSegment * SEGMENTS * TARGET_LOAD < capacity
+            && slotsPerSegment < OffHeapOrderTable.MAX_SLOTS_PER_SEGMENT) {
+            slotsPerSegment <<= 1;
+        }
+        this.table = new OffHeapOrderTable(SEGMENTS, (int) slotsPerSegment);
+        if (slotsPerSegment * SEGMENTS * TARGET_LOAD < capacity) {
+            log.warn("⚠ State store capacity capped at the largest table",
+                kv("requestedCapacity", capacity),
+                kv("capacity", table.capacity()));
+        }
+        this.snapshotPath = snapshotPath.isBlank() ? null : Paths.get(snapshotPath).toAbsolutePath();
+        
+        this.rejectedCounter = Counter.builder("orders.state.rejected")
+            .description("Order state updates dropped (key too long or table full)")
+            .register(meterRegistry);
+        this.snapshotTimer = Timer.builder("orders.state.snapshot.time")
+            .description("Time taken to write an order state snapshot")
+            .register(meterRegistry);
+        Gauge.builder("orders.state.entries", table, OffHeapOrderTable::size)
+            .description("Orders held in the materialized state store")
+            .register(meterRegistry);
+        Gauge.builder("orders.state.memory", table, OffHeapOrderTable::memoryBytes)
+            .description("Off-heap memory reserved by the state store")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        
+        log.info("Order state store ready",
+            kv("capacity", table.capacity()),
+            kv("offHeapBytes", table.memoryBytes()),
+            kv("snapshotPath", this.snapshotPath));
+    }
+    
+    /**
+     * Whether checkpoints are driven by snapshots instead of by message count
+     */
+    public boolean isSnapshotLinked() {
+        return snapshotPath != null;
+    }
+    
+    public void update(String orderId, String status, double totalAmount, long updatedAt) {
+        if (orderId == null || !table.put(orderId, status, totalAmount, updatedAt)) {
+            rejectedCounter.increment();
+            log.warn("⚠ Order state not stored", kv("orderId", orderId));
+        }
+    }
+    
+    public Optional<OrderState> get(String orderId) {
+        return Optional.ofNullable(table.get(orderId));
+    }
+    
+    /**
+     * Remember a processed message so its partition is checkpointed by the next snapshot
+     */
+    public void trackCheckpoint(Message<?> message) {
+        Checkpointer checkpointer = message.getHeaders().get(CHECKPOINTER, Checkpointer.class);
+        Object partitionId = message.getHeaders().get(RAW_PARTITION_ID);
+        Object sequenceNumber = message.getHeaders().get(EventHubsHeaders.SEQUENCE_NUMBER);
+        if (checkpointer == null || partitionId == null) {
+            return;
+        }
+        long sequence = sequenceNumber instanceof Number n ? n.longValue() : -1;
+        pendingCheckpoints.merge(partitionId.toString(), new PendingCheckpoint(sequence, checkpointer),
+            (current, next) -> next.sequenceNumber >= current.sequenceNumber ? next : current);
+    }
+    
+    @PostConstruct
+    public void loadSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 64 * 1024));
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            int segments = header.getInt();
+            int slotsPerSegment = header.getInt();
+            long createdAt = header.getLong();
+            if (!Arrays.equals(magic, MAGIC)
+                || segments != table.segmentCount()
+                || slotsPerSegment != table.slotsPerSegment()) {
+                log.warn("⚠ Ignoring incompatible state snapshot - rebuilding from the hub", kv("file", snapshotPath));
+                return;
+            }
+            
+            Map<String, Long> sequences = new HashMap<>();
+            int partitions = header.getInt();
+            for (int i = 0; i < partitions; i++) {
+                byte[] id = new byte[header.getShort()];
+                header.get(id);
+                sequences.put(new String(id, StandardCharsets.UTF_8), header.getLong());
+            }
+            
+            long segmentBytes = (long) slotsPerSegment * OffHeapOrderTable.SLOT_BYTES;
+            long position = align(header.position());
+            for (int i = 0; i < segments; i++) {
+                table.loadSegmentFrom(i, channel.map(FileChannel.MapMode.READ_ONLY, position, segmentBytes));
+                position += segmentBytes;
+            }
+            
+            snapshotSequenceNumbers.putAll(sequences);
+            lastSnapshotAt = createdAt;
+            log.info("✓ Order state restored from snapshot",
+                kv("orders", table.size()),
+                kv("partitionSequenceNumbers", sequences),
+                kv("loadMs", System.currentTimeMillis() - start));
+        } catch (IOException | RuntimeException e) {
+            log.error("✗ Failed to load state snapshot - rebuilding from the hub", kv("file", snapshotPath), e);
+        }
+    }
+    
+    /**
+     * Write a snapshot, then checkpoint every partition it covers
+     */
+    @Scheduled(fixedDelayString = "${eventhub.consumer.state-store.snapshot-interval:30s}",
+               initialDelayString = "${eventhub.consumer.state-store.snapshot-interval:30s}")
+    public synchronized void snapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        
+        // Capture checkpoints first: their events are already in the table
+        Map<String, PendingCheckpoint> covered = new HashMap<>(pendingCheckpoints);
+        covered.forEach(pendingCheckpoints::remove);
+        
+        Timer.Sample sample = Timer.start();
+        try {
+            writeSnapshot(covered);
+        } catch (IOException | RuntimeException e) {
+            // Put them back unless newer ones arrived meanwhile
+            covered.forEach((partition, pending) -> pendingCheckpoints.putIfAbsent(partition, pending));
+            log.error("✗ State snapshot failed", kv("file", snapshotPath), e);
+            return;
+        }
+        long durationNanos = sample.stop(snapshotTimer);
+        
+        covered.forEach((partition, pending) -> {
+            snapshotSequenceNumbers.put(partition, pending.sequenceNumber);
+            pending.checkpointer.success()
+                .doOnError(error -> log.error("✗ Checkpoint after snapshot failed", error, kv("partition", partition)))
+                .subscribe();
+        });
+        log.debug("✓ State snapshot written",
+            kv("orders", table.size()),
+            kv("checkpointedPartitions", covered.keySet()),
+            kv("durationMs", durationNanos / 1_000_000));
+    }
+    
+    private void writeSnapshot(Map<String, PendingCheckpoint> covered) throws IOException {
+        Map<String, Long> sequences = new HashMap<>(snapshotSequenceNumbers);
+        covered.forEach((partition, pending) -> sequences.put(partition, pending.sequenceNumber));
+        
+        ByteBuffer header = ByteBuffer.allocate(64 * 1024);
+        header.put(MAGIC);
+        header.putInt(table.segmentCount());
+        header.putInt(table.slotsPerSegment());
+        header.putLong(System.currentTimeMillis());
+        header.putInt(sequences.size());
+        sequences.forEach((partition, sequence) -> {
+            byte[] id = partition.getBytes(StandardCharsets.UTF_8);
+            header.putShort((short) id.length);
+            header.put(id);
+            header.putLong(sequence);
+        });
+        long dataStart = align(header.position());
+        header.flip();
+        
+        Files.createDirectories(snapshotPath.getParent());
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        long segmentBytes = (long) table.slotsPerSegment() * OffHeapOrderTable.SLOT_BYTES;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+            long position = dataStart;
+            for (int i = 0; i < table.segmentCount(); i++) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes);
+                table.copySegmentTo(i, region);
+                region.force();
+                position += segmentBytes;
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastSnapshotAt = System.currentTimeMillis();
+    }
+    
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+    
+    /**
+     * Store statistics for the stats API
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("orders", table.size());
+        stats.put("capacity", table.capacity());
+        stats.put("offHeapBytes", table.memoryBytes());
+        stats.put("snapshotPath", snapshotPath == null ? null : snapshotPath.toString());
+        stats.put("lastSnapshotAt", lastSnapshotAt == 0 ? null : lastSnapshotAt);
+        stats.put("snapshotSequenceNumbers", new HashMap<>(snapshotSequenceNumbers));
+        return stats;
+    }
+    
+    private static long align(long position) {
+        return (position + 4095) & ~4095L;
+    }
+    
+    private record PendingCheckpoint(long sequenceNumber, Checkpointer checkpointer) {
+    }
+}
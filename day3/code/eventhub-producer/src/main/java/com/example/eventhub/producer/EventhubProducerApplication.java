@@ -24,6 +24,10 @@ public class EventhubProducerApplication {
         System.out.println("  POST http://localhost:8081/api/orders/send");
         System.out.println("  POST http://localhost:8081/api/orders/send-batch?size=100");
         System.out.println("  GET  http://localhost:8081/api/orders/stats");
+        System.out.println("  POST http://localhost:8081/api/orders/jobs?count=100000&rate=1000");
+        System.out.println("  GET  http://localhost:8081/api/orders/jobs/{id}");
+        System.out.println("  POST http://localhost:8081/api/orders/replay?file=...&mode=SCALED&speed=2");
+        System.out.println("  POST http://localhost:8081/api/orders/benchmark/publish?messages=100000");
         System.out.println("\nHealth & Metrics:");
         System.out.println("  GET  http://localhost:8081/actuator/health");
         System.out.println("  GET  http://localhost:8081/actuator/metrics");
@@ -0,0 +1,31 @@
+package com.example.eventhub.producer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bulk Job Configuration
+ * 
+ * Dedicated executor for bulk send jobs, so long-running sends never
+ * occupy web request threads. Jobs beyond pool-size + queue-capacity are rejected.
+ */
+@Configuration
+public class BulkJobConfig {
+    
+    @Bean
+    public ThreadPoolTaskExecutor bulkSendExecutor(
+        @Value("${eventhub.producer.jobs.pool-size:2}") int poolSize,
+        @Value("${eventhub.producer.jobs.queue-capacity:10}") int queueCapacity) {
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bulk-send-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
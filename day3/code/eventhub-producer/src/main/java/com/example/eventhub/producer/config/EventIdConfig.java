@@ -0,0 +1,33 @@
+package com.example.eventhub.producer.config;
+
+import com.example.eventhub.producer.id.EventIdGenerator;
+import com.example.eventhub.producer.id.RandomEventIdGenerator;
+import com.example.eventhub.producer.id.TimeOrderedEventIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Event ID Configuration
+ * 
+ * Selects the event ID strategy via eventhub.producer.event-id.strategy:
+ * - time-ordered (default): UUIDv7-style, lock-free, sortable
+ * - random: UUIDv4 via UUID.randomUUID()
+ */
+@Slf4j
+@Configuration
+public class EventIdConfig {
+    
+    @Bean
+    public EventIdGenerator eventIdGenerator(
+        @Value("${eventhub.producer.event-id.strategy:time-ordered}") String strategy) {
+        
+        log.info("Using event ID strategy: {}", strategy);
+        return switch (strategy) {
+            case "time-ordered" -> new TimeOrderedEventIdGenerator();
+            case "random" -> new RandomEventIdGenerator();
+            default -> throw new IllegalArgumentException("Unknown event ID strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.eventhub.producer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fan-out Properties
+ * 
+ * eventhub.producer.fanout.* - extra bindings that receive a copy of every
+ * order acknowledged on the orders binding. Each destination is batched and
+ * retried on its own, so a slow or failing destination never holds back the
+ * others or the orders binding.
+ */
+@Data
+@ConfigurationProperties(prefix = "eventhub.producer.fanout")
+public class FanoutProperties {
+    
+    public enum OnFailure { DROP, RETRY }
+    
+    private boolean enabled = false;
+    
+    private List<Destination> destinations = new ArrayList<>();
+    
+    @Data
+    public static class Destination {
+        
+        /** Output binding to send on, e.g. analytics-out-0 (listed in output-bindings) */
+        private String binding;
+        
+        /** Messages waiting for this destination before new ones are dropped */
+        private int capacity = 10000;
+        
+        /** Orders sent per batch; 1 sends each order's own message */
+        private int batchSize = 100;
+        
+        /** How long to wait for a batch to fill before sending it */
+        private Duration linger = Duration.ofMillis(20);
+        
+        /** Payload bytes per batch, kept well under the 1 MB Event Hubs event limit */
+        private int maxBatchBytes = 256 * 1024;
+        
+        /** Events a batch is split into by partition key, each with a stable key */
+        private int partitionGroups = 4;
+        
+        /** Attempts per message before on-failure applies */
+        private int maxAttempts = 3;
+        
+        private Duration retryBackoff = Duration.ofMillis(500);
+        
+        /** DROP the message after max-attempts, or keep RETRYing it (and hold the rest) */
+        private OnFailure onFailure = OnFailure.DROP;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.eventhub.producer.config;
+
+import com.azure.spring.integration.core.handler.DefaultMessageHandler;
+import com.example.eventhub.producer.service.OrderPublisher;
+import com.example.eventhub.producer.service.SendResultTracker;
+import org.springframework.cloud.stream.binder.ProducerMessageHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * Send Result Configuration
+ * 
+ * Wires the async Event Hubs binder's send callback for the orders
+ * destination to the SendResultTracker. The callback reports successes;
+ * failures are taken from the binding's error channel instead, since only
+ * there the failed message (and so its messageId) comes along.
+ */
+@Configuration
+public class SendResultConfig {
+    
+    @Bean
+    public ProducerMessageHandlerCustomizer<DefaultMessageHandler> orderSendCallback(SendResultTracker resultTracker) {
+        return (handler, destination) -> {
+            if (!OrderPublisher.DESTINATION.equals(destination)) {
+                return;
+            }
+            handler.setSendCallback(new ListenableFutureCallback<>() {
+                @Override
+                public void onSuccess(Void result) {
+                    resultTracker.acknowledgedNext();
+                }
+                
+                @Override
+                public void onFailure(Throwable ex) {
+                    // Reported with the message on the error channel
+                }
+            });
+        };
+    }
+}
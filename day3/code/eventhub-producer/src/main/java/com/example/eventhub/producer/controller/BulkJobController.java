@@ -0,0 +1,97 @@
+package com.example.eventhub.producer.controller;
+
+import com.example.eventhub.producer.model.BulkSendJob;
+import com.example.eventhub.producer.model.OrderEvent;
+import com.example.eventhub.producer.service.BulkSendJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bulk Job API Controller
+ * 
+ * Asynchronous bulk sends that outlive a single HTTP request
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/orders/jobs")
+@RequiredArgsConstructor
+public class BulkJobController {
+    
+    private final BulkSendJobService jobService;
+    
+    /**
+     * Start a bulk send job
+     * 
+     * POST /api/orders/jobs?count=1000000&rate=2000
+     * POST /api/orders/jobs?rate=0   with a JSON array of orders as the body
+     * 
+     * rate is orders/sec; 0 sends as fast as the pipeline allows
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitJob(
+        @RequestParam(defaultValue = "0") long count,
+        @RequestParam(required = false) Double rate,
+        @RequestBody(required = false) List<OrderEvent> orders) {
+        
+        try {
+            BulkSendJob job = jobService.submit(count, rate, orders);
+            Map<String, Object> response = job.toSummary();
+            response.put("statusUrl", "/api/orders/jobs/" + job.getJobId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            log.warn("Bulk send job rejected - job queue is full");
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Too many bulk jobs in progress. Try again later.");
+        }
+    }
+    
+    /**
+     * List recent jobs
+     * 
+     * GET /api/orders/jobs
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> listJobs() {
+        return ResponseEntity.ok(jobService.listJobs().stream().map(BulkSendJob::toSummary).toList());
+    }
+    
+    /**
+     * Get job progress
+     * 
+     * GET /api/orders/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return jobService.getJob(id)
+            .map(job -> ResponseEntity.ok(job.toSummary()))
+            .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Job not found: " + id));
+    }
+    
+    /**
+     * Cancel a job
+     * 
+     * DELETE /api/orders/jobs/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String id) {
+        return jobService.cancel(id)
+            .map(job -> ResponseEntity.ok(job.toSummary()))
+            .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Job not found: " + id));
+    }
+    
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "failed");
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
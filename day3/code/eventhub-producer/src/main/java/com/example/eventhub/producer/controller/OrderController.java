@@ -1,7 +1,13 @@
 package com.example.eventhub.producer.controller;
 
 import com.example.eventhub.producer.model.OrderEvent;
+import com.example.eventhub.producer.service.IdempotencyCache;
+import com.example.eventhub.producer.service.OrderFanout;
 import com.example.eventhub.producer.service.OrderProducerService;
+import com.example.eventhub.producer.service.OrderedSendExecutor;
+import com.example.eventhub.producer.service.PartitionSendGuard;
+import com.example.eventhub.producer.service.PublishBenchmark;
+import com.example.eventhub.producer.service.SendResultTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -23,11 +29,23 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderProducerService producerService;
+    private final IdempotencyCache idempotencyCache;
+    private final PartitionSendGuard partitionGuard;
+    private final SendResultTracker resultTracker;
+    private final OrderedSendExecutor sendExecutor;
+    private final PublishBenchmark publishBenchmark;
+    private final OrderFanout fanout;
     
     /**
      * Send a single order
      * 
+     * Idempotent per Idempotency-Key header (or orderId when no header is
+     * given): repeats within the TTL get the original response back and are
+     * not sent to Event Hub again. If an accepted order then fails to send,
+     * its response is forgotten, so a repeat sends it again.
+     * 
      * POST /api/orders/send
+     * Idempotency-Key: 7c9e6679-7425-40de-944b-e07fc1f90ae7   (optional)
      * {
      *   "orderId": "ORDER-001",
      *   "customerId": "CUST-100",
@@ -38,14 +56,30 @@ public class OrderController {
      * }
      */
     @PostMapping("/send")
-    public ResponseEntity<Map<String, Object>> sendOrder(@RequestBody OrderEvent order) {
+    public ResponseEntity<Map<String, Object>> sendOrder(
+        @RequestBody OrderEvent order,
+        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        
         log.info("Received request to send order: {}", order.getOrderId());
         
+        String key = idempotencyKey != null ? idempotencyKey : order.getOrderId();
+        return idempotencyCache.execute(key, forget -> doSendOrder(order, forget));
+    }
+    
+    private ResponseEntity<Map<String, Object>> doSendOrder(OrderEvent order, Runnable onFailure) {
         try {
-            producerService.sendOrder(order);
+            if (!producerService.sendOrder(order, order.getCustomerId(), onFailure)) {
+                // Too many orders are awaiting acknowledgement
+                Map<String, Object> error = new HashMap<>();
+                error.put("status", "failed");
+                error.put("orderId", order.getOrderId());
+                error.put("error", "Order was not accepted for sending");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+            }
             
+            // Accepted for sending; the Event Hub acknowledgement is tracked asynchronously
             Map<String, Object> response = new HashMap<>();
-            response.put("status", "sent");
+            response.put("status", "accepted");
             response.put("orderId", order.getOrderId());
             response.put("eventId", order.getEventId());
             response.put("customerId", order.getCustomerId());
@@ -74,7 +108,7 @@ public class OrderController {
         if (size > 10000) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "failed");
-            error.put("error", "Batch size too large. Maximum is 10000");
+            error.put("error", "Batch size too large. Maximum is 10000 - use POST /api/orders/jobs for larger runs");
             return ResponseEntity.badRequest().body(error);
         }
         
@@ -96,6 +130,39 @@ public class OrderController {
         }
     }
     
+    /**
+     * Compare the StreamBridge and pre-bound publish paths
+     * 
+     * Without send, only message construction and conversion are measured.
+     * With send=true, every message is really sent, through StreamBridge and
+     * the bound channel, to the dedicated orders-benchmark hub (never orders).
+     * 
+     * POST /api/orders/benchmark/publish?messages=100000&send=false
+     */
+    @PostMapping("/benchmark/publish")
+    public ResponseEntity<Map<String, Object>> benchmarkPublish(
+        @RequestParam(defaultValue = "100000") int messages,
+        @RequestParam(defaultValue = "false") boolean send) {
+        
+        int max = send ? 10000 : 5000000;
+        if (messages <= 0 || messages > max) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "failed");
+            error.put("error", "messages must be between 1 and " + max + (send ? " when sending" : ""));
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        try {
+            return ResponseEntity.ok(publishBenchmark.run(messages, send));
+        } catch (Exception e) {
+            log.error("Publish benchmark failed", e);
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "failed");
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+    
     /**
      * Get producer statistics
      * 
@@ -105,6 +172,11 @@ public class OrderController {
     public ResponseEntity<Map<String, Object>> getStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalMessagesSent", producerService.getMessageCount());
+        stats.put("idempotency", idempotencyCache.getStats());
+        stats.put("partitionHealth", partitionGuard.getStats());
+        stats.put("acknowledgements", resultTracker.getStats());
+        stats.put("sendLanes", sendExecutor.getStats());
+        stats.put("fanout", fanout.getStats());
         stats.put("applicationName", "eventhub-producer");
         stats.put("status", "running");
         
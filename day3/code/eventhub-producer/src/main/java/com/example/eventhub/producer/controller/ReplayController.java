@@ -0,0 +1,125 @@
+package com.example.eventhub.producer.controller;
+
+import com.example.eventhub.producer.replay.ReplayRun;
+import com.example.eventhub.producer.replay.TrafficRecorder;
+import com.example.eventhub.producer.replay.TrafficReplayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Replay API Controller
+ * 
+ * Capture management and replay of recorded order traffic
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/orders/replay")
+@RequiredArgsConstructor
+public class ReplayController {
+    
+    private final TrafficReplayService replayService;
+    private final TrafficRecorder trafficRecorder;
+    
+    /**
+     * List captured traffic logs
+     * 
+     * GET /api/orders/replay/logs
+     */
+    @GetMapping("/logs")
+    public ResponseEntity<List<Map<String, Object>>> listLogs() throws IOException {
+        return ResponseEntity.ok(replayService.listLogs());
+    }
+    
+    /**
+     * Close the current traffic log so it can be replayed
+     * 
+     * POST /api/orders/replay/logs/rotate
+     */
+    @PostMapping("/logs/rotate")
+    public ResponseEntity<Map<String, Object>> rotateLog() throws IOException {
+        Path closed = trafficRecorder.rotate();
+        Map<String, Object> response = new HashMap<>();
+        response.put("captureEnabled", trafficRecorder.isEnabled());
+        response.put("closedFile", closed == null ? null : closed.getFileName().toString());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Start a replay
+     * 
+     * POST /api/orders/replay?file=orders-20250101-120000.olog&mode=ORIGINAL
+     * POST /api/orders/replay?file=...&mode=SCALED&speed=5
+     * POST /api/orders/replay?file=...&mode=FIXED_RATE&rate=2000
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startReplay(
+        @RequestParam String file,
+        @RequestParam(defaultValue = "ORIGINAL") ReplayRun.Mode mode,
+        @RequestParam(defaultValue = "1.0") double speed,
+        @RequestParam(defaultValue = "0") double rate,
+        @RequestParam(defaultValue = "true") boolean regenerateEventIds) {
+        
+        try {
+            ReplayRun run = replayService.start(file, mode, speed, rate, regenerateEventIds);
+            Map<String, Object> response = run.toSummary();
+            response.put("statusUrl", "/api/orders/replay/" + run.getRunId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            log.warn("Replay rejected - job queue is full");
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Too many bulk jobs in progress. Try again later.");
+        }
+    }
+    
+    /**
+     * List replay runs
+     * 
+     * GET /api/orders/replay
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> listRuns() {
+        return ResponseEntity.ok(replayService.listRuns().stream().map(ReplayRun::toSummary).toList());
+    }
+    
+    /**
+     * Get replay progress: achieved rate and lag behind schedule
+     * 
+     * GET /api/orders/replay/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getRun(@PathVariable String id) {
+        return replayService.getRun(id)
+            .map(run -> ResponseEntity.ok(run.toSummary()))
+            .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Replay not found: " + id));
+    }
+    
+    /**
+     * Cancel a replay
+     * 
+     * DELETE /api/orders/replay/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> cancelRun(@PathVariable String id) {
+        return replayService.cancel(id)
+            .map(run -> ResponseEntity.ok(run.toSummary()))
+            .orElseGet(() -> error(HttpStatus.NOT_FOUND, "Replay not found: " + id));
+    }
+    
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "failed");
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.eventhub.producer.id;
+
+/**
+ * Event ID Generator
+ * 
+ * Pluggable source of event IDs for {@link com.example.eventhub.producer.model.OrderEvent}.
+ * Implementations must be thread-safe; they are shared by all sending threads.
+ */
+@FunctionalInterface
+public interface EventIdGenerator {
+    
+    /**
+     * Generate a new, unique event ID
+     */
+    String nextId();
+}
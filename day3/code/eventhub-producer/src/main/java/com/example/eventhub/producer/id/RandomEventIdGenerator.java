@@ -0,0 +1,17 @@
+package com.example.eventhub.producer.id;
+
+import java.util.UUID;
+
+/**
+ * Random Event ID Generator
+ * 
+ * Classic UUIDv4 IDs from {@link UUID#randomUUID()}. Kept for compatibility;
+ * every call goes through the shared SecureRandom, so it contends under load.
+ */
+public class RandomEventIdGenerator implements EventIdGenerator {
+    
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
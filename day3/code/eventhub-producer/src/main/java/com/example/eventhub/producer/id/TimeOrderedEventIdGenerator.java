@@ -0,0 +1,53 @@
+package com.example.eventhub.producer.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-Ordered Event ID Generator
+ * 
+ * Produces UUIDv7-style 128-bit IDs:
+ * - 48 bits: Unix epoch milliseconds (IDs sort by creation time)
+ * - 4 bits:  version (7)
+ * - 12 bits: per-thread sequence, monotonic within a millisecond
+ * - 2 bits:  variant (IETF)
+ * - 62 bits: random from ThreadLocalRandom
+ * 
+ * All state is per-thread, so there is no global lock and no SecureRandom
+ * on the hot path. The consumer reads the embedded time back to age out
+ * deduplication entries (EventDeduplicator in eventhub-consumer).
+ */
+public class TimeOrderedEventIdGenerator implements EventIdGenerator {
+    
+    private static final int MAX_SEQUENCE = 0xFFF;
+    
+    // Seed the sequence in the lower half of its range to leave room for bursts
+    private static final int SEQUENCE_SEED_BOUND = 0x800;
+    
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+    
+    @Override
+    public String nextId() {
+        State state = STATE.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            state.sequence = random.nextInt(SEQUENCE_SEED_BOUND);
+        } else if (++state.sequence > MAX_SEQUENCE) {
+            // Sequence exhausted within this millisecond - borrow the next one
+            state.lastMillis++;
+            state.sequence = 0;
+        }
+        
+        long msb = (state.lastMillis << 16) | 0x7000L | state.sequence;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+    
+    private static final class State {
+        private long lastMillis;
+        private int sequence;
+    }
+}
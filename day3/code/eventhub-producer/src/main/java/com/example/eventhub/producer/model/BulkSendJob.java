@@ -0,0 +1,137 @@
+package com.example.eventhub.producer.model;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk Send Job
+ * 
+ * Tracks a bulk send running in the background: either a number of generated
+ * sample orders or an uploaded list of orders, sent at a target rate.
+ * 
+ * Sent counts orders Event Hub acknowledged and failed those rejected or
+ * reported failed; orders handed to the binder but not yet acknowledged are
+ * pending. An order credited with an acknowledgement that then fails after
+ * all moves from sent to failed.
+ */
+@Getter
+public class BulkSendJob {
+    
+    public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+    
+    private final String jobId;
+    private final long total;
+    private final double ratePerSecond;
+    private final List<OrderEvent> payload;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Future<?> future;
+    private volatile boolean cancelRequested;
+    
+    public BulkSendJob(String jobId, long total, double ratePerSecond, List<OrderEvent> payload) {
+        this.jobId = jobId;
+        this.total = total;
+        this.ratePerSecond = ratePerSecond;
+        this.payload = payload;
+    }
+    
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+    
+    public void markFinished(Status finalStatus, String errorMessage) {
+        finishedAt = Instant.now();
+        error = errorMessage;
+        status = finalStatus;
+    }
+    
+    public void attach(Future<?> future) {
+        this.future = future;
+    }
+    
+    /**
+     * Ask the job to stop; a queued job is cancelled before it starts,
+     * a running job stops before its next send
+     */
+    public void requestCancel() {
+        cancelRequested = true;
+        Future<?> f = future;
+        if (status == Status.QUEUED && f != null && f.cancel(false)) {
+            markFinished(Status.CANCELLED, null);
+        }
+    }
+    
+    /**
+     * An order was handed to the producer; its outcome is counted later
+     */
+    public void orderSubmitted() {
+        submitted.incrementAndGet();
+    }
+    
+    public void orderAcknowledged() {
+        sent.incrementAndGet();
+    }
+    
+    /**
+     * @param withdrawn - the order had been counted as sent
+     */
+    public void orderFailed(boolean withdrawn) {
+        if (withdrawn) {
+            sent.decrementAndGet();
+        }
+        failed.incrementAndGet();
+    }
+    
+    /**
+     * Submitted orders whose outcome has not arrived yet
+     */
+    public long getPending() {
+        return Math.max(0, submitted.get() - sent.get() - failed.get());
+    }
+    
+    public boolean isDone() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+    
+    /**
+     * Snapshot of progress for the jobs API
+     */
+    public Map<String, Object> toSummary() {
+        long processed = sent.get() + failed.get();
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double elapsedSec = startedAt == null ? 0 : Duration.between(startedAt, end).toMillis() / 1000.0;
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("jobId", jobId);
+        summary.put("status", status);
+        summary.put("total", total);
+        summary.put("sent", sent.get());
+        summary.put("failed", failed.get());
+        summary.put("pending", getPending());
+        summary.put("progressPercent", total == 0 ? 100.0 : Math.round(processed * 10000.0 / total) / 100.0);
+        summary.put("targetRatePerSecond", ratePerSecond);
+        summary.put("throughputPerSecond", elapsedSec == 0 ? 0.0 : Math.round(processed * 100.0 / elapsedSec) / 100.0);
+        summary.put("createdAt", createdAt.toString());
+        summary.put("startedAt", startedAt == null ? null : startedAt.toString());
+        summary.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        if (error != null) {
+            summary.put("error", error);
+        }
+        return summary;
+    }
+}
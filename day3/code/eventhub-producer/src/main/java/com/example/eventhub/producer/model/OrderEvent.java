@@ -1,11 +1,12 @@
 package com.example.eventhub.producer.model;
 
+import com.example.eventhub.producer.id.EventIdGenerator;
+import com.example.eventhub.producer.id.TimeOrderedEventIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * Order Event Domain Model
@@ -17,6 +18,8 @@ import java.util.UUID;
 @AllArgsConstructor
 public class OrderEvent {
     
+    private static final EventIdGenerator DEFAULT_ID_GENERATOR = new TimeOrderedEventIdGenerator();
+    
     private String eventId;
     private String orderId;
     private String customerId;
@@ -30,8 +33,15 @@ public class OrderEvent {
      * Create a sample order event for testing
      */
     public static OrderEvent createSample(int index) {
+        return createSample(index, DEFAULT_ID_GENERATOR);
+    }
+    
+    /**
+     * Create a sample order event using the given event ID generator
+     */
+    public static OrderEvent createSample(int index, EventIdGenerator idGenerator) {
         return new OrderEvent(
-            UUID.randomUUID().toString(),
+            idGenerator.nextId(),
             "ORDER-" + String.format("%06d", index),
             "CUST-" + (index % 100),  // 100 different customers
             "PROD-" + (index % 50),    // 50 different products
@@ -0,0 +1,10 @@
+package com.example.eventhub.producer.replay;
+
+import com.example.eventhub.producer.model.OrderEvent;
+
+/**
+ * One captured send: the order, the partition key it was sent with,
+ * and when it was originally sent (epoch millis)
+ */
+public record CapturedEvent(long capturedAtMillis, String partitionKey, OrderEvent order) {
+}
@@ -0,0 +1,117 @@
+package com.example.eventhub.producer.replay;
+
+import com.example.eventhub.producer.model.BulkSendJob.Status;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replay Run
+ * 
+ * Progress of one traffic log replay: how much was sent, the rate achieved
+ * and how far sends fell behind the replay schedule.
+ */
+@Getter
+public class ReplayRun {
+    
+    public enum Mode {
+        /** Original inter-arrival timing */
+        ORIGINAL,
+        /** Original timing divided by a speed factor (2.0 = twice as fast) */
+        SCALED,
+        /** Ignore recorded timing and send at a fixed rate (0 = unthrottled) */
+        FIXED_RATE
+    }
+    
+    private final String runId;
+    private final String file;
+    private final Mode mode;
+    private final double speed;
+    private final double rate;
+    private final boolean regenerateEventIds;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+    
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long currentLagNanos;
+    private volatile long recordedSpanMillis;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    
+    public ReplayRun(String runId, String file, Mode mode, double speed, double rate, boolean regenerateEventIds) {
+        this.runId = runId;
+        this.file = file;
+        this.mode = mode;
+        this.speed = speed;
+        this.rate = rate;
+        this.regenerateEventIds = regenerateEventIds;
+    }
+    
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+    
+    void markFinished(Status finalStatus, String errorMessage) {
+        finishedAt = Instant.now();
+        error = errorMessage;
+        status = finalStatus;
+    }
+    
+    void recordLag(long lagNanos) {
+        currentLagNanos = lagNanos;
+        totalLagNanos.addAndGet(lagNanos);
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+    
+    void setRecordedSpanMillis(long recordedSpanMillis) {
+        this.recordedSpanMillis = recordedSpanMillis;
+    }
+    
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+    
+    public boolean isDone() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+    
+    /**
+     * Snapshot of progress for the replay API
+     */
+    public Map<String, Object> toSummary() {
+        long processed = sent.get() + failed.get();
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double elapsedSec = startedAt == null ? 0 : Duration.between(startedAt, end).toMillis() / 1000.0;
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("runId", runId);
+        summary.put("file", file);
+        summary.put("mode", mode);
+        summary.put("speed", speed);
+        summary.put("rate", rate);
+        summary.put("status", status);
+        summary.put("sent", sent.get());
+        summary.put("failed", failed.get());
+        summary.put("achievedRatePerSecond", elapsedSec == 0 ? 0.0 : Math.round(processed * 100.0 / elapsedSec) / 100.0);
+        summary.put("recordedSpanMs", recordedSpanMillis);
+        summary.put("elapsedMs", Math.round(elapsedSec * 1000));
+        summary.put("currentLagMs", currentLagNanos / 1_000_000.0);
+        summary.put("maxLagMs", maxLagNanos.get() / 1_000_000.0);
+        summary.put("avgLagMs", processed == 0 ? 0.0 : totalLagNanos.get() / processed / 1_000_000.0);
+        summary.put("startedAt", startedAt == null ? null : startedAt.toString());
+        summary.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        if (error != null) {
+            summary.put("error", error);
+        }
+        return summary;
+    }
+}
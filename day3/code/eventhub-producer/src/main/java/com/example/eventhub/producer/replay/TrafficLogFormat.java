@@ -0,0 +1,96 @@
+package com.example.eventhub.producer.replay;
+
+import com.example.eventhub.producer.model.OrderEvent;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Traffic Log Format
+ * 
+ * Compact binary layout for captured order traffic:
+ * 
+ *   file   := MAGIC record*
+ *   record := int length, long capturedAtMillis, str partitionKey,
+ *             str eventId, str orderId, str customerId, str productId,
+ *             int quantity, double totalAmount, str status, long timestampMillis
+ *   str    := short byteLength (-1 = null), UTF-8 bytes
+ * 
+ * length covers everything after the length field. Null quantity is
+ * Integer.MIN_VALUE, null amount is NaN and null timestamp is Long.MIN_VALUE.
+ * Timestamps are stored as UTC epoch millis.
+ */
+final class TrafficLogFormat {
+    
+    static final byte[] MAGIC = "ORDLOG01".getBytes(StandardCharsets.US_ASCII);
+    
+    private TrafficLogFormat() {
+    }
+    
+    static void writeRecord(DataOutputStream out, long capturedAtMillis, String partitionKey, OrderEvent order)
+        throws IOException {
+        
+        out.writeLong(capturedAtMillis);
+        writeString(out, partitionKey);
+        writeString(out, order.getEventId());
+        writeString(out, order.getOrderId());
+        writeString(out, order.getCustomerId());
+        writeString(out, order.getProductId());
+        out.writeInt(order.getQuantity() == null ? Integer.MIN_VALUE : order.getQuantity());
+        out.writeDouble(order.getTotalAmount() == null ? Double.NaN : order.getTotalAmount());
+        writeString(out, order.getStatus());
+        out.writeLong(order.getTimestamp() == null
+            ? Long.MIN_VALUE
+            : order.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+    
+    static CapturedEvent readRecord(ByteBuffer in) {
+        long capturedAtMillis = in.getLong();
+        String partitionKey = readString(in);
+        
+        OrderEvent order = new OrderEvent();
+        order.setEventId(readString(in));
+        order.setOrderId(readString(in));
+        order.setCustomerId(readString(in));
+        order.setProductId(readString(in));
+        int quantity = in.getInt();
+        order.setQuantity(quantity == Integer.MIN_VALUE ? null : quantity);
+        double amount = in.getDouble();
+        order.setTotalAmount(Double.isNaN(amount) ? null : amount);
+        order.setStatus(readString(in));
+        long timestamp = in.getLong();
+        order.setTimestamp(timestamp == Long.MIN_VALUE
+            ? null
+            : LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC));
+        
+        return new CapturedEvent(capturedAtMillis, partitionKey, order);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("Field too long for traffic log: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.eventhub.producer.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Traffic Log Reader
+ * 
+ * Streams records from a traffic log through memory-mapped windows.
+ * Windows are mapped sequentially and remapped at the next record boundary,
+ * so logs larger than 2 GB are fine and the page cache does the buffering.
+ * A record length that is negative or runs past the end of the file is
+ * reported as corruption rather than read or silently dropped; the log being
+ * captured is not replayed until it is rotated, so complete logs are expected.
+ */
+public class TrafficLogReader implements Closeable {
+    
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    
+    public TrafficLogReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        
+        byte[] magic = new byte[TrafficLogFormat.MAGIC.length];
+        if (fileSize < magic.length) {
+            close();
+            throw new IOException("Not a traffic log: " + file);
+        }
+        map(0);
+        window.get(magic);
+        if (!Arrays.equals(magic, TrafficLogFormat.MAGIC)) {
+            close();
+            throw new IOException("Not a traffic log: " + file);
+        }
+    }
+    
+    /**
+     * Read the next record
+     * 
+     * @return the record, or null at the end of the log
+     */
+    public CapturedEvent next() throws IOException {
+        long offset = windowStart + window.position();
+        if (offset == fileSize) {
+            return null;
+        }
+        if (!ensureAvailable(Integer.BYTES)) {
+            throw new IOException("Corrupt traffic log: " + (fileSize - offset) + " stray bytes at offset " + offset);
+        }
+        int length = window.getInt(window.position());
+        if (length < 0 || length > WINDOW_SIZE - Integer.BYTES
+                || !ensureAvailable(Integer.BYTES + (long) length)) {
+            throw new IOException("Corrupt traffic log record at offset " + offset + ": length " + length
+                + " with " + (fileSize - offset - Integer.BYTES) + " bytes left");
+        }
+        window.position(window.position() + Integer.BYTES);
+        
+        int recordEnd = window.position() + length;
+        try {
+            CapturedEvent event = TrafficLogFormat.readRecord(window);
+            window.position(recordEnd);
+            return event;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt traffic log record at offset " + (windowStart + recordEnd - length), e);
+        }
+    }
+    
+    /**
+     * Make sure the window holds at least the given number of bytes from the
+     * current position, remapping at the current position if needed
+     * 
+     * @return false if the file does not have that many bytes left
+     */
+    private boolean ensureAvailable(long bytes) throws IOException {
+        long position = windowStart + window.position();
+        if (position + bytes > fileSize) {
+            return false;
+        }
+        if (window.remaining() < bytes) {
+            map(position);
+        }
+        return true;
+    }
+    
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
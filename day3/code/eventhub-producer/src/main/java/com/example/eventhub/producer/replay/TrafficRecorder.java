@@ -0,0 +1,162 @@
+package com.example.eventhub.producer.replay;
+
+import com.example.eventhub.producer.model.OrderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static net.logstash.logback.argument.StructuredArguments.*;
+
+/**
+ * Traffic Recorder
+ * 
+ * Appends every successfully sent order to a compact traffic log
+ * (see {@link TrafficLogFormat}) so it can be replayed later for
+ * capacity testing. Disabled by default; enable with
+ * eventhub.producer.capture.enabled=true.
+ */
+@Slf4j
+@Component
+public class TrafficRecorder {
+    
+    static final String FILE_SUFFIX = ".olog";
+    
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FILES_PER_SECOND = 1000;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final Counter capturedCounter;
+    private final Counter errorCounter;
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    
+    private DataOutputStream out;
+    private Path currentFile;
+    private long lastFlushMillis;
+    
+    public TrafficRecorder(@Value("${eventhub.producer.capture.enabled:false}") boolean enabled,
+                           @Value("${eventhub.producer.capture.directory:capture}") String directory,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.capturedCounter = Counter.builder("orders.captured")
+            .description("Number of sent orders written to the traffic log")
+            .register(meterRegistry);
+        this.errorCounter = Counter.builder("orders.capture.errors")
+            .description("Number of orders that could not be written to the traffic log")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Capture a sent order; no-op when capture is disabled
+     */
+    public void record(OrderEvent order, String partitionKey) {
+        if (!enabled) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            try {
+                if (out == null) {
+                    open();
+                }
+                scratch.reset();
+                TrafficLogFormat.writeRecord(scratchOut, now, partitionKey, order);
+                out.writeInt(scratch.size());
+                scratch.writeTo(out);
+                
+                if (now - lastFlushMillis >= FLUSH_INTERVAL_MS) {
+                    out.flush();
+                    lastFlushMillis = now;
+                }
+                capturedCounter.increment();
+            } catch (IOException e) {
+                errorCounter.increment();
+                log.warn("⚠ Failed to capture order", kv("orderId", order.getOrderId()), e);
+            }
+        }
+    }
+    
+    /**
+     * Close the current traffic log and start a new one on the next send
+     * 
+     * @return the closed log file, or null if nothing was being captured
+     */
+    public synchronized Path rotate() throws IOException {
+        Path closed = currentFile;
+        close();
+        return closed;
+    }
+    
+    public synchronized Path getCurrentFile() {
+        return currentFile;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        OutputStream file = createLogFile();
+        out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+        out.write(TrafficLogFormat.MAGIC);
+        log.info("🎥 Capturing order traffic", kv("file", currentFile));
+    }
+    
+    /**
+     * Create a new log file, never reusing an existing one
+     * 
+     * Names are orders-yyyyMMdd-HHmmss-NNN.olog; NNN counts up when logs are
+     * rotated more than once a second, and keeps names sorting by age.
+     */
+    private OutputStream createLogFile() throws IOException {
+        String stamp = LocalDateTime.now().format(FILE_TIMESTAMP);
+        for (int n = 0; n < MAX_FILES_PER_SECOND; n++) {
+            Path candidate = directory.resolve(String.format("orders-%s-%03d%s", stamp, n, FILE_SUFFIX));
+            try {
+                OutputStream file = Files.newOutputStream(candidate,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                currentFile = candidate;
+                return file;
+            } catch (FileAlreadyExistsException e) {
+                // Taken by an earlier rotation this second; try the next one
+            }
+        }
+        throw new IOException("Too many traffic logs created at " + stamp + " in " + directory);
+    }
+    
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            log.info("🎥 Traffic log closed", kv("file", currentFile));
+            out = null;
+            currentFile = null;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.eventhub.producer.replay;
+
+import com.example.eventhub.producer.id.EventIdGenerator;
+import com.example.eventhub.producer.model.BulkSendJob.Status;
+import com.example.eventhub.producer.model.OrderEvent;
+import com.example.eventhub.producer.service.OrderProducerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static net.logstash.logback.argument.StructuredArguments.*;
+
+/**
+ * Traffic Replay Service
+ * 
+ * Replays captured order traffic against Event Hub for capacity testing:
+ * - ORIGINAL keeps the recorded inter-arrival timing
+ * - SCALED compresses or stretches it by a speed factor
+ * - FIXED_RATE ignores timing and sends at a fixed rate
+ * 
+ * Recorded partition keys are preserved. Each send is stamped against the
+ * schedule; how late it went out is reported as lag, so a growing lag shows
+ * the pipeline cannot keep up with the requested rate.
+ * 
+ * Replayed orders are not captured again, and the log still being captured
+ * cannot be replayed until it is rotated.
+ */
+@Slf4j
+@Service
+public class TrafficReplayService {
+    
+    private static final int RETAINED_RUNS = 50;
+    
+    // Park in slices so cancellation is noticed during long recorded gaps
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final OrderProducerService producerService;
+    private final EventIdGenerator eventIdGenerator;
+    private final TrafficRecorder trafficRecorder;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer lagTimer;
+    private final Map<String, ReplayRun> runs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> runOrder = new ConcurrentLinkedQueue<>();
+    
+    public TrafficReplayService(OrderProducerService producerService,
+                                EventIdGenerator eventIdGenerator,
+                                TrafficRecorder trafficRecorder,
+                                ThreadPoolTaskExecutor bulkSendExecutor,
+                                MeterRegistry meterRegistry) {
+        this.producerService = producerService;
+        this.eventIdGenerator = eventIdGenerator;
+        this.trafficRecorder = trafficRecorder;
+        this.executor = bulkSendExecutor;
+        this.lagTimer = Timer.builder("orders.replay.lag")
+            .description("How far replayed sends fell behind the replay schedule")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Start replaying a traffic log from the capture directory
+     * 
+     * @throws IllegalArgumentException for unknown files, the log being captured or invalid parameters
+     * @throws java.util.concurrent.RejectedExecutionException if the job queue is full
+     */
+    public ReplayRun start(String fileName, ReplayRun.Mode mode, double speed, double rate, boolean regenerateEventIds) {
+        Path file = resolve(fileName);
+        if (file.equals(trafficRecorder.getCurrentFile())) {
+            throw new IllegalArgumentException("Traffic log is still being captured: " + fileName
+                + "; rotate it first (POST /api/orders/replay/logs/rotate)");
+        }
+        if (mode == ReplayRun.Mode.SCALED && speed <= 0) {
+            throw new IllegalArgumentException("Speed must be > 0");
+        }
+        if (mode == ReplayRun.Mode.FIXED_RATE && rate < 0) {
+            throw new IllegalArgumentException("Rate must be >= 0");
+        }
+        
+        ReplayRun run = new ReplayRun(eventIdGenerator.nextId(), file.getFileName().toString(),
+            mode, mode == ReplayRun.Mode.ORIGINAL ? 1.0 : speed, rate, regenerateEventIds);
+        runs.put(run.getRunId(), run);
+        runOrder.add(run.getRunId());
+        try {
+            executor.submit(() -> replay(run, file));
+        } catch (RuntimeException e) {
+            runs.remove(run.getRunId());
+            runOrder.remove(run.getRunId());
+            throw e;
+        }
+        pruneFinishedRuns();
+        
+        log.info("▶ Replay started", entries(run.toSummary()));
+        return run;
+    }
+    
+    public Optional<ReplayRun> getRun(String runId) {
+        return Optional.ofNullable(runs.get(runId));
+    }
+    
+    public List<ReplayRun> listRuns() {
+        return new ArrayList<>(runs.values());
+    }
+    
+    public Optional<ReplayRun> cancel(String runId) {
+        ReplayRun run = runs.get(runId);
+        if (run != null) {
+            run.requestCancel();
+        }
+        return Optional.ofNullable(run);
+    }
+    
+    /**
+     * List traffic logs available for replay, newest first
+     */
+    public List<Map<String, Object>> listLogs() throws IOException {
+        Path directory = trafficRecorder.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(p -> p.getFileName().toString().endsWith(TrafficRecorder.FILE_SUFFIX))
+                .sorted(Comparator.comparing(Path::getFileName).reversed())
+                .map(p -> Map.<String, Object>of(
+                    "file", p.getFileName().toString(),
+                    "sizeBytes", p.toFile().length(),
+                    "capturing", p.equals(trafficRecorder.getCurrentFile())))
+                .toList();
+        }
+    }
+    
+    private void replay(ReplayRun run, Path file) {
+        if (run.isCancelRequested()) {
+            run.markFinished(Status.CANCELLED, null);
+            return;
+        }
+        run.markRunning();
+        
+        long startNanos = System.nanoTime();
+        long firstCapturedAt = -1;
+        long index = 0;
+        
+        try (TrafficLogReader reader = new TrafficLogReader(file)) {
+            CapturedEvent event;
+            while ((event = reader.next()) != null) {
+                if (firstCapturedAt < 0) {
+                    firstCapturedAt = event.capturedAtMillis();
+                }
+                run.setRecordedSpanMillis(event.capturedAtMillis() - firstCapturedAt);
+                
+                long dueNanos = startNanos + scheduleOffsetNanos(run, event.capturedAtMillis() - firstCapturedAt, index++);
+                if (!awaitDue(run, dueNanos)) {
+                    run.markFinished(Status.CANCELLED, null);
+                    log.info("⏹ Replay cancelled", entries(run.toSummary()));
+                    return;
+                }
+                
+                long lagNanos = Math.max(0, System.nanoTime() - dueNanos);
+                run.recordLag(lagNanos);
+                lagTimer.record(lagNanos, TimeUnit.NANOSECONDS);
+                
+                OrderEvent order = event.order();
+                if (run.isRegenerateEventIds()) {
+                    order.setEventId(eventIdGenerator.nextId());
+                }
+                try {
+                    if (producerService.replayOrder(order, event.partitionKey())) {
+                        run.getSent().incrementAndGet();
+                    } else {
+                        run.getFailed().incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    run.getFailed().incrementAndGet();
+                }
+            }
+            
+            run.markFinished(Status.COMPLETED, null);
+            log.info("✓ Replay complete", entries(run.toSummary()));
+        } catch (IOException | RuntimeException e) {
+            run.markFinished(Status.FAILED, e.getMessage());
+            log.error("✗ Replay failed", kv("runId", run.getRunId()), e);
+        }
+    }
+    
+    private static long scheduleOffsetNanos(ReplayRun run, long recordedOffsetMillis, long index) {
+        return switch (run.getMode()) {
+            case ORIGINAL, SCALED -> (long) (TimeUnit.MILLISECONDS.toNanos(recordedOffsetMillis) / run.getSpeed());
+            case FIXED_RATE -> run.getRate() > 0 ? (long) (index * 1_000_000_000L / run.getRate()) : 0;
+        };
+    }
+    
+    /**
+     * Wait until the send is due
+     * 
+     * @return false if the run was cancelled while waiting
+     */
+    private static boolean awaitDue(ReplayRun run, long dueNanos) {
+        long wait;
+        while ((wait = dueNanos - System.nanoTime()) > 0) {
+            if (run.isCancelRequested()) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(wait, MAX_PARK_NANOS));
+        }
+        return !run.isCancelRequested();
+    }
+    
+    /**
+     * Resolve a log name inside the capture directory, rejecting paths that escape it
+     */
+    private Path resolve(String fileName) {
+        Path directory = trafficRecorder.getDirectory();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Traffic log not found: " + fileName);
+        }
+        return file;
+    }
+    
+    private void pruneFinishedRuns() {
+        for (String runId : runOrder) {
+            if (runs.size() <= RETAINED_RUNS) {
+                return;
+            }
+            ReplayRun run = runs.get(runId);
+            if (run == null || run.isDone()) {
+                runs.remove(runId);
+                runOrder.remove(runId);
+            }
+        }
+    }
+}
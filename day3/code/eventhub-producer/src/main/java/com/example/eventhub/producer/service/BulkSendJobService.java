@@ -0,0 +1,269 @@
+package com.example.eventhub.producer.service;
+
+import com.example.eventhub.producer.id.EventIdGenerator;
+import com.example.eventhub.producer.model.BulkSendJob;
+import com.example.eventhub.producer.model.OrderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static net.logstash.logback.argument.StructuredArguments.*;
+
+/**
+ * Bulk Send Job Service
+ * 
+ * Runs bulk sends in the background on the bulk-send executor:
+ * - Returns a job ID immediately
+ * - Paces sends to a target rate (0 = as fast as the pipeline allows)
+ * - Tracks progress, throughput and failures per job from each order's
+ *   acknowledgement or failure, and completes once every outcome is in
+ * - Supports cancellation, and stops as CANCELLED when its thread is
+ *   interrupted (executor shutdown)
+ */
+@Slf4j
+@Service
+public class BulkSendJobService {
+    
+    // Never burst more than this much accumulated schedule debt
+    private static final long MAX_CATCH_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SETTLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private final OrderProducerService producerService;
+    private final EventIdGenerator eventIdGenerator;
+    private final ThreadPoolTaskExecutor executor;
+    private final double defaultRate;
+    private final long maxCount;
+    private final int retainedJobs;
+    private final Duration settleTimeout;
+    private final Map<String, BulkSendJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> jobOrder = new ConcurrentLinkedQueue<>();
+    private final Counter jobsSubmitted;
+    
+    public BulkSendJobService(OrderProducerService producerService,
+                              EventIdGenerator eventIdGenerator,
+                              ThreadPoolTaskExecutor bulkSendExecutor,
+                              @Value("${eventhub.producer.jobs.default-rate:1000}") double defaultRate,
+                              @Value("${eventhub.producer.jobs.max-count:10000000}") long maxCount,
+                              @Value("${eventhub.producer.jobs.retained:100}") int retainedJobs,
+                              @Value("${eventhub.producer.jobs.settle-timeout:2m}") Duration settleTimeout,
+                              MeterRegistry meterRegistry) {
+        this.producerService = producerService;
+        this.eventIdGenerator = eventIdGenerator;
+        this.executor = bulkSendExecutor;
+        this.defaultRate = defaultRate;
+        this.maxCount = maxCount;
+        this.retainedJobs = retainedJobs;
+        this.settleTimeout = settleTimeout;
+        this.jobsSubmitted = Counter.builder("orders.jobs.submitted")
+            .description("Number of bulk send jobs submitted")
+            .register(meterRegistry);
+        Gauge.builder("orders.jobs.active", jobs, j -> j.values().stream().filter(job -> !job.isDone()).count())
+            .description("Bulk send jobs queued or running")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Submit a bulk send job
+     * 
+     * @param count - number of sample orders to generate (ignored when payload is given)
+     * @param rate - target orders/sec, null for the default, 0 for unthrottled
+     * @param payload - uploaded orders to send, or null to generate samples
+     * @throws IllegalArgumentException if the job is too large
+     * @throws java.util.concurrent.RejectedExecutionException if the job queue is full
+     */
+    public BulkSendJob submit(long count, Double rate, List<OrderEvent> payload) {
+        long total = payload != null ? payload.size() : count;
+        if (total <= 0 || total > maxCount) {
+            throw new IllegalArgumentException("Job size must be between 1 and " + maxCount);
+        }
+        double effectiveRate = rate != null ? rate : defaultRate;
+        if (effectiveRate < 0) {
+            throw new IllegalArgumentException("Rate must be >= 0");
+        }
+        
+        BulkSendJob job = new BulkSendJob(eventIdGenerator.nextId(), total, effectiveRate, payload);
+        jobs.put(job.getJobId(), job);
+        jobOrder.add(job.getJobId());
+        try {
+            job.attach(executor.submit(() -> run(job)));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getJobId());
+            jobOrder.remove(job.getJobId());
+            throw e;
+        }
+        
+        jobsSubmitted.increment();
+        pruneFinishedJobs();
+        log.info("📋 Bulk send job submitted",
+            kv("jobId", job.getJobId()),
+            kv("total", total),
+            kv("ratePerSecond", effectiveRate));
+        return job;
+    }
+    
+    public Optional<BulkSendJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+    
+    public List<BulkSendJob> listJobs() {
+        List<BulkSendJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(BulkSendJob::getCreatedAt).reversed());
+        return list;
+    }
+    
+    public Optional<BulkSendJob> cancel(String jobId) {
+        BulkSendJob job = jobs.get(jobId);
+        if (job != null && !job.isDone()) {
+            job.requestCancel();
+            log.info("🛑 Bulk send job cancellation requested", kv("jobId", jobId));
+        }
+        return Optional.ofNullable(job);
+    }
+    
+    private void run(BulkSendJob job) {
+        if (job.isCancelRequested()) {
+            job.markFinished(BulkSendJob.Status.CANCELLED, null);
+            return;
+        }
+        job.markRunning();
+        
+        long intervalNanos = job.getRatePerSecond() > 0 ? (long) (1_000_000_000L / job.getRatePerSecond()) : 0;
+        long nextSendAt = System.nanoTime();
+        
+        try {
+            for (long i = 0; i < job.getTotal(); i++) {
+                if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                    cancelled(job);
+                    return;
+                }
+                
+                if (intervalNanos > 0) {
+                    long wait = nextSendAt - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    } else if (-wait > MAX_CATCH_UP_NANOS) {
+                        nextSendAt = System.nanoTime();
+                    }
+                    nextSendAt += intervalNanos;
+                }
+                
+                OrderEvent order = job.getPayload() != null
+                    ? job.getPayload().get((int) i)
+                    : OrderEvent.createSample(producerService.getMessageCount() + 1, eventIdGenerator);
+                JobOutcome outcome = new JobOutcome(job);
+                try {
+                    if (producerService.sendOrder(order, order.getCustomerId(), outcome)) {
+                        job.orderSubmitted();
+                    } else if (!Thread.currentThread().isInterrupted()) {
+                        // Not when the send was cut short by an interrupt; the job is cancelled next
+                        job.orderSubmitted();
+                        job.orderFailed(false);
+                    }
+                } catch (RuntimeException e) {
+                    job.orderSubmitted();
+                    if (!outcome.reported) {
+                        job.orderFailed(false);
+                    }
+                }
+            }
+            
+            if (!awaitOutcomes(job)) {
+                cancelled(job);
+                return;
+            }
+            long pending = job.getPending();
+            if (pending > 0) {
+                job.markFinished(BulkSendJob.Status.FAILED,
+                    pending + " orders not acknowledged within " + settleTimeout);
+                log.warn("⚠ Bulk send job finished with unacknowledged orders", entries(job.toSummary()));
+                return;
+            }
+            
+            job.markFinished(BulkSendJob.Status.COMPLETED, null);
+            log.info("✓ Bulk send job complete", entries(job.toSummary()));
+        } catch (RuntimeException e) {
+            job.markFinished(BulkSendJob.Status.FAILED, e.getMessage());
+            log.error("✗ Bulk send job failed", kv("jobId", job.getJobId()), e);
+        }
+    }
+    
+    /**
+     * Wait for the acknowledgement or failure of every order handed off, up
+     * to settle-timeout; false if cancelled or interrupted while waiting
+     */
+    private boolean awaitOutcomes(BulkSendJob job) {
+        long deadline = System.nanoTime() + settleTimeout.toNanos();
+        while (job.getPending() > 0 && System.nanoTime() - deadline < 0) {
+            if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(SETTLE_POLL_NANOS);
+        }
+        return true;
+    }
+    
+    private void cancelled(BulkSendJob job) {
+        // Leave the interrupt flag set for the executor
+        boolean interrupted = Thread.currentThread().isInterrupted();
+        job.markFinished(BulkSendJob.Status.CANCELLED, interrupted ? "Interrupted by shutdown" : null);
+        log.info("🛑 Bulk send job cancelled",
+            kv("jobId", job.getJobId()),
+            kv("sent", job.getSent().get()),
+            kv("interrupted", interrupted));
+    }
+    
+    /**
+     * Counts one order's acknowledgement or failure towards its job; a
+     * failure after the order was credited as acknowledged moves it from
+     * sent to failed
+     */
+    private static final class JobOutcome implements SendResultTracker.Outcome {
+        
+        private final BulkSendJob job;
+        private volatile boolean reported;
+        
+        private JobOutcome(BulkSendJob job) {
+            this.job = job;
+        }
+        
+        @Override
+        public void acknowledged() {
+            reported = true;
+            job.orderAcknowledged();
+        }
+        
+        @Override
+        public void failed(Throwable error, boolean withdrawn) {
+            reported = true;
+            job.orderFailed(withdrawn);
+        }
+    }
+    
+    private void pruneFinishedJobs() {
+        for (String jobId : jobOrder) {
+            if (jobs.size() <= retainedJobs) {
+                return;
+            }
+            BulkSendJob job = jobs.get(jobId);
+            if (job == null || job.isDone()) {
+                jobs.remove(jobId);
+                jobOrder.remove(jobId);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.eventhub.producer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Customer Sequencer
+ * 
+ * Stamps every order with a per-customer sequence number (1, 2, 3, ...) so
+ * consumers can verify that each customer's orders arrive complete and in
+ * order. Every customer's series carries its own random source ID; consumers
+ * track sequences per customer and source, which keeps replicas (and a
+ * restarted producer) from looking like gaps or reorders to one another.
+ * 
+ * Series idle for longer than the idle timeout are dropped, so the map only
+ * holds recently active customers. A customer that comes back starts a new
+ * series under a new source, which consumers see as a first order rather
+ * than a gap.
+ * 
+ * Callers stamp on the send lane, right before the hand-off, so numbers are
+ * taken in send order and a rejected order never takes one.
+ */
+@Component
+public class CustomerSequencer {
+    
+    public static final String SEQUENCE_HEADER = "customerSequence";
+    public static final String SOURCE_HEADER = "sequenceSource";
+    
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+    
+    private final boolean enabled;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<String, Series> sequences = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+    
+    public CustomerSequencer(@Value("${eventhub.producer.sequence.enabled:true}") boolean enabled,
+                             @Value("${eventhub.producer.sequence.idle-timeout:30m}") Duration idleTimeout) {
+        this.enabled = enabled;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Next sequence number for a customer, starting at 1 for a new series
+     */
+    public Stamp next(String customerId) {
+        long now = System.nanoTime();
+        sweep(now);
+        while (true) {
+            Series series = sequences.computeIfAbsent(customerId, k -> new Series());
+            Stamp stamp = series.next(now);
+            if (stamp != null) {
+                return stamp;
+            }
+            // Retired by the sweep in the meantime
+            sequences.remove(customerId, series);
+        }
+    }
+    
+    public int getActiveCustomers() {
+        return sequences.size();
+    }
+    
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        sequences.forEach((customerId, series) -> {
+            if (series.retireIfIdle(now, idleTimeoutNanos)) {
+                sequences.remove(customerId, series);
+            }
+        });
+    }
+    
+    /**
+     * Sequence number and the source of its series
+     */
+    public record Stamp(long sequence, int source) {
+    }
+    
+    private static final class Series {
+        private final int source = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+        private long sequence;
+        private long lastUsed = System.nanoTime();
+        private boolean retired;
+        
+        synchronized Stamp next(long now) {
+            if (retired) {
+                return null;
+            }
+            lastUsed = now;
+            return new Stamp(++sequence, source);
+        }
+        
+        synchronized boolean retireIfIdle(long now, long idleTimeoutNanos) {
+            if (now - lastUsed < idleTimeoutNanos) {
+                return false;
+            }
+            retired = true;
+            return true;
+        }
+    }
+}
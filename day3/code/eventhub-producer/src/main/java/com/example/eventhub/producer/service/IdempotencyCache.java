@@ -0,0 +1,268 @@
+package com.example.eventhub.producer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static net.logstash.logback.argument.StructuredArguments.*;
+
+/**
+ * Idempotency Cache
+ * 
+ * Remembers the response for each idempotency key so that client retries
+ * get the original answer instead of sending the order again.
+ * - Bounded: oldest entries are evicted past max-entries (counting keys
+ *   whose send failed until they leave the insertion queue)
+ * - TTL-expiring: entries older than ttl are dropped
+ * - Concurrent: simultaneous requests with the same key share one send
+ * 
+ * Only successful (2xx) responses are kept; failures can be retried. A
+ * request that waited on a send which then failed sends again itself. A 2xx
+ * that only meant "accepted" is forgotten through the callback handed to the
+ * action once the work behind it fails.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+    
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    // Rough per-entry cost: map node, entry, future and queue node
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+    
+    private static final Runnable NO_OP = () -> { };
+    
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the queue
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    
+    public IdempotencyCache(
+        @Value("${eventhub.producer.idempotency.enabled:true}") boolean enabled,
+        @Value("${eventhub.producer.idempotency.ttl:10m}") Duration ttl,
+        @Value("${eventhub.producer.idempotency.max-entries:100000}") int maxEntries,
+        MeterRegistry meterRegistry) {
+        
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.hitCounter = Counter.builder("orders.idempotency.hits")
+            .description("Requests answered from the idempotency cache")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("orders.idempotency.misses")
+            .description("Requests with a new idempotency key")
+            .register(meterRegistry);
+        Gauge.builder("orders.idempotency.entries", entries, Map::size)
+            .description("Idempotency keys currently cached")
+            .register(meterRegistry);
+        Gauge.builder("orders.idempotency.memory", estimatedBytes, AtomicLong::get)
+            .description("Estimated memory held by cached responses")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("orders.idempotency.hit.ratio", this, IdempotencyCache::getHitRatio)
+            .description("Fraction of keyed requests answered from the cache")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Return the cached response for the key, or run the action and cache its response
+     * 
+     * @param key - idempotency key; null bypasses the cache
+     * @param action - performs the request when the key is new; it is given a
+     *                 callback that forgets this request's response (and only
+     *                 this one's) if the request later turns out to have failed
+     */
+    public ResponseEntity<Map<String, Object>> execute(
+        String key, Function<Runnable, ResponseEntity<Map<String, Object>>> action) {
+        
+        if (!enabled || key == null) {
+            return action.apply(NO_OP);
+        }
+        
+        long now = System.nanoTime();
+        evictExpired(now);
+        
+        Entry fresh = new Entry(key, now);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(key, fresh)) != null) {
+            if (existing.isExpired(now, ttlNanos)) {
+                remove(existing);
+                continue;
+            }
+            ResponseEntity<Map<String, Object>> original = existing.awaitSuccess();
+            if (original != null) {
+                hitCounter.increment();
+                log.info("↺ Replaying response for idempotency key", kv("idempotencyKey", key));
+                return replay(original);
+            }
+            // The send this request waited on failed and has left the map; send again
+            log.info("Shared send failed, sending again for idempotency key", kv("idempotencyKey", key));
+        }
+        
+        missCounter.increment();
+        insertionOrder.add(fresh);
+        queued.incrementAndGet();
+        
+        ResponseEntity<Map<String, Object>> response;
+        try {
+            response = action.apply(() -> forget(fresh));
+        } catch (RuntimeException e) {
+            entries.remove(key, fresh);
+            fresh.response.completeExceptionally(e);
+            throw e;
+        }
+        
+        if (response.getStatusCode().is2xxSuccessful()) {
+            long size = estimateSize(key, response.getBody());
+            synchronized (fresh) {
+                // Not if it was already forgotten
+                if (entries.get(key) == fresh) {
+                    fresh.sizeBytes = size;
+                    estimatedBytes.addAndGet(size);
+                }
+            }
+        } else {
+            entries.remove(key, fresh);
+        }
+        fresh.response.complete(response);
+        
+        trimToSize();
+        return response;
+    }
+    
+    private ResponseEntity<Map<String, Object>> replay(ResponseEntity<Map<String, Object>> original) {
+        return ResponseEntity.status(original.getStatusCode())
+            .header(REPLAYED_HEADER, "true")
+            .body(original.getBody());
+    }
+    
+    /**
+     * Entries are queued in insertion order and share one TTL, so the head
+     * of the queue is always the next to expire
+     */
+    private void evictExpired(long now) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null && head.isExpired(now, ttlNanos)) {
+            if (insertionOrder.remove(head)) {
+                queued.decrementAndGet();
+                remove(head);
+            }
+        }
+    }
+    
+    /**
+     * Trims by queue length rather than entries.size(): failed keys leave the
+     * map at once but stay queued, and would otherwise pile up until the TTL
+     */
+    private void trimToSize() {
+        while (queued.get() > maxEntries) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            remove(oldest);
+        }
+    }
+    
+    private void forget(Entry entry) {
+        if (remove(entry)) {
+            log.info("Forgot response of failed request", kv("idempotencyKey", entry.key));
+        }
+    }
+    
+    private boolean remove(Entry entry) {
+        if (!entries.remove(entry.key, entry)) {
+            return false;
+        }
+        synchronized (entry) {
+            estimatedBytes.addAndGet(-entry.sizeBytes);
+            entry.sizeBytes = 0;
+        }
+        return true;
+    }
+    
+    private static long estimateSize(String key, Map<String, Object> body) {
+        long size = ENTRY_OVERHEAD_BYTES + 40 + key.length() * 2L;
+        if (body != null) {
+            for (Map.Entry<String, Object> field : body.entrySet()) {
+                size += 72 + field.getKey().length() * 2L + String.valueOf(field.getValue()).length() * 2L;
+            }
+        }
+        return size;
+    }
+    
+    public double getHitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+    
+    /**
+     * Get cache statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("queued", queued.get());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", (long) hitCounter.count());
+        stats.put("misses", (long) missCounter.count());
+        stats.put("hitRatio", Math.round(getHitRatio() * 10000.0) / 10000.0);
+        stats.put("estimatedMemoryBytes", estimatedBytes.get());
+        return stats;
+    }
+    
+    private static final class Entry {
+        private final String key;
+        private final long createdNanos;
+        private final CompletableFuture<ResponseEntity<Map<String, Object>>> response = new CompletableFuture<>();
+        // Guarded by the entry's monitor
+        private long sizeBytes;
+        
+        private Entry(String key, long createdNanos) {
+            this.key = key;
+            this.createdNanos = createdNanos;
+        }
+        
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos > ttlNanos;
+        }
+        
+        /**
+         * Wait for the in-flight send; its response if that was a success,
+         * null if it failed (the entry is removed from the map by then)
+         */
+        private ResponseEntity<Map<String, Object>> awaitSuccess() {
+            try {
+                ResponseEntity<Map<String, Object>> original = response.join();
+                return original.getStatusCode().is2xxSuccessful() ? original : null;
+            } catch (CompletionException | CancellationException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.eventhub.producer.service;
+
+import com.example.eventhub.producer.config.FanoutProperties;
+import com.example.eventhub.producer.model.OrderEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Order Fan-out
+ * 
+ * Copies every order Event Hub acknowledged on the orders binding to the
+ * extra bindings configured under eventhub.producer.fanout. The order is
+ * serialized once: the bytes and headers of the outgoing message are shared
+ * by all destinations and never modified, so adding a destination costs a
+ * queue slot, not another round of JSON conversion.
+ * 
+ * Each destination has its own bounded queue and sender thread, sending on
+ * the binding's output channel resolved at startup (the binding must be
+ * listed in spring.cloud.stream.output-bindings). The sender collects up to
+ * batch-size orders (or max-batch-bytes), waiting at most linger for more,
+ * and sends them as batch events: a JSON array of the shared order payloads,
+ * one event per partition group, so a customer's orders keep landing in one
+ * partition in order. With batch-size 1 each order's own message is sent.
+ * 
+ * A failed send is retried in order; after max-attempts its orders are
+ * dropped or, with on-failure RETRY, retried until it succeeds while the
+ * queue backs up. A full queue drops new orders for that destination only.
+ * 
+ * Lag per destination: orders.fanout.pending (orders queued) and
+ * orders.fanout.lag (age of the oldest queued order), tagged with
+ * destination=binding.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(FanoutProperties.class)
+public class OrderFanout {
+    
+    public static final String BATCH_EVENT_TYPE = "OrderBatch";
+    public static final String BATCH_SIZE_HEADER = "batchSize";
+    
+    private final boolean enabled;
+    private final OrderPublisher publisher;
+    private final List<Destination> destinations = new ArrayList<>();
+    
+    public OrderFanout(FanoutProperties properties,
+                       OrderPublisher publisher,
+                       BeanFactory beanFactory,
+                       MeterRegistry meterRegistry) {
+        this.publisher = publisher;
+        this.enabled = properties.isEnabled() && !properties.getDestinations().isEmpty();
+        
+        if (enabled) {
+            for (FanoutProperties.Destination config : properties.getDestinations()) {
+                if (config.getBinding() == null || OrderPublisher.BINDING.equals(config.getBinding())) {
+                    throw new IllegalArgumentException("Fan-out destination needs a binding other than "
+                        + OrderPublisher.BINDING + ": " + config.getBinding());
+                }
+                MessageChannel output = outputChannel(beanFactory, config.getBinding());
+                Destination destination = new Destination(config, output, meterRegistry);
+                destinations.add(destination);
+                destination.thread.start();
+            }
+            log.info("Order fan-out enabled",
+                kv("destinations", destinations.stream().map(d -> d.binding).toList()));
+        }
+    }
+    
+    private static MessageChannel outputChannel(BeanFactory beanFactory, String binding) {
+        try {
+            return beanFactory.getBean(binding, MessageChannel.class);
+        } catch (BeansException e) {
+            throw new IllegalArgumentException("Fan-out binding " + binding
+                + " is not bound; add it to spring.cloud.stream.output-bindings", e);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queue an acknowledged order's message for every destination; never blocks
+     * 
+     * @param message the message sent on the orders binding; its payload is
+     *                reused if already serialized
+     */
+    public void publish(OrderEvent order, Message<?> message) {
+        if (!enabled) {
+            return;
+        }
+        Message<byte[]> shared = serializedOnce(order, message);
+        long now = System.nanoTime();
+        for (Destination destination : destinations) {
+            destination.offer(new Pending(shared, now));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Message<byte[]> serializedOnce(OrderEvent order, Message<?> message) {
+        if (message.getPayload() instanceof byte[]) {
+            return (Message<byte[]>) message;
+        }
+        Map<String, Object> headers = new HashMap<>(message.getHeaders());
+        headers.remove(MessageHeaders.ID);
+        headers.remove(MessageHeaders.TIMESTAMP);
+        return MessageBuilder.createMessage(publisher.serialize(order), new MessageHeaders(headers));
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        List<Map<String, Object>> perDestination = new ArrayList<>();
+        for (Destination destination : destinations) {
+            perDestination.add(destination.getStats());
+        }
+        stats.put("destinations", perDestination);
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Destination destination : destinations) {
+            destination.running = false;
+            destination.thread.interrupt();
+        }
+        for (Destination destination : destinations) {
+            destination.thread.join(5000);
+            if (!destination.queue.isEmpty()) {
+                log.warn("⚠ Discarding fan-out messages on shutdown",
+                    kv("destination", destination.binding),
+                    kv("pending", destination.queue.size()));
+            }
+        }
+    }
+    
+    private record Pending(Message<byte[]> message, long enqueuedAt) {
+    }
+    
+    private final class Destination {
+        private final String binding;
+        private final FanoutProperties.Destination config;
+        private final MessageChannel output;
+        private final ArrayBlockingQueue<Pending> queue;
+        private final List<Pending> batch;
+        private final List<List<Pending>> groups;
+        private final ByteArrayOutputStream payload = new ByteArrayOutputStream(64 * 1024);
+        private final Thread thread;
+        private final DistributionSummary batchSizes;
+        private final Counter deliveredCounter;
+        private final Counter overflowCounter;
+        private final Counter failedCounter;
+        private final Counter retryCounter;
+        private volatile boolean running = true;
+        private volatile long oldestPending = -1;
+        private volatile long lastDeliveredAt;
+        
+        private Destination(FanoutProperties.Destination config, MessageChannel output, MeterRegistry meterRegistry) {
+            this.binding = config.getBinding();
+            this.config = config;
+            this.output = output;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getCapacity()));
+            this.batch = new ArrayList<>(Math.max(1, config.getBatchSize()));
+            this.groups = new ArrayList<>();
+            for (int g = 0; g < Math.max(1, config.getPartitionGroups()); g++) {
+                groups.add(new ArrayList<>());
+            }
+            this.thread = new Thread(this::sendLoop, "fanout-" + binding);
+            this.thread.setDaemon(true);
+            
+            this.batchSizes = DistributionSummary.builder("orders.fanout.batch.size")
+                .description("Orders per event sent to a fan-out destination")
+                .tag("destination", binding)
+                .register(meterRegistry);
+            this.deliveredCounter = Counter.builder("orders.fanout.delivered")
+                .description("Orders delivered to a fan-out destination")
+                .tag("destination", binding)
+                .register(meterRegistry);
+            this.overflowCounter = dropCounter(meterRegistry, "overflow");
+            this.failedCounter = dropCounter(meterRegistry, "failed");
+            this.retryCounter = Counter.builder("orders.fanout.retries")
+                .description("Fan-out sends retried after a failure")
+                .tag("destination", binding)
+                .register(meterRegistry);
+            Gauge.builder("orders.fanout.pending", queue, ArrayBlockingQueue::size)
+                .description("Orders queued for a fan-out destination")
+                .tag("destination", binding)
+                .register(meterRegistry);
+            TimeGauge.builder("orders.fanout.lag", this, TimeUnit.NANOSECONDS, Destination::lagNanos)
+                .description("Age of the oldest order queued for a fan-out destination")
+                .tag("destination", binding)
+                .register(meterRegistry);
+        }
+        
+        private Counter dropCounter(MeterRegistry meterRegistry, String reason) {
+            return Counter.builder("orders.fanout.dropped")
+                .description("Orders dropped for a fan-out destination")
+                .tag("destination", binding)
+                .tag("reason", reason)
+                .register(meterRegistry);
+        }
+        
+        private void offer(Pending pending) {
+            if (!queue.offer(pending)) {
+                overflowCounter.increment();
+            }
+        }
+        
+        private double lagNanos() {
+            Pending head = queue.peek();
+            long oldest = oldestPending >= 0 ? oldestPending : head == null ? -1 : head.enqueuedAt();
+            return oldest < 0 ? 0 : System.nanoTime() - oldest;
+        }
+        
+        /**
+         * Collect a batch, send it in order, repeat
+         */
+        private void sendLoop() {
+            long lingerNanos = config.getLinger().toNanos();
+            while (running) {
+                try {
+                    Pending first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    oldestPending = first.enqueuedAt();
+                    batch.add(first);
+                    long bytes = first.message().getPayload().length;
+                    long deadline = System.nanoTime() + lingerNanos;
+                    while (batch.size() < config.getBatchSize()) {
+                        Pending next = queue.peek();
+                        if (next == null) {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0 || (next = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                                break;
+                            }
+                        } else if (bytes + next.message().getPayload().length > config.getMaxBatchBytes()) {
+                            break;
+                        } else {
+                            queue.poll();
+                        }
+                        batch.add(next);
+                        bytes += next.message().getPayload().length;
+                    }
+                    sendBatch();
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                } finally {
+                    batch.clear();
+                    for (List<Pending> group : groups) {
+                        group.clear();
+                    }
+                    oldestPending = -1;
+                }
+            }
+        }
+        
+        /**
+         * Send the batch as one event per partition group; a key always
+         * falls in the same group, and groups go out in order of their first order
+         */
+        private void sendBatch() throws InterruptedException {
+            if (config.getBatchSize() <= 1) {
+                for (Pending pending : batch) {
+                    deliver(pending.message(), 1);
+                }
+                return;
+            }
+            for (Pending pending : batch) {
+                Object key = pending.message().getHeaders().get("partitionKey");
+                groups.get(Math.floorMod(Objects.hashCode(key), groups.size())).add(pending);
+            }
+            for (int g = 0; g < groups.size(); g++) {
+                List<Pending> group = groups.get(g);
+                if (!group.isEmpty()) {
+                    deliver(batchMessage(g, group), group.size());
+                }
+            }
+        }
+        
+        /**
+         * A JSON array of the group's shared payloads, copied but never re-serialized
+         */
+        private Message<byte[]> batchMessage(int group, List<Pending> orders) {
+            payload.reset();
+            payload.write('[');
+            for (int i = 0; i < orders.size(); i++) {
+                if (i > 0) {
+                    payload.write(',');
+                }
+                payload.writeBytes(orders.get(i).message().getPayload());
+            }
+            payload.write(']');
+            return MessageBuilder.withPayload(payload.toByteArray())
+                .setHeader("partitionKey", binding + "-" + group)
+                .setHeader("eventType", BATCH_EVENT_TYPE)
+                .setHeader(BATCH_SIZE_HEADER, orders.size())
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                .build();
+        }
+        
+        private void deliver(Message<byte[]> message, int orders) throws InterruptedException {
+            for (int attempt = 1; ; attempt++) {
+                Exception error = null;
+                try {
+                    if (output.send(message)) {
+                        deliveredCounter.increment(orders);
+                        batchSizes.record(orders);
+                        lastDeliveredAt = System.currentTimeMillis();
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+                
+                if (attempt >= config.getMaxAttempts() && config.getOnFailure() == FanoutProperties.OnFailure.DROP) {
+                    failedCounter.increment(orders);
+                    log.error("✗ Fan-out send failed, dropping orders",
+                        kv("destination", binding),
+                        kv("orders", orders),
+                        kv("messageId", message.getHeaders().get("messageId")),
+                        kv("attempts", attempt),
+                        error);
+                    return;
+                }
+                if (attempt == config.getMaxAttempts()) {
+                    log.warn("⚠ Fan-out destination failing, holding its queue",
+                        kv("destination", binding),
+                        kv("pending", queue.size()));
+                }
+                retryCounter.increment();
+                Thread.sleep(config.getRetryBackoff().toMillis());
+            }
+        }
+        
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("binding", binding);
+            stats.put("pending", queue.size());
+            stats.put("lagMs", TimeUnit.NANOSECONDS.toMillis((long) lagNanos()));
+            stats.put("batchSize", config.getBatchSize());
+            stats.put("meanBatchSize", batchSizes.mean());
+            stats.put("delivered", (long) deliveredCounter.count());
+            stats.put("droppedOverflow", (long) overflowCounter.count());
+            stats.put("droppedFailed", (long) failedCounter.count());
+            stats.put("retries", (long) retryCounter.count());
+            stats.put("lastDeliveredAt", lastDeliveredAt == 0 ? null : lastDeliveredAt);
+            return stats;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.eventhub.producer.service;
 
+import com.example.eventhub.producer.id.EventIdGenerator;
 import com.example.eventhub.producer.model.OrderEvent;
+import com.example.eventhub.producer.replay.TrafficRecorder;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.atomic.AtomicInteger;
@@ -18,6 +21,13 @@ import static net.logstash.logback.argument.StructuredArguments.*;
  * 
  * Handles sending order events to Event Hub with:
  * - Partition key routing
+ * - Event ID assignment for orders submitted without one
+ * - Per-customer sequence numbers for ordering verification
+ * - Per-partition circuit breakers that park or fail fast
+ * - Async sends on ordered send lanes, with ack tracking by messageId
+ * - Pre-bound output channel with serialize-once messages
+ * - Fan-out of the same serialized message to extra bindings
+ * - Optional traffic capture for replay (replayed orders are not captured)
  * - Metrics collection
  * - Error handling
  */
@@ -25,15 +35,37 @@ import static net.logstash.logback.argument.StructuredArguments.*;
 @Service
 public class OrderProducerService {
     
-    private final StreamBridge streamBridge;
+    private final OrderPublisher publisher;
+    private final EventIdGenerator eventIdGenerator;
+    private final TrafficRecorder trafficRecorder;
+    private final CustomerSequencer sequencer;
+    private final PartitionSendGuard partitionGuard;
+    private final SendResultTracker resultTracker;
+    private final OrderedSendExecutor sendExecutor;
+    private final OrderFanout fanout;
     private final AtomicInteger counter = new AtomicInteger(0);
     private final Counter sentCounter;
     private final Counter failedCounter;
     
-    public OrderProducerService(StreamBridge streamBridge, MeterRegistry meterRegistry) {
-        this.streamBridge = streamBridge;
+    public OrderProducerService(OrderPublisher publisher,
+                                EventIdGenerator eventIdGenerator,
+                                TrafficRecorder trafficRecorder,
+                                CustomerSequencer sequencer,
+                                PartitionSendGuard partitionGuard,
+                                SendResultTracker resultTracker,
+                                OrderedSendExecutor sendExecutor,
+                                OrderFanout fanout,
+                                MeterRegistry meterRegistry) {
+        this.publisher = publisher;
+        this.eventIdGenerator = eventIdGenerator;
+        this.trafficRecorder = trafficRecorder;
+        this.sequencer = sequencer;
+        this.partitionGuard = partitionGuard;
+        this.resultTracker = resultTracker;
+        this.sendExecutor = sendExecutor;
+        this.fanout = fanout;
         this.sentCounter = Counter.builder("orders.sent")
-            .description("Number of orders sent to Event Hub")
+            .description("Number of orders handed to the binder (acknowledged: orders.acked)")
             .register(meterRegistry);
         this.failedCounter = Counter.builder("orders.failed")
             .description("Number of orders failed to send")
@@ -41,40 +73,233 @@ public class OrderProducerService {
     }
     
     /**
-     * Send a single order event
+     * Send a single order event, partitioned by customer ID
+     * 
+     * @return true if the order was accepted for sending
      */
-    public void sendOrder(OrderEvent order) {
+    public boolean sendOrder(OrderEvent order) {
+        return sendOrder(order, order.getCustomerId());
+    }
+    
+    /**
+     * Send a single order event with an explicit partition key
+     * 
+     * The order is handed to the async binder on the key's send lane; Event
+     * Hub's acknowledgement or the send failure arrives later, see
+     * {@link SendResultTracker} for the outcome.
+     * 
+     * @return true if the order was accepted for sending, false if too many
+     *         orders are unacknowledged
+     */
+    public boolean sendOrder(OrderEvent order, String partitionKey) {
+        return send(order, partitionKey, SendResultTracker.Outcome.NONE, true);
+    }
+    
+    /**
+     * Same as above, running onFailure if the accepted order is then not
+     * acknowledged (fails fast, is rejected, the send throws or the binder
+     * reports it failed)
+     */
+    public boolean sendOrder(OrderEvent order, String partitionKey, Runnable onFailure) {
+        return send(order, partitionKey, SendResultTracker.Outcome.onFailure(onFailure), true);
+    }
+    
+    /**
+     * Same as above, reporting the accepted order's acknowledgement or
+     * failure to outcome (see {@link SendResultTracker.Outcome})
+     */
+    public boolean sendOrder(OrderEvent order, String partitionKey, SendResultTracker.Outcome outcome) {
+        return send(order, partitionKey, outcome, true);
+    }
+    
+    /**
+     * Send a replayed order with its recorded partition key; it is not
+     * captured again, so replaying never feeds the traffic log
+     */
+    public boolean replayOrder(OrderEvent order, String partitionKey) {
+        return send(order, partitionKey, SendResultTracker.Outcome.NONE, false);
+    }
+    
+    private boolean send(OrderEvent order, String partitionKey, SendResultTracker.Outcome outcome, boolean capture) {
         int count = counter.incrementAndGet();
         
+        if (order.getEventId() == null) {
+            order.setEventId(eventIdGenerator.nextId());
+        }
+        
+        SendResultTracker.Ticket ticket = null;
+        try {
+            // Admit first, so a rejected order never takes a sequence number
+            FanoutOnAck copy = fanout.isEnabled() ? new FanoutOnAck(order, outcome) : null;
+            ticket = resultTracker.begin(order.getEventId(), copy != null ? copy : outcome);
+            if (ticket == null) {
+                failedCounter.increment();
+                return false;
+            }
+            SendResultTracker.Ticket tracked = ticket;
+            sendExecutor.execute(partitionKey, () -> dispatch(order, partitionKey, tracked, copy, count, capture));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCounter.increment();
+            return false;
+        } catch (Exception e) {
+            failedCounter.increment();
+            if (ticket != null) {
+                resultTracker.failed(ticket, e);
+            }
+            log.error("✗ Exception sending order: {}", order.getOrderId(), e);
+            throw new RuntimeException("Failed to send order", e);
+        }
+    }
+    
+    /**
+     * Stamp and send to Event Hub through the partition's breaker (runs on a
+     * send lane)
+     * 
+     * The customer sequence is taken here rather than when the order is
+     * accepted: the lane is the only thread sending its keys, so sequence
+     * numbers are handed out in the order the orders are sent.
+     */
+    private void dispatch(OrderEvent order, String partitionKey, SendResultTracker.Ticket ticket,
+                          FanoutOnAck copy, int count, boolean capture) {
         try {
+            // Let consumers verify per-customer ordering
+            CustomerSequencer.Stamp stamp = sequencer.isEnabled() && order.getCustomerId() != null
+                ? sequencer.next(order.getCustomerId())
+                : null;
+            
             // Create message with partition key for ordering
             // All events with same customer ID go to same partition
-            Message<OrderEvent> message = MessageBuilder
-                .withPayload(order)
-                .setHeader("partitionKey", order.getCustomerId())
-                .setHeader("messageId", order.getEventId())
-                .setHeader("eventType", "OrderCreated")
-                .build();
+            Message<?> message = publisher.toMessage(order, partitionKey,
+                stamp != null ? stamp.sequence() : null,
+                stamp != null ? stamp.source() : null);
+            if (copy != null) {
+                copy.message = message;
+            }
             
-            // Send to Event Hub
-            boolean sent = streamBridge.send("orderProducer-out-0", message);
+            PartitionSendGuard.Result result = partitionGuard.send(partitionKey,
+                () -> publish(order, message, partitionKey, ticket, count, capture),
+                () -> {
+                    failedCounter.increment();
+                    resultTracker.failed(ticket, new IllegalStateException("Parked order discarded on shutdown"));
+                });
             
-            if (sent) {
-                sentCounter.increment();
-                log.info("✓ Sent order #{}", 
-                    count,
+            switch (result) {
+                // Stays unacknowledged until the partition recovers and it is drained,
+                // or is recorded as failed if still parked at shutdown
+                case PARKED -> log.warn("⏸ Parked order for unhealthy partition",
                     kv("orderId", order.getOrderId()),
-                    kv("customerId", order.getCustomerId()),
-                    kv("amount", order.getTotalAmount()),
-                    kv("eventId", order.getEventId()));
-            } else {
-                failedCounter.increment();
-                log.error("✗ Failed to send order", kv("orderId", order.getOrderId()));
+                    kv("partition", partitionGuard.partitionFor(partitionKey)));
+                case FAILED_FAST -> {
+                    failedCounter.increment();
+                    resultTracker.failed(ticket, null);
+                    log.error("✗ Partition unhealthy, order not sent",
+                        kv("orderId", order.getOrderId()),
+                        kv("partition", partitionGuard.partitionFor(partitionKey)));
+                }
+                case REJECTED -> {
+                    failedCounter.increment();
+                    resultTracker.failed(ticket, null);
+                    log.error("✗ Failed to send order", kv("orderId", order.getOrderId()));
+                }
+                case SENT -> { }
             }
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             failedCounter.increment();
+            resultTracker.failed(ticket, e);
             log.error("✗ Exception sending order: {}", order.getOrderId(), e);
-            throw new RuntimeException("Failed to send order", e);
+        }
+    }
+    
+    /**
+     * Hand a message to the async binder; also used when draining parked
+     * orders. Returns whether the binder took it, the acknowledgement or
+     * failure arrives later (see onSendFailure and the binder's send callback)
+     */
+    private boolean publish(OrderEvent order, Message<?> message, String partitionKey,
+                            SendResultTracker.Ticket ticket, int count, boolean capture) {
+        resultTracker.handingOff(ticket);
+        boolean sent;
+        try {
+            sent = publisher.publish(message);
+        } catch (RuntimeException e) {
+            resultTracker.handOffFailed(ticket);
+            throw e;
+        }
+        if (!sent) {
+            resultTracker.handOffFailed(ticket);
+            return false;
+        }
+        sentCounter.increment();
+        if (capture) {
+            trafficRecorder.record(order, partitionKey);
+        }
+        log.info("✓ Sent order #{}", 
+            count,
+            kv("orderId", order.getOrderId()),
+            kv("customerId", order.getCustomerId()),
+            kv("amount", order.getTotalAmount()),
+            kv("eventId", order.getEventId()));
+        return true;
+    }
+    
+    /**
+     * Async send failures reported by the binder on the orders binding's
+     * error channel; the failed message's messageId names the order
+     */
+    @ServiceActivator(inputChannel = OrderPublisher.ERROR_CHANNEL)
+    public void onSendFailure(ErrorMessage errorMessage) {
+        Throwable error = errorMessage.getPayload();
+        Message<?> failed = error instanceof MessagingException e && e.getFailedMessage() != null
+            ? e.getFailedMessage()
+            : errorMessage.getOriginalMessage();
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        failedCounter.increment();
+        if (failed == null) {
+            log.error("✗ Async send failed for an unknown order", cause);
+            return;
+        }
+        
+        Object partitionKey = failed.getHeaders().get("partitionKey");
+        if (partitionKey != null) {
+            partitionGuard.recordFailure(partitionKey.toString(), cause);
+        }
+        Object messageId = failed.getHeaders().get("messageId");
+        if (messageId != null) {
+            resultTracker.failed(messageId.toString(), cause);
+        }
+    }
+    
+    /**
+     * Passes an order's outcome on, and copies the order to the fan-out
+     * destinations once Event Hub has acknowledged it on the orders binding
+     * (matched as described in SendResultTracker), not when it is accepted
+     */
+    private final class FanoutOnAck implements SendResultTracker.Outcome {
+        private final OrderEvent order;
+        private final SendResultTracker.Outcome outcome;
+        
+        // Set on the send lane before the hand-off, so before any acknowledgement
+        private volatile Message<?> message;
+        
+        private FanoutOnAck(OrderEvent order, SendResultTracker.Outcome outcome) {
+            this.order = order;
+            this.outcome = outcome;
+        }
+        
+        @Override
+        public void acknowledged() {
+            Message<?> sent = message;
+            if (sent != null) {
+                fanout.publish(order, sent);
+            }
+            outcome.acknowledged();
+        }
+        
+        @Override
+        public void failed(Throwable error, boolean withdrawn) {
+            outcome.failed(error, withdrawn);
         }
     }
     
@@ -86,7 +311,7 @@ public class OrderProducerService {
         long startTime = System.currentTimeMillis();
         
         for (int i = 0; i < batchSize; i++) {
-            OrderEvent order = OrderEvent.createSample(counter.get() + i + 1);
+            OrderEvent order = OrderEvent.createSample(counter.get() + i + 1, eventIdGenerator);
             sendOrder(order);
         }
         
@@ -0,0 +1,143 @@
+package com.example.eventhub.producer.service;
+
+import com.example.eventhub.producer.model.OrderEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order Publisher
+ * 
+ * Turns orders into outgoing messages and hands them to the orders binding.
+ * 
+ * The pre-bound path (default) sends straight to the output channel bound at
+ * startup (spring.cloud.stream.output-bindings) instead of resolving the
+ * destination through StreamBridge on every call. It serializes the payload
+ * once with a pre-built JSON writer and copies constant headers from a
+ * template, so the binding passes the bytes through without converting them.
+ * 
+ * The stream-bridge path is the original per-call StreamBridge send, kept
+ * for comparison (see /api/orders/benchmark/publish).
+ */
+@Slf4j
+@Component
+public class OrderPublisher {
+    
+    public static final String BINDING = "orderProducer-out-0";
+    
+    /** Destination of the orders binding, and the error channel the binder reports its async failures on */
+    public static final String DESTINATION = "orders";
+    public static final String ERROR_CHANNEL = DESTINATION + ".errors";
+    
+    private static final int HEADER_CAPACITY = 16;
+    
+    private final boolean preBound;
+    private final StreamBridge streamBridge;
+    private final MessageChannel orderOutput;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter orderWriter;
+    private final Map<String, Object> headerTemplate;
+    
+    public OrderPublisher(
+        @Value("${eventhub.producer.publish.pre-bound:true}") boolean preBound,
+        StreamBridge streamBridge,
+        @Qualifier(BINDING) MessageChannel orderOutput,
+        ObjectMapper objectMapper) {
+        
+        this.preBound = preBound;
+        this.streamBridge = streamBridge;
+        this.orderOutput = orderOutput;
+        this.objectMapper = objectMapper;
+        this.orderWriter = objectMapper.writerFor(OrderEvent.class);
+        this.headerTemplate = Map.of(
+            "eventType", "OrderCreated",
+            MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE);
+    }
+    
+    public boolean isPreBound() {
+        return preBound;
+    }
+    
+    /**
+     * Build the outgoing message for an order
+     * 
+     * @param sequence customer sequence, or null when not stamped
+     */
+    public Message<?> toMessage(OrderEvent order, String partitionKey, Long sequence, Integer source) {
+        return preBound
+            ? templateMessage(order, partitionKey, sequence, source)
+            : builderMessage(order, partitionKey, sequence, source);
+    }
+    
+    /**
+     * Send a message on the orders binding
+     * 
+     * @return true if the binding accepted it; with the async binding that is
+     *         a hand-off, not an acknowledgement (see SendResultTracker)
+     */
+    public boolean publish(Message<?> message) {
+        return preBound ? orderOutput.send(message) : streamBridge.send(BINDING, message);
+    }
+    
+    /**
+     * Pre-bound path: serialized once, constant headers from the template
+     */
+    Message<byte[]> templateMessage(OrderEvent order, String partitionKey, Long sequence, Integer source) {
+        Map<String, Object> headers = new HashMap<>(HEADER_CAPACITY);
+        headers.putAll(headerTemplate);
+        headers.put("partitionKey", partitionKey);
+        headers.put("messageId", order.getEventId());
+        if (sequence != null) {
+            headers.put(CustomerSequencer.SEQUENCE_HEADER, sequence);
+            headers.put(CustomerSequencer.SOURCE_HEADER, source);
+        }
+        return MessageBuilder.createMessage(serialize(order), new MessageHeaders(headers));
+    }
+    
+    /**
+     * Original path: the binding converts the payload on every send
+     */
+    Message<OrderEvent> builderMessage(OrderEvent order, String partitionKey, Long sequence, Integer source) {
+        MessageBuilder<OrderEvent> builder = MessageBuilder
+            .withPayload(order)
+            .setHeader("partitionKey", partitionKey)
+            .setHeader("messageId", order.getEventId())
+            .setHeader("eventType", "OrderCreated");
+        if (sequence != null) {
+            builder.setHeader(CustomerSequencer.SEQUENCE_HEADER, sequence)
+                .setHeader(CustomerSequencer.SOURCE_HEADER, source);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Serialize an order to JSON with the pre-built writer
+     */
+    public byte[] serialize(OrderEvent order) {
+        try {
+            return orderWriter.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize order " + order.getOrderId(), e);
+        }
+    }
+    
+    /**
+     * Per-call conversion as done for the original path, for benchmarking
+     */
+    byte[] convertPerCall(OrderEvent order) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.eventhub.producer.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Ordered Send Executor
+ * 
+ * Hands orders to the async binder off the caller's thread on a fixed set of
+ * send lanes. Each lane is a single thread and orders are assigned to lanes
+ * by partition key, so orders with the same key are handed off one after
+ * another in submission order while different keys go in parallel.
+ * 
+ * There are lanes-per-partition lanes for each Event Hub partition, and a
+ * key's lane is picked with the hash the binder partitions by, so a lane
+ * only ever sends to one partition and a slow partition holds up only its
+ * own lanes.
+ * 
+ * A lane only waits for the hand-off, not for Event Hub's acknowledgement
+ * (see SendResultTracker), so one lane per partition is usually enough;
+ * orders waiting for their lane show in orders.send.lanes.queued.
+ */
+@Slf4j
+@Component
+public class OrderedSendExecutor {
+    
+    private final int lanesPerPartition;
+    private final List<ThreadPoolExecutor> lanes = new ArrayList<>();
+    
+    public OrderedSendExecutor(
+        @Value("${eventhub.producer.partitions.count:4}") int partitionCount,
+        @Value("${eventhub.producer.acks.lanes-per-partition:1}") int lanesPerPartition,
+        MeterRegistry meterRegistry) {
+        
+        this.lanesPerPartition = Math.max(1, lanesPerPartition);
+        int laneCount = Math.max(1, partitionCount) * this.lanesPerPartition;
+        for (int i = 0; i < laneCount; i++) {
+            String name = "send-lane-" + i;
+            lanes.add(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        Gauge.builder("orders.send.lanes.queued", this, OrderedSendExecutor::getQueued)
+            .description("Orders waiting for their send lane")
+            .register(meterRegistry);
+        log.info("Send lanes started", kv("lanes", laneCount), kv("lanesPerPartition", this.lanesPerPartition));
+    }
+    
+    public void execute(String partitionKey, Runnable send) {
+        // Same hash as the binder's partition selector: lane % partition count is the key's partition
+        int hashCode = Objects.hashCode(partitionKey);
+        if (hashCode == Integer.MIN_VALUE) {
+            hashCode = 0;
+        }
+        lanes.get(Math.abs(hashCode) % lanes.size()).execute(send);
+    }
+    
+    public int getQueued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("lanes", lanes.size());
+        stats.put("lanesPerPartition", lanesPerPartition);
+        stats.put("queued", getQueued());
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠ Send lane did not drain in time", kv("dropped", lane.shutdownNow().size()));
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.eventhub.producer.service;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Partition Send Guard
+ * 
+ * Tracks send health per Event Hub partition with one resilience4j circuit
+ * breaker each (partition-0, partition-1, ...), so a throttled or
+ * unavailable partition stops dragging down sends to the healthy ones.
+ * 
+ * The partition is derived from the partition key the same way the binder
+ * does (Spring Cloud Stream's default selector over partition-count). While
+ * a partition's breaker is open, its sends are either:
+ * - PARK: queued in order and drained once the breaker lets calls through;
+ *   later sends for the partition queue behind them to keep key order
+ * - FAIL_FAST: rejected immediately without touching the binder
+ * 
+ * On shutdown parked orders get a last chance to drain; those still parked
+ * are discarded through their onDiscard callback, so the caller can record
+ * them as failed rather than leave them "accepted". Sends arriving after
+ * that fail fast.
+ * 
+ * Sends are async: a call is the hand-off to the binder, and failures the
+ * binder reports later are added as failed calls (recordFailure).
+ * 
+ * Breaker state is visible at /actuator/circuitbreakers.
+ */
+@Slf4j
+@Component
+public class PartitionSendGuard {
+    
+    public enum Mode { PARK, FAIL_FAST }
+    
+    public enum Result { SENT, REJECTED, PARKED, FAILED_FAST }
+    
+    private final boolean enabled;
+    private final Mode mode;
+    private final int parkCapacity;
+    private final List<Partition> partitions = new ArrayList<>();
+    private final Counter parkedCounter;
+    private final Counter failFastCounter;
+    private volatile boolean closed;
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "partition-drain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public PartitionSendGuard(
+        @Value("${eventhub.producer.partitions.breaker-enabled:true}") boolean enabled,
+        @Value("${eventhub.producer.partitions.count:4}") int partitionCount,
+        @Value("${eventhub.producer.partitions.unhealthy-mode:PARK}") Mode mode,
+        @Value("${eventhub.producer.partitions.park-capacity:10000}") int parkCapacity,
+        CircuitBreakerRegistry circuitBreakerRegistry,
+        MeterRegistry meterRegistry) {
+        
+        this.enabled = enabled;
+        this.mode = mode;
+        this.parkCapacity = parkCapacity;
+        
+        for (int i = 0; i < Math.max(1, partitionCount); i++) {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("partition-" + i, "partition");
+            Partition partition = new Partition(i, circuitBreaker);
+            circuitBreaker.getEventPublisher().onStateTransition(event -> {
+                log.info("Partition breaker state transition",
+                    kv("partition", partition.id),
+                    kv("transition", event.getStateTransition()));
+                if (circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+                    drainer.execute(() -> drain(partition));
+                }
+            });
+            Gauge.builder("orders.partition.parked", partition.parkedCount, AtomicInteger::get)
+                .description("Orders parked for an unhealthy partition")
+                .tag("partition", String.valueOf(i))
+                .register(meterRegistry);
+            partitions.add(partition);
+        }
+        
+        this.parkedCounter = Counter.builder("orders.parked")
+            .description("Orders parked because their partition was unhealthy")
+            .register(meterRegistry);
+        this.failFastCounter = Counter.builder("orders.failed.fast")
+            .description("Orders rejected because their partition was unhealthy")
+            .register(meterRegistry);
+        
+        // Safety net in case a drain trigger was missed while sends were parking
+        drainer.scheduleWithFixedDelay(() -> partitions.forEach(this::drain), 1, 1, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Partition the binder will pick for a key (mirrors DefaultPartitionSelector)
+     */
+    public int partitionFor(String partitionKey) {
+        int hashCode = Objects.hashCode(partitionKey);
+        if (hashCode == Integer.MIN_VALUE) {
+            hashCode = 0;
+        }
+        return Math.abs(hashCode) % partitions.size();
+    }
+    
+    /**
+     * Send through the partition's breaker; the send returns whether the
+     * binder accepted the message, and onDiscard runs if it was parked and
+     * then dropped on shutdown
+     */
+    public Result send(String partitionKey, BooleanSupplier send, Runnable onDiscard) {
+        if (!enabled) {
+            return send.getAsBoolean() ? Result.SENT : Result.REJECTED;
+        }
+        Partition partition = partitions.get(partitionFor(partitionKey));
+        
+        // Fast path: nothing parked ahead of this send
+        if (partition.parkedCount.get() == 0 && partition.circuitBreaker.tryAcquirePermission()) {
+            return attempt(partition, send) ? Result.SENT : Result.REJECTED;
+        }
+        
+        if (mode == Mode.FAIL_FAST || closed) {
+            failFastCounter.increment();
+            return Result.FAILED_FAST;
+        }
+        synchronized (partition) {
+            if (closed) {
+                failFastCounter.increment();
+                return Result.FAILED_FAST;
+            }
+            if (partition.parked.size() >= parkCapacity) {
+                failFastCounter.increment();
+                log.warn("⚠ Park queue full, rejecting order", kv("partition", partition.id));
+                return Result.FAILED_FAST;
+            }
+            partition.parked.addLast(new Parked(send, onDiscard));
+            partition.parkedCount.incrementAndGet();
+        }
+        parkedCounter.increment();
+        return Result.PARKED;
+    }
+    
+    /**
+     * Send parked orders in order while the breaker permits; stops at the
+     * first failure and leaves it at the head of the queue
+     */
+    private void drain(Partition partition) {
+        synchronized (partition) {
+            while (!partition.parked.isEmpty()) {
+                if (!partition.circuitBreaker.tryAcquirePermission()) {
+                    return;
+                }
+                boolean sent;
+                try {
+                    sent = attempt(partition, partition.parked.peekFirst().send());
+                } catch (RuntimeException e) {
+                    sent = false;
+                }
+                if (!sent) {
+                    return;
+                }
+                partition.parked.pollFirst();
+                partition.parkedCount.decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Count an async send failure reported after the hand-off against the
+     * key's partition; the hand-off itself was already counted as a call
+     */
+    public void recordFailure(String partitionKey, Throwable error) {
+        if (enabled) {
+            partitions.get(partitionFor(partitionKey)).circuitBreaker.onError(0, TimeUnit.NANOSECONDS, error);
+        }
+    }
+    
+    private static boolean attempt(Partition partition, BooleanSupplier send) {
+        long start = System.nanoTime();
+        try {
+            boolean sent = send.getAsBoolean();
+            long duration = System.nanoTime() - start;
+            if (sent) {
+                partition.circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+            } else {
+                partition.circuitBreaker.onError(duration, TimeUnit.NANOSECONDS,
+                    new IllegalStateException("Binder rejected send"));
+            }
+            return sent;
+        } catch (RuntimeException e) {
+            partition.circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("unhealthyMode", mode.name());
+        List<Map<String, Object>> perPartition = new ArrayList<>();
+        for (Partition partition : partitions) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("partition", partition.id);
+            entry.put("state", partition.circuitBreaker.getState().name());
+            entry.put("failureRate", partition.circuitBreaker.getMetrics().getFailureRate());
+            entry.put("parked", partition.parkedCount.get());
+            perPartition.add(entry);
+        }
+        stats.put("partitions", perPartition);
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        drainer.shutdownNow();
+        drainer.awaitTermination(5, TimeUnit.SECONDS);
+        
+        int discarded = 0;
+        for (Partition partition : partitions) {
+            List<Parked> remaining = new ArrayList<>();
+            synchronized (partition) {
+                // Last chance for partitions that have recovered
+                drain(partition);
+                remaining.addAll(partition.parked);
+                partition.parked.clear();
+                partition.parkedCount.set(0);
+            }
+            for (Parked parked : remaining) {
+                try {
+                    parked.onDiscard().run();
+                } catch (RuntimeException e) {
+                    log.warn("⚠ Discard callback threw", kv("partition", partition.id), e);
+                }
+            }
+            discarded += remaining.size();
+        }
+        if (discarded > 0) {
+            log.warn("⚠ Discarded parked orders on shutdown", kv("discarded", discarded));
+        }
+    }
+    
+    private record Parked(BooleanSupplier send, Runnable onDiscard) { }
+    
+    private static final class Partition {
+        private final int id;
+        private final CircuitBreaker circuitBreaker;
+        private final ArrayDeque<Parked> parked = new ArrayDeque<>();
+        private final AtomicInteger parkedCount = new AtomicInteger();
+        
+        private Partition(int id, CircuitBreaker circuitBreaker) {
+            this.id = id;
+            this.circuitBreaker = circuitBreaker;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.eventhub.producer.service;
+
+import com.example.eventhub.producer.model.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Publish Benchmark
+ * 
+ * Compares the original StreamBridge send path with the pre-bound path on
+ * this instance, reporting time and heap allocation per message:
+ * - Without sending: message construction and JSON conversion only, with
+ *   the conversion a POJO payload goes through in the binding (converted
+ *   per call) against the serialize-once payload. Destination resolution is
+ *   not part of this; it needs a real send.
+ * - With sending: the real StreamBridge.send (destination resolution,
+ *   conversion, send) against a send on the bound channel. Both go to the
+ *   dedicated publishBenchmark-out-0 binding (hub orders-benchmark), never
+ *   to the orders hub, so consumers and their sequence checks never see them.
+ * 
+ * Benchmark messages carry no customer sequence. Both paths of a run get
+ * the same warm-up before anything is measured (with sending, no more
+ * messages than a round, to keep the benchmark hub's load down), then are
+ * measured in several rounds, alternating which goes first, so neither
+ * always runs first (colder) or second (with the other's garbage to
+ * collect). Each path reports its median round, and the ns/message of
+ * every round. Single-threaded, so results are per core; run it on an
+ * otherwise idle instance.
+ */
+@Slf4j
+@Component
+public class PublishBenchmark {
+    
+    public static final String BINDING = "publishBenchmark-out-0";
+    
+    private static final int WARMUP = 20_000;
+    private static final int ROUNDS = 3;
+    
+    private final OrderPublisher publisher;
+    private final StreamBridge streamBridge;
+    private final MessageChannel benchmarkOutput;
+    
+    public PublishBenchmark(OrderPublisher publisher, StreamBridge streamBridge,
+                            @Qualifier(BINDING) MessageChannel benchmarkOutput) {
+        this.publisher = publisher;
+        this.streamBridge = streamBridge;
+        this.benchmarkOutput = benchmarkOutput;
+    }
+    
+    public Map<String, Object> run(int messages, boolean send) throws Exception {
+        OrderEvent[] orders = new OrderEvent[Math.min(messages, 1024)];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = OrderEvent.createSample(i + 1);
+        }
+        
+        // Keeps the built messages observable so the JIT cannot drop the work
+        long[] sink = new long[1];
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("messages", messages);
+        result.put("send", send);
+        if (send) {
+            result.put("destination", BINDING);
+            // Counted over warm-up and every round
+            long[] rejected = new long[2];
+            // Real sends: warm up with no more messages than are measured per round
+            result.putAll(compare(messages, Math.min(WARMUP, messages),
+                "streamBridge", i -> {
+                    OrderEvent order = orders[i % orders.length];
+                    Message<OrderEvent> message = publisher.builderMessage(order, order.getCustomerId(), null, null);
+                    if (!streamBridge.send(BINDING, message)) {
+                        rejected[0]++;
+                    }
+                },
+                "preBound", i -> {
+                    OrderEvent order = orders[i % orders.length];
+                    if (!benchmarkOutput.send(publisher.templateMessage(order, order.getCustomerId(), null, null))) {
+                        rejected[1]++;
+                    }
+                }));
+            result.put("rejected", Map.of("streamBridge", rejected[0], "preBound", rejected[1]));
+        } else {
+            result.putAll(compare(messages, WARMUP,
+                "perCallConversion", i -> {
+                    OrderEvent order = orders[i % orders.length];
+                    Message<OrderEvent> message = publisher.builderMessage(order, order.getCustomerId(), null, null);
+                    sink[0] += convertPerCall(message).getPayload().length;
+                },
+                "serializeOnce", i -> {
+                    OrderEvent order = orders[i % orders.length];
+                    sink[0] += publisher.templateMessage(order, order.getCustomerId(), null, null).getPayload().length;
+                }));
+        }
+        
+        log.info("Publish benchmark complete", kv("result", result), kv("payloadBytes", sink[0]));
+        return result;
+    }
+    
+    /**
+     * The conversion a POJO payload gets in the binding: convert it and
+     * rebuild the message with the converted payload and copied headers
+     */
+    private Message<byte[]> convertPerCall(Message<OrderEvent> message) throws Exception {
+        byte[] payload = publisher.convertPerCall(message.getPayload());
+        return MessageBuilder.withPayload(payload).copyHeaders(new HashMap<>(message.getHeaders())).build();
+    }
+    
+    /**
+     * Warm both steps up alike, then measure them in alternating order;
+     * each reports its median round
+     */
+    private static Map<String, Object> compare(int messages, int warmup, String nameA, Step a, String nameB, Step b)
+        throws Exception {
+        
+        for (int i = 0; i < warmup; i++) {
+            a.run(i);
+            b.run(i);
+        }
+        
+        List<Map<String, Object>> roundsA = new ArrayList<>();
+        List<Map<String, Object>> roundsB = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            if (round % 2 == 0) {
+                roundsA.add(measure(messages, a));
+                roundsB.add(measure(messages, b));
+            } else {
+                roundsB.add(measure(messages, b));
+                roundsA.add(measure(messages, a));
+            }
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(nameA, median(roundsA));
+        result.put(nameB, median(roundsB));
+        return result;
+    }
+    
+    private static Map<String, Object> median(List<Map<String, Object>> rounds) {
+        List<Map<String, Object>> sorted = new ArrayList<>(rounds);
+        sorted.sort(Comparator.comparingLong(stats -> (Long) stats.get("nsPerMessage")));
+        Map<String, Object> median = new LinkedHashMap<>(sorted.get(sorted.size() / 2));
+        median.put("nsPerMessageByRound", rounds.stream().map(stats -> stats.get("nsPerMessage")).toList());
+        return median;
+    }
+    
+    private static Map<String, Object> measure(int messages, Step step) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            step.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nsPerMessage", elapsed / Math.max(1, messages));
+        stats.put("messagesPerSec", Math.round(messages * 1e9 / Math.max(1, elapsed)));
+        stats.put("bytesAllocatedPerMessage", allocatedBefore < 0 ? -1 : allocated / Math.max(1, messages));
+        return stats;
+    }
+    
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads) {
+            return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+    
+    @FunctionalInterface
+    private interface Step {
+        void run(int i) throws Exception;
+    }
+}
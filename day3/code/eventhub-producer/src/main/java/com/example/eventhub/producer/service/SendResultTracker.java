@@ -0,0 +1,383 @@
+package com.example.eventhub.producer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Send Result Tracker
+ * 
+ * Follows each order from hand-off to the async binder until Event Hub
+ * acknowledges it or the send fails, keyed by messageId (the event ID):
+ * - Ack latency from hand-off to acknowledgement (orders.ack.latency)
+ * - Acknowledged and failed sends (orders.acked, orders.ack.failures)
+ * - Unacknowledged orders, including queued and parked ones (orders.unacked)
+ * 
+ * The number of unacknowledged orders is bounded by max-unacked; once it is
+ * reached, new orders wait up to admission-timeout and are then rejected.
+ * 
+ * The binder reports each send exactly once: failures on the binding's error
+ * channel, carrying the message (see {@link #failed(String, Throwable)}), and
+ * successes through its send callback, which does not say which message it
+ * was for (see {@link #acknowledgedNext()}). A success is therefore credited
+ * to the oldest order in flight, skipping orders in flight longer than
+ * slow-after while younger ones are waiting, since those are more likely to
+ * be timing out than acknowledged. Counts, the max-unacked bound and every
+ * failure are exact; if an order that was credited with a success fails
+ * after all (within failure-window), the credit moves to the next order in
+ * flight and the failed order's outcome is told so.
+ */
+@Slf4j
+@Component
+public class SendResultTracker {
+    
+    /**
+     * What happens to an order after hand-off; called at most once each,
+     * except that failed(error, true) may follow acknowledged() when the
+     * acknowledgement credited to the order was in fact another order's
+     */
+    public interface Outcome {
+        
+        Outcome NONE = new Outcome() { };
+        
+        default void acknowledged() {
+        }
+        
+        default void failed(Throwable error, boolean withdrawn) {
+        }
+        
+        /**
+         * An outcome that only runs onFailure when the order fails
+         */
+        static Outcome onFailure(Runnable onFailure) {
+            if (onFailure == null) {
+                return NONE;
+            }
+            return new Outcome() {
+                @Override
+                public void failed(Throwable error, boolean withdrawn) {
+                    onFailure.run();
+                }
+            };
+        }
+    }
+    
+    /**
+     * An order being tracked, returned by begin
+     */
+    public static final class Ticket {
+        private final String messageId;
+        private final Outcome outcome;
+        private long startedAt;
+        private State state = State.QUEUED;
+        
+        private Ticket(String messageId, Outcome outcome, long startedAt) {
+            this.messageId = messageId;
+            this.outcome = outcome;
+            this.startedAt = startedAt;
+        }
+    }
+    
+    private enum State { QUEUED, IN_FLIGHT, CREDITED, DONE }
+    
+    private final int maxUnacked;
+    private final long admissionTimeoutNanos;
+    private final long slowAfterNanos;
+    private final long failureWindowNanos;
+    private final int maxCredited;
+    private final Semaphore permits;
+    
+    // Guarded by this
+    private final Map<String, Ticket> byMessageId = new HashMap<>();
+    private final LinkedHashSet<Ticket> inFlight = new LinkedHashSet<>();
+    private final LinkedHashSet<Ticket> slow = new LinkedHashSet<>();
+    private final LinkedHashSet<Ticket> credited = new LinkedHashSet<>();
+    private int unacked;
+    private long unmatchedAcks;
+    
+    private final Timer ackLatency;
+    private final Counter ackedCounter;
+    private final Counter failureCounter;
+    private final Counter rejectedCounter;
+    
+    public SendResultTracker(
+        @Value("${eventhub.producer.acks.max-unacked:10000}") int maxUnacked,
+        @Value("${eventhub.producer.acks.admission-timeout:5s}") Duration admissionTimeout,
+        @Value("${eventhub.producer.acks.slow-after:5s}") Duration slowAfter,
+        @Value("${eventhub.producer.acks.failure-window:2m}") Duration failureWindow,
+        MeterRegistry meterRegistry) {
+        
+        this.maxUnacked = maxUnacked;
+        this.admissionTimeoutNanos = admissionTimeout.toNanos();
+        this.slowAfterNanos = slowAfter.toNanos();
+        this.failureWindowNanos = failureWindow.toNanos();
+        this.maxCredited = Math.max(1000, maxUnacked * 10);
+        this.permits = new Semaphore(maxUnacked);
+        
+        this.ackLatency = Timer.builder("orders.ack.latency")
+            .description("Time from hand-off to Event Hub acknowledgement")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.ackedCounter = Counter.builder("orders.acked")
+            .description("Orders acknowledged by Event Hub")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("orders.ack.failures")
+            .description("Orders accepted for sending but not acknowledged by Event Hub")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("orders.ack.rejected")
+            .description("Orders rejected because too many were unacknowledged")
+            .register(meterRegistry);
+        Gauge.builder("orders.unacked", this, SendResultTracker::getUnacked)
+            .description("Orders accepted for sending and awaiting acknowledgement")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Register an order before it is queued for sending, waiting while
+     * max-unacked orders are outstanding
+     * 
+     * @return the order's ticket, or null if no slot freed up within the
+     *         admission timeout
+     */
+    public Ticket begin(String messageId, Outcome outcome) throws InterruptedException {
+        if (!permits.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            rejectedCounter.increment();
+            log.warn("⚠ Too many unacknowledged orders, rejecting",
+                kv("messageId", messageId),
+                kv("maxUnacked", maxUnacked));
+            return null;
+        }
+        Ticket ticket = new Ticket(messageId, outcome != null ? outcome : Outcome.NONE, System.nanoTime());
+        synchronized (this) {
+            // A messageId already in flight keeps its first ticket for error channel lookups
+            byMessageId.putIfAbsent(messageId, ticket);
+            unacked++;
+        }
+        return ticket;
+    }
+    
+    /**
+     * The order is about to be handed to the binder; call before the send
+     * so that the binder's callback can never overtake it
+     */
+    public synchronized void handingOff(Ticket ticket) {
+        if (ticket.state == State.QUEUED) {
+            ticket.state = State.IN_FLIGHT;
+            ticket.startedAt = System.nanoTime();
+            inFlight.add(ticket);
+        }
+    }
+    
+    /**
+     * The binder did not take the order (e.g. a parked order whose retry
+     * failed); it is queued again and expects no callback
+     */
+    public synchronized void handOffFailed(Ticket ticket) {
+        if (ticket.state == State.IN_FLIGHT) {
+            inFlight.remove(ticket);
+            slow.remove(ticket);
+            ticket.state = State.QUEUED;
+        }
+    }
+    
+    /**
+     * The binder's send callback reported a success
+     */
+    public void acknowledgedNext() {
+        ackedCounter.increment();
+        Ticket ticket;
+        synchronized (this) {
+            ticket = creditNext();
+            if (ticket == null) {
+                unmatchedAcks++;
+                return;
+            }
+        }
+        settled(ticket);
+    }
+    
+    /**
+     * An order's send failed before or after hand-off
+     */
+    public void failed(Ticket ticket, Throwable error) {
+        fail(ticket, error);
+    }
+    
+    /**
+     * The binder's error channel reported a failed send for a messageId
+     */
+    public void failed(String messageId, Throwable error) {
+        Ticket ticket;
+        synchronized (this) {
+            ticket = byMessageId.get(messageId);
+        }
+        if (ticket == null) {
+            // Credited with a success and already out of the failure window
+            failureCounter.increment();
+            Ticket standIn;
+            synchronized (this) {
+                standIn = creditNext();
+            }
+            if (standIn != null) {
+                settled(standIn);
+            }
+            log.error("✗ Order not acknowledged, too late to tell its sender",
+                kv("messageId", messageId),
+                kv("error", describe(error)));
+            return;
+        }
+        fail(ticket, error);
+    }
+    
+    private void fail(Ticket ticket, Throwable error) {
+        State previous;
+        Ticket standIn = null;
+        synchronized (this) {
+            previous = ticket.state;
+            switch (previous) {
+                case DONE -> {
+                    return;
+                }
+                case CREDITED -> {
+                    // Its success was another order's; hand it on
+                    credited.remove(ticket);
+                    standIn = creditNext();
+                }
+                default -> {
+                    inFlight.remove(ticket);
+                    slow.remove(ticket);
+                    unacked--;
+                }
+            }
+            ticket.state = State.DONE;
+            byMessageId.remove(ticket.messageId, ticket);
+        }
+        
+        failureCounter.increment();
+        if (previous != State.CREDITED) {
+            permits.release();
+        }
+        log.error("✗ Order not acknowledged",
+            kv("messageId", ticket.messageId),
+            kv("afterMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ticket.startedAt)),
+            kv("error", describe(error)));
+        if (standIn != null) {
+            settled(standIn);
+        }
+        try {
+            ticket.outcome.failed(error, previous == State.CREDITED);
+        } catch (RuntimeException e) {
+            log.warn("⚠ Failure callback threw", kv("messageId", ticket.messageId), e);
+        }
+    }
+    
+    /**
+     * Credit a success to the oldest order in flight, passing over slow ones
+     * while younger orders wait; caller holds the lock
+     */
+    private Ticket creditNext() {
+        long now = System.nanoTime();
+        Iterator<Ticket> oldest = inFlight.iterator();
+        while (oldest.hasNext()) {
+            Ticket ticket = oldest.next();
+            if (now - ticket.startedAt < slowAfterNanos) {
+                break;
+            }
+            oldest.remove();
+            slow.add(ticket);
+        }
+        
+        Ticket ticket = poll(inFlight.isEmpty() ? slow : inFlight);
+        if (ticket == null) {
+            return null;
+        }
+        ticket.state = State.CREDITED;
+        credited.add(ticket);
+        unacked--;
+        
+        // Credited orders stay findable by messageId for late failures
+        Iterator<Ticket> expired = credited.iterator();
+        while (expired.hasNext()) {
+            Ticket old = expired.next();
+            if (credited.size() <= maxCredited && now - old.startedAt < failureWindowNanos) {
+                break;
+            }
+            expired.remove();
+            old.state = State.DONE;
+            byMessageId.remove(old.messageId, old);
+        }
+        return ticket;
+    }
+    
+    private static Ticket poll(LinkedHashSet<Ticket> tickets) {
+        Iterator<Ticket> it = tickets.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Ticket ticket = it.next();
+        it.remove();
+        return ticket;
+    }
+    
+    private void settled(Ticket ticket) {
+        permits.release();
+        ackLatency.record(System.nanoTime() - ticket.startedAt, TimeUnit.NANOSECONDS);
+        try {
+            ticket.outcome.acknowledged();
+        } catch (RuntimeException e) {
+            log.warn("⚠ Acknowledgement callback threw", kv("messageId", ticket.messageId), e);
+        }
+    }
+    
+    private static String describe(Throwable error) {
+        return error == null ? "rejected" : error.getMessage();
+    }
+    
+    public synchronized int getUnacked() {
+        return unacked;
+    }
+    
+    public Map<String, Object> getStats() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        int inFlightCount;
+        long unmatched;
+        synchronized (this) {
+            for (Ticket ticket : byMessageId.values()) {
+                if (ticket.state == State.QUEUED || ticket.state == State.IN_FLIGHT) {
+                    oldest = Math.max(oldest, now - ticket.startedAt);
+                }
+            }
+            inFlightCount = inFlight.size() + slow.size();
+            unmatched = unmatchedAcks;
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("unacked", getUnacked());
+        stats.put("inFlight", inFlightCount);
+        stats.put("maxUnacked", maxUnacked);
+        stats.put("oldestUnackedMs", TimeUnit.NANOSECONDS.toMillis(oldest));
+        stats.put("acked", (long) ackedCounter.count());
+        stats.put("unmatchedAcks", unmatched);
+        stats.put("failures", (long) failureCounter.count());
+        stats.put("rejected", (long) rejectedCounter.count());
+        stats.put("meanAckLatencyMs", ackLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxAckLatencyMs", ackLatency.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.resilience.async;
+
+import com.example.resilience.ratelimit.TierRateLimiter;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls off the request thread, isolated per dependency
+ *
+ * Each call is decorated, from the outside in, with:
+ * 1. RateLimiter (optional) - rejects when over the limit; a rate limiter
+ *    tier first waits briefly for a permit (see TieredRateLimiterRegistry),
+ *    without holding the calling thread: the call starts on the tier's
+ *    dispatcher once the permit is granted
+ * 2. CircuitBreaker - short-circuits while open; sees timeouts as failures
+ * 3. TimeLimiter (named after the dependency) - fails the call on schedule
+ * 4. ThreadPoolBulkhead (named after the dependency) - runs the call in the
+ *    dependency's own pool, so a slow dependency only exhausts its own threads
+ *
+ * When the time limiter fires, the worker thread running the call is
+ * interrupted, so a timed-out call stops and frees its bulkhead slot instead
+ * of running to completion in the background. (Cancelling the bulkhead's
+ * CompletableFuture alone would not interrupt it.) Cancelling the returned
+ * future interrupts the worker the same way, and the call then ends with a
+ * CancellationException, which circuit breakers should ignore.
+ *
+ * Bulkhead pool and queue usage and time limiter outcomes are published by
+ * resilience4j-micrometer (resilience4j.bulkhead.*, resilience4j.timelimiter.*)
+ * and visible at /actuator/bulkheads and /actuator/timelimiters. Outcomes per
+ * dependency are also counted as async.calls{dependency,outcome}.
+ */
+@Component
+public class AsyncResilienceExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncResilienceExecutor.class);
+
+    private final ThreadPoolBulkheadRegistry bulkheadRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final ScheduledExecutorService resilienceScheduler;
+    private final MeterRegistry meterRegistry;
+
+    public AsyncResilienceExecutor(ThreadPoolBulkheadRegistry bulkheadRegistry,
+                                   TimeLimiterRegistry timeLimiterRegistry,
+                                   CircuitBreakerRegistry circuitBreakerRegistry,
+                                   RateLimiterRegistry rateLimiterRegistry,
+                                   ScheduledExecutorService resilienceScheduler,
+                                   MeterRegistry meterRegistry) {
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.resilienceScheduler = resilienceScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run a call in the dependency's bulkhead with its time limit, behind a circuit breaker
+     */
+    public <T> CompletableFuture<T> execute(String dependency, String circuitBreakerName, Callable<T> call) {
+        return execute(dependency, circuitBreakerName, null, call);
+    }
+
+    /**
+     * Same as above, behind a rate limiter as well (null for none)
+     */
+    public <T> CompletableFuture<T> execute(String dependency, String circuitBreakerName,
+                                            String rateLimiterName, Callable<T> call) {
+        ThreadPoolBulkhead bulkhead = bulkheadRegistry.bulkhead(dependency);
+        TimeLimiter timeLimiter = timeLimiterRegistry.timeLimiter(dependency);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(circuitBreakerName);
+
+        Worker worker = new Worker();
+        Supplier<CompletionStage<T>> decorated = () -> timeLimiter.executeCompletionStage(
+            resilienceScheduler, () -> submitInterruptibly(dependency, bulkhead, worker, call));
+        decorated = CircuitBreaker.decorateCompletionStage(circuitBreaker, decorated);
+        if (rateLimiterName != null) {
+            RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(rateLimiterName);
+            decorated = rateLimiter instanceof TierRateLimiter tier
+                ? tier.decorateCompletionStage(decorated)
+                : RateLimiter.decorateCompletionStage(rateLimiter, decorated);
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = decorated.get().toCompletableFuture();
+        } catch (BulkheadFullException | CallNotPermittedException | RequestNotPermitted e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        // Recorded on the call's own future: a cancelled copy skips its dependents
+        result.whenComplete((value, error) -> record(dependency, error));
+        CompletableFuture<T> outcome = result.copy();
+        outcome.whenComplete((value, error) -> {
+            if (error instanceof CancellationException && worker.cancel()) {
+                logger.debug("Interrupted cancelled {} call", dependency);
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * Submit to the bulkhead and interrupt the worker if the returned future
+     * is completed (timed out) before the call finishes
+     */
+    private <T> CompletableFuture<T> submitInterruptibly(String dependency, ThreadPoolBulkhead bulkhead,
+                                                        Worker worker, Callable<T> call) {
+        CompletableFuture<T> future = bulkhead.submit(() -> {
+            worker.started();
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (worker.isCancelled()) {
+                    throw new CancellationException("Cancelled by the caller");
+                }
+                throw e;
+            } finally {
+                worker.finished();
+            }
+        }).toCompletableFuture();
+
+        future.whenComplete((value, error) -> {
+            if (unwrap(error) instanceof TimeoutException) {
+                if (worker.cancel()) {
+                    logger.warn("Interrupted {} call after its time limit", dependency);
+                }
+            }
+        });
+        return future;
+    }
+
+    private void record(String dependency, Throwable error) {
+        Throwable cause = unwrap(error);
+        String outcome;
+        if (cause == null) {
+            outcome = "success";
+        } else if (cause instanceof TimeoutException) {
+            outcome = "timeout";
+        } else if (cause instanceof BulkheadFullException) {
+            outcome = "rejected";
+        } else if (cause instanceof CallNotPermittedException) {
+            outcome = "short_circuited";
+        } else if (cause instanceof RequestNotPermitted) {
+            outcome = "rate_limited";
+        } else if (cause instanceof CancellationException) {
+            outcome = "cancelled";
+        } else {
+            outcome = "failure";
+        }
+        meterRegistry.counter("async.calls", "dependency", dependency, "outcome", outcome).increment();
+    }
+
+    /**
+     * The exception behind a failed future's wrappers
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * The thread running a call, so a timeout can interrupt exactly that call
+     * and never whatever the pool thread runs next
+     */
+    private static final class Worker {
+        private Thread thread;
+        private boolean cancelled;
+
+        private synchronized void started() {
+            if (cancelled) {
+                throw new CancellationException("Timed out before it started");
+            }
+            thread = Thread.currentThread();
+        }
+
+        private void finished() {
+            synchronized (this) {
+                thread = null;
+            }
+            // Clear an interrupt that arrived after the call returned
+            Thread.interrupted();
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized boolean cancel() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.resilience.async;
+
+import com.example.resilience.retry.BudgetedRetry;
+import com.example.resilience.retry.RetryBudgetRegistry;
+import io.github.resilience4j.core.IntervalBiFunction;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries without parking a thread during back-off
+ *
+ * Back-off waits are timers on the shared resilience scheduler: a failed
+ * attempt schedules the next one and returns, and the caller's future
+ * completes when an attempt succeeds or the attempts run out. Nothing is
+ * blocked in between, so a retrying request costs no request thread.
+ *
+ * Each async retry uses the configured resilience4j retry instance of the
+ * same name (max attempts, retry/ignore exceptions, back-off curve) with
+ * full jitter applied: every wait is drawn uniformly from zero up to the
+ * configured back-off for that attempt, so callers that failed together
+ * do not retry together. The instances are registered as "<name>-async",
+ * so their metrics appear separately under /actuator/retries; they draw
+ * from the retry budget of the instance they derive from.
+ */
+@Component
+public class AsyncRetryExecutor {
+
+    private final RetryRegistry retryRegistry;
+    private final RetryBudgetRegistry retryBudgets;
+    private final ScheduledExecutorService resilienceScheduler;
+
+    public AsyncRetryExecutor(RetryRegistry retryRegistry, RetryBudgetRegistry retryBudgets,
+                              ScheduledExecutorService resilienceScheduler) {
+        this.retryRegistry = retryRegistry;
+        this.retryBudgets = retryBudgets;
+        this.resilienceScheduler = resilienceScheduler;
+    }
+
+    /**
+     * Retry a non-blocking call; each attempt runs on the calling thread
+     * (the first) or a scheduler thread (retries), so it must not block
+     */
+    public <T> CompletableFuture<T> execute(String retryName, Callable<T> attempt) {
+        return executeStage(retryName, () -> {
+            try {
+                return CompletableFuture.completedFuture(attempt.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    /**
+     * Retry an asynchronous call; a new stage is requested for every attempt
+     */
+    public <T> CompletableFuture<T> executeStage(String retryName, Supplier<CompletionStage<T>> attempt) {
+        return asyncRetry(retryName)
+            .executeCompletionStage(resilienceScheduler, attempt)
+            .toCompletableFuture();
+    }
+
+    private Retry asyncRetry(String retryName) {
+        String name = retryName + "-async";
+        return retryRegistry.find(name)
+            .filter(BudgetedRetry.class::isInstance)
+            .orElseGet(() -> retryBudgets.retry(name, retryName,
+                withFullJitter(retryRegistry.retry(retryName).getRetryConfig())));
+    }
+
+    private static RetryConfig withFullJitter(RetryConfig config) {
+        IntervalBiFunction<Object> backoff = config.getIntervalBiFunction();
+        IntervalBiFunction<Object> fullJitter = (attempt, result) -> {
+            long cap = backoff.apply(attempt, result);
+            return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        };
+        return RetryConfig.from(config)
+            .intervalFunction(null)
+            .intervalBiFunction(fullJitter)
+            .build();
+    }
+}
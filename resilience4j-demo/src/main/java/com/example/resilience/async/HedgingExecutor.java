@@ -0,0 +1,251 @@
+package com.example.resilience.async;
+
+import com.example.resilience.config.HedgingProperties;
+import com.example.resilience.config.RetryBudgetProperties;
+import com.example.resilience.retry.RetryBudget;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent calls
+ *
+ * A call starts one attempt. If that attempt has not answered by the
+ * dependency's observed latency percentile (p95 by default), a second,
+ * identical attempt is sent; the first answer wins and the other attempt is
+ * cancelled. A slow outlier then costs about p95 plus a normal call instead
+ * of the full tail. An attempt that fails does not trigger a hedge - that is
+ * what retries are for - but a hedge already sent may still answer.
+ *
+ * Only use this for calls that are safe to make twice.
+ *
+ * Hedges are paid for from a token bucket (the RetryBudget used for
+ * retries): every call earns maxHedgeRatio of a token, so when a dependency
+ * slows down as a whole, hedging stops at that ratio instead of doubling its
+ * load. Latencies of every attempt feed the percentile, including cancelled
+ * ones up to their cancellation, so hedging does not hide the tail it cuts.
+ *
+ * Metrics, per hedge name:
+ * - hedge.latency{name} - attempt latency, with the hedge percentile
+ * - hedge.delay{name} - current wait before hedging (0 while warming up)
+ * - hedge.calls / hedge.sent / hedge.won {name} - calls, hedges sent, and
+ *   calls answered by the hedge (hedge rate = sent/calls, win rate = won/sent)
+ * - hedge.rejected{name} - hedges the budget refused
+ *
+ * The hedge is started from a scheduler thread, so the caller's context
+ * (the current Observation, and with it the trace) is captured when the call
+ * starts and restored around the hedge; both attempts then belong to the
+ * caller's trace.
+ */
+@Component
+@EnableConfigurationProperties(HedgingProperties.class)
+public class HedgingExecutor {
+
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HedgingProperties properties;
+    private final ScheduledExecutorService resilienceScheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    public HedgingExecutor(HedgingProperties properties, ScheduledExecutorService resilienceScheduler,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.resilienceScheduler = resilienceScheduler;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run an idempotent call, hedged after the named dependency's percentile
+     * latency; each attempt must return a new future that stops its work
+     * when cancelled
+     */
+    public <T> CompletableFuture<T> execute(String name, Supplier<CompletableFuture<T>> attempt) {
+        Hedge hedge = hedges.computeIfAbsent(name, this::createHedge);
+        hedge.calls.increment();
+        hedge.budget.deposit();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        start(hedge, attempt, attempts, running, result, false);
+
+        long delay = hedge.delayNanos();
+        if (delay > 0) {
+            ContextSnapshot context = snapshotFactory.captureAll();
+            ScheduledFuture<?> timer = resilienceScheduler.schedule(context.wrap(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                if (!hedge.budget.tryWithdraw()) {
+                    hedge.rejected.increment();
+                    return;
+                }
+                // Only hedge while the first attempt is still running
+                if (running.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                    return;
+                }
+                hedge.sent.increment();
+                start(hedge, attempt, attempts, running, result, true);
+            }), delay, TimeUnit.NANOSECONDS);
+            result.whenComplete((value, error) -> timer.cancel(false));
+        }
+
+        // Cancel the loser, or both attempts if the caller cancels
+        result.whenComplete((value, error) -> attempts.forEach(future -> future.cancel(true)));
+        return result;
+    }
+
+    private <T> void start(Hedge hedge, Supplier<CompletableFuture<T>> attempt, List<CompletableFuture<T>> attempts,
+                           AtomicInteger running, CompletableFuture<T> result, boolean isHedge) {
+        long started = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        attempts.add(future);
+        if (result.isDone()) {
+            future.cancel(true);
+        }
+
+        future.whenComplete((value, error) -> {
+            hedge.latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (error == null) {
+                if (result.complete(value) && isHedge) {
+                    hedge.won.increment();
+                }
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private Hedge createHedge(String name) {
+        HedgingProperties.Instance config = properties.forInstance(name);
+        RetryBudgetProperties.Budget budget = new RetryBudgetProperties.Budget();
+        budget.setDepositRatio(config.getMaxHedgeRatio());
+        budget.setMaxTokens(config.getMaxBurst());
+        budget.setMinRetriesPerSecond(0.0);
+
+        Hedge hedge = new Hedge(config,
+            new RetryBudget(budget),
+            Timer.builder("hedge.latency")
+                .description("Latency of hedged call attempts")
+                .tag("name", name)
+                .publishPercentiles(config.getPercentile())
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry),
+            counter("hedge.calls", "Calls that could be hedged", name),
+            counter("hedge.sent", "Hedges sent", name),
+            counter("hedge.won", "Calls answered by the hedge", name),
+            counter("hedge.rejected", "Hedges refused by the hedge budget", name));
+        Gauge.builder("hedge.delay", hedge, h -> h.delayNanos / 1e6)
+            .description("Wait before a hedge is sent")
+            .tag("name", name)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        return hedge;
+    }
+
+    private Counter counter(String meter, String description, String name) {
+        return Counter.builder(meter)
+            .description(description)
+            .tag("name", name)
+            .register(meterRegistry);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        hedges.forEach((name, hedge) -> {
+            double calls = hedge.calls.count();
+            double sent = hedge.sent.count();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hedgeDelayMs", Math.round(hedge.delayNanos / 1e5) / 10.0);
+            entry.put("calls", (long) calls);
+            entry.put("hedgesSent", (long) sent);
+            entry.put("hedgesWon", (long) hedge.won.count());
+            entry.put("hedgesRejected", (long) hedge.rejected.count());
+            entry.put("hedgeRate", calls == 0 ? 0 : Math.round(sent / calls * 1000) / 1000.0);
+            entry.put("winRate", sent == 0 ? 0 : Math.round(hedge.won.count() / sent * 1000) / 1000.0);
+            stats.put(name, entry);
+        });
+        return stats;
+    }
+
+    private static final class Hedge {
+        private final HedgingProperties.Instance config;
+        private final RetryBudget budget;
+        private final Timer latency;
+        private final Counter calls;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter rejected;
+        private volatile long delayNanos;
+        private volatile long delayComputedAt = System.nanoTime() - DELAY_REFRESH_NANOS;
+
+        private Hedge(HedgingProperties.Instance config, RetryBudget budget, Timer latency,
+                      Counter calls, Counter sent, Counter won, Counter rejected) {
+            this.config = config;
+            this.budget = budget;
+            this.latency = latency;
+            this.calls = calls;
+            this.sent = sent;
+            this.won = won;
+            this.rejected = rejected;
+        }
+
+        /**
+         * The percentile latency within the configured bounds, refreshed
+         * at most once a second; 0 (no hedging) until enough samples
+         */
+        private long delayNanos() {
+            long now = System.nanoTime();
+            if (now - delayComputedAt >= DELAY_REFRESH_NANOS) {
+                delayComputedAt = now;
+                delayNanos = computeDelay();
+            }
+            return delayNanos;
+        }
+
+        private long computeDelay() {
+            if (latency.count() < config.getMinSamples()) {
+                return 0;
+            }
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                if (value.percentile() == config.getPercentile()) {
+                    long percentile = (long) value.value(TimeUnit.NANOSECONDS);
+                    if (percentile <= 0) {
+                        // No calls within the statistics window
+                        return 0;
+                    }
+                    return Math.max(config.getMinDelay().toNanos(),
+                        Math.min(config.getMaxDelay().toNanos(), percentile));
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.resilience.cache;
+
+import com.example.resilience.config.FallbackCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Last good responses of protected reads, for fallbacks to serve while stale
+ *
+ * A successful call stores its response under its method and arguments. When
+ * a later call with the same key falls back (circuit open, failure, timeout),
+ * the fallback can answer with the stored response at cache speed instead of
+ * a generic "unavailable" message, and a refresh of that key is started in
+ * the background (stale-while-revalidate). Refreshes should go through the
+ * same circuit breaker as the call: while it is open they fail fast, and once
+ * it lets calls through again a successful refresh replaces the entry.
+ *
+ * A key is refreshed at most once per refresh-interval. Entries are dropped
+ * ttl after they were stored, and the least used ones first beyond max-size.
+ * Only use this for reads, where an older answer is better than none.
+ *
+ * Metrics: cache.gets{cache=fallbackResponses,result=hit|miss} (stale
+ * responses served, fallbacks with nothing to serve), cache.size,
+ * cache.evictions, and fallback.cache.refreshes{outcome=success|failure|rejected}.
+ */
+@Component
+@EnableConfigurationProperties(FallbackCacheProperties.class)
+public class StaleResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleResponseCache.class);
+
+    private static final int REFRESH_QUEUE_SIZE = 100;
+
+    private final FallbackCacheProperties properties;
+    private final Cache<Key, Entry> cache;
+    private final ThreadPoolExecutor refresher;
+    private final Counter refreshed;
+    private final Counter refreshFailed;
+    private final Counter refreshRejected;
+
+    public StaleResponseCache(FallbackCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxSize())
+            .expireAfterWrite(properties.getTtl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fallbackResponses");
+
+        this.refreshed = meterRegistry.counter("fallback.cache.refreshes", "outcome", "success");
+        this.refreshFailed = meterRegistry.counter("fallback.cache.refreshes", "outcome", "failure");
+        this.refreshRejected = meterRegistry.counter("fallback.cache.refreshes", "outcome", "rejected");
+
+        AtomicInteger counter = new AtomicInteger();
+        int threads = properties.getRefreshThreads();
+        this.refresher = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE),
+            r -> {
+                Thread thread = new Thread(r, "fallback-cache-refresh-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            (task, executor) -> refreshRejected.increment());
+    }
+
+    /**
+     * Cache key of a call: the method and its arguments
+     */
+    public static Key key(String method, Object... args) {
+        return new Key(method, Arrays.asList(args.clone()));
+    }
+
+    /**
+     * Store the response of a successful call, replacing an older one
+     */
+    public <T> T put(Key key, T value) {
+        if (properties.isEnabled() && value != null) {
+            cache.put(key, new Entry(value, System.nanoTime()));
+        }
+        return value;
+    }
+
+    /**
+     * The last good response for the key, if any, and start a background
+     * refresh unless one ran within the refresh interval
+     */
+    public <T> Optional<Stale<T>> getStale(Key key, Class<T> type, Supplier<? extends T> refresh) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || !type.isInstance(entry.value)) {
+            return Optional.empty();
+        }
+
+        long now = System.nanoTime();
+        long next = entry.nextRefreshAt.get();
+        if (now - next >= 0
+            && entry.nextRefreshAt.compareAndSet(next, now + properties.getRefreshInterval().toNanos())) {
+            refresher.execute(() -> refresh(key, refresh));
+        }
+        return Optional.of(new Stale<>(type.cast(entry.value), Duration.ofNanos(now - entry.storedAt)));
+    }
+
+    private void refresh(Key key, Supplier<?> refresh) {
+        try {
+            put(key, refresh.get());
+            refreshed.increment();
+            logger.info("Refreshed cached {} response", key.method());
+        } catch (RuntimeException e) {
+            refreshFailed.increment();
+            logger.debug("Refreshing cached {} response failed: {}", key.method(), e.toString());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("size", cache.estimatedSize());
+        stats.put("staleServed", cache.stats().hitCount());
+        stats.put("nothingCached", cache.stats().missCount());
+        stats.put("evictions", cache.stats().evictionCount());
+        stats.put("refreshes", (long) refreshed.count());
+        stats.put("refreshFailures", (long) refreshFailed.count());
+        stats.put("refreshesRejected", (long) refreshRejected.count());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public record Key(String method, List<Object> args) {
+    }
+
+    /**
+     * A cached response and how long ago it was stored
+     */
+    public record Stale<T>(T value, Duration age) {
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long storedAt;
+        private final AtomicLong nextRefreshAt;
+
+        private Entry(Object value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.nextRefreshAt = new AtomicLong(storedAt);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.resilience.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical concurrent calls
+ *
+ * The first call for a name and key (the leader) runs; calls with the same
+ * name and key that arrive while it is in flight (followers) wait for it and
+ * share its result or exception. Once it completes, the next call runs again:
+ * nothing is cached. Only use this for idempotent calls whose result does not
+ * depend on who asked.
+ *
+ * Cancelling a follower's future does not cancel the shared call.
+ *
+ * Metrics, per name:
+ * - coalesce.calls{name,role=leader|follower} - calls that ran, calls that shared
+ * - coalesce.ratio{name} - share of calls that were coalesced (followers / calls)
+ */
+@Component
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Flights> flights = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run a blocking call, or wait for the identical one in flight
+     */
+    public <T> T execute(String name, Object key, Supplier<T> call) {
+        try {
+            return coalesce(name, key, call::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Start an async call, or share the identical one in flight
+     */
+    public <T> CompletableFuture<T> executeAsync(String name, Object key, Supplier<CompletableFuture<T>> call) {
+        Flights group = flights.computeIfAbsent(name, this::createFlights);
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<T> inFlight = group.join(key, flight);
+        if (inFlight != null) {
+            return inFlight.copy();
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            // Done before completing, so callers woken by it start a new flight
+            group.inFlight.remove(key, flight);
+            if (error == null) {
+                flight.complete(value);
+            } else {
+                flight.completeExceptionally(error);
+            }
+        });
+        return flight.copy();
+    }
+
+    /**
+     * Blocking single flight for calls that may throw anything (used by the aspect)
+     */
+    <T> T coalesce(String name, Object key, Call<T> call) throws Throwable {
+        Flights group = flights.computeIfAbsent(name, this::createFlights);
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<T> inFlight = group.join(key, flight);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        }
+
+        try {
+            T value = call.call();
+            group.inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            group.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Flights createFlights(String name) {
+        Flights group = new Flights(
+            Counter.builder("coalesce.calls")
+                .description("Calls that ran (leader) or shared a call in flight (follower)")
+                .tag("name", name)
+                .tag("role", "leader")
+                .register(meterRegistry),
+            Counter.builder("coalesce.calls")
+                .description("Calls that ran (leader) or shared a call in flight (follower)")
+                .tag("name", name)
+                .tag("role", "follower")
+                .register(meterRegistry));
+        Gauge.builder("coalesce.ratio", group, Flights::ratio)
+            .description("Share of calls that were coalesced into a call in flight")
+            .tag("name", name)
+            .register(meterRegistry);
+        return group;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        flights.forEach((name, group) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("executed", (long) group.leaders.count());
+            entry.put("coalesced", (long) group.followers.count());
+            entry.put("coalescingRatio", Math.round(group.ratio() * 1000) / 1000.0);
+            entry.put("inFlight", group.inFlight.size());
+            stats.put(name, entry);
+        });
+        return stats;
+    }
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws Throwable;
+    }
+
+    private static final class Flights {
+        private final Map<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+        private final Counter leaders;
+        private final Counter followers;
+
+        private Flights(Counter leaders, Counter followers) {
+            this.leaders = leaders;
+            this.followers = followers;
+        }
+
+        /**
+         * Register the flight for the key, or return the one already in flight
+         */
+        @SuppressWarnings("unchecked")
+        private <T> CompletableFuture<T> join(Object key, CompletableFuture<T> flight) {
+            CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, flight);
+            (existing == null ? leaders : followers).increment();
+            return existing;
+        }
+
+        private double ratio() {
+            double leaderCount = leaders.count();
+            double followerCount = followers.count();
+            double total = leaderCount + followerCount;
+            return total == 0 ? 0 : followerCount / total;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.resilience.coalesce;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an idempotent method whose identical concurrent calls share one execution
+ *
+ * Calls with equal arguments that overlap wait for the first one and get its
+ * result (or exception) instead of running again. The coalescing happens
+ * outside the method's resilience4j annotations, so the shared execution is
+ * counted once by its circuit breaker, rate limiter and retry.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+
+    /** Name for metrics; defaults to Class.method */
+    String name() default "";
+}
@@ -0,0 +1,40 @@
+package com.example.resilience.coalesce;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Coalesces identical concurrent calls of @SingleFlight methods
+ *
+ * Ordered before the resilience4j aspects (retry, the outermost of them,
+ * defaults to LOWEST_PRECEDENCE - 4), so it runs outside them: followers
+ * never reach the circuit breaker, rate limiter or retry, and share the
+ * result including any fallback.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class SingleFlightAspect {
+
+    private final RequestCoalescer coalescer;
+
+    public SingleFlightAspect(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @Around("@annotation(singleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, SingleFlight singleFlight) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String name = singleFlight.name().isEmpty()
+            ? signature.getDeclaringType().getSimpleName() + "." + signature.getName()
+            : singleFlight.name();
+        return coalescer.coalesce(name, Arrays.asList(joinPoint.getArgs()), joinPoint::proceed);
+    }
+}
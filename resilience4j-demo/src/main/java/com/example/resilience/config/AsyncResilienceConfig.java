@@ -0,0 +1,29 @@
+package com.example.resilience.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AsyncResilienceConfig {
+
+    /**
+     * Scheduler for time limiter timeouts and retry back-off of async calls
+     * Only fires timers - the calls themselves run in their bulkhead's pool
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService resilienceScheduler(
+        @Value("${async-resilience.scheduler-threads:2}") int threads) {
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newScheduledThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "resilience-scheduler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cluster rate limiting settings (cluster-ratelimit.*)
+ *
+ * When enabled, replicas gossip with each other and split each listed
+ * limiter's configured limit between the live replicas, so the configured
+ * limit holds for the whole cluster instead of for every replica.
+ */
+@Data
+@ConfigurationProperties(prefix = "cluster-ratelimit")
+public class ClusterRateLimitProperties {
+
+    private boolean enabled = false;
+
+    /** This replica's ID; defaults to a random one per start */
+    private String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    /** Static peer base URLs, e.g. http://localhost:8081 */
+    private List<String> peers = new ArrayList<>();
+
+    /** host:port resolved to all peer addresses each round, e.g. a headless service */
+    private String peerDns;
+
+    private Duration gossipInterval = Duration.ofSeconds(1);
+
+    /** A peer not heard from for this long is no longer counted */
+    private Duration memberTtl = Duration.ofSeconds(5);
+
+    private Duration requestTimeout = Duration.ofMillis(500);
+
+    /** Shared secret replicas send with their gossip; gossip without it is refused, and all of it while unset */
+    private String secret;
+
+    /** Most peers counted at once; gossip from further node IDs is ignored until some expire */
+    private int maxMembers = 32;
+
+    /** Resilience4j rate limiters whose limit is shared, split by each replica's demand */
+    private List<String> limiters = new ArrayList<>();
+
+    /** Keyed rate limiters whose per-key limit is split evenly between replicas */
+    private List<String> keyedLimiters = new ArrayList<>();
+}
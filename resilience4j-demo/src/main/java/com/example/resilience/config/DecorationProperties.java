@@ -0,0 +1,41 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How each service's resilience4j calls are decorated (resilience-decoration.*)
+ *
+ * annotation - through the Spring AOP proxies of @CircuitBreaker, @Retry and
+ * @RateLimiter; functional - through Decorators chains the service builds once
+ * at startup, with the same instances, order and fallbacks.
+ */
+@Data
+@ConfigurationProperties(prefix = "resilience-decoration")
+public class DecorationProperties {
+
+    /** Mode of services not listed under services */
+    private Mode defaultMode = Mode.ANNOTATION;
+
+    /** Mode per service bean name, e.g. rateLimiterService: functional */
+    private Map<String, Mode> services = new LinkedHashMap<>();
+
+    public Mode modeOf(String service) {
+        return services.getOrDefault(service, defaultMode);
+    }
+
+    /**
+     * The annotated or the functional variant of an operation, by the service's mode
+     */
+    public <T> T select(String service, T annotated, T functional) {
+        return modeOf(service) == Mode.FUNCTIONAL ? functional : annotated;
+    }
+
+    public enum Mode {
+        ANNOTATION,
+        FUNCTIONAL
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cache of last good responses served by fallbacks (fallback-cache.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "fallback-cache")
+public class FallbackCacheProperties {
+
+    /** When off, fallbacks answer without cached data */
+    private boolean enabled = true;
+
+    /** Responses kept, over all methods and arguments */
+    private long maxSize = 1000;
+
+    /** How long after a successful call its response may still be served */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /** Shortest time between background refreshes of one response */
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    /** Threads running background refreshes */
+    private int refreshThreads = 2;
+}
@@ -0,0 +1,74 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hedged request settings (hedging.*)
+ *
+ * Each setting an instance leaves out (or every setting, for instances not
+ * listed) falls back to the one under defaults, field by field.
+ */
+@Data
+@ConfigurationProperties(prefix = "hedging")
+public class HedgingProperties {
+
+    private Instance defaults = Instance.builtIn();
+
+    private Map<String, Instance> instances = new LinkedHashMap<>();
+
+    public Instance forInstance(String name) {
+        Instance instance = instances.get(name);
+        return instance != null ? instance.orElse(defaults) : defaults;
+    }
+
+    /**
+     * Settings left out (null) are taken from the defaults
+     */
+    @Data
+    public static class Instance {
+
+        /** Latency percentile after which a hedge is sent */
+        private Double percentile;
+
+        /** Bounds on the hedge delay, whatever the percentile says */
+        private Duration minDelay;
+
+        private Duration maxDelay;
+
+        /** Latency samples needed before hedging starts */
+        private Integer minSamples;
+
+        /** Hedges allowed per call (0.1 = at most one hedge per ten calls) */
+        private Double maxHedgeRatio;
+
+        /** Hedges that can be saved up for a burst of slow calls */
+        private Integer maxBurst;
+
+        static Instance builtIn() {
+            Instance instance = new Instance();
+            instance.percentile = 0.95;
+            instance.minDelay = Duration.ofMillis(10);
+            instance.maxDelay = Duration.ofSeconds(1);
+            instance.minSamples = 20;
+            instance.maxHedgeRatio = 0.1;
+            instance.maxBurst = 10;
+            return instance;
+        }
+
+        Instance orElse(Instance defaults) {
+            Instance merged = new Instance();
+            merged.percentile = percentile != null ? percentile : defaults.percentile;
+            merged.minDelay = minDelay != null ? minDelay : defaults.minDelay;
+            merged.maxDelay = maxDelay != null ? maxDelay : defaults.maxDelay;
+            merged.minSamples = minSamples != null ? minSamples : defaults.minSamples;
+            merged.maxHedgeRatio = maxHedgeRatio != null ? maxHedgeRatio : defaults.maxHedgeRatio;
+            merged.maxBurst = maxBurst != null ? maxBurst : defaults.maxBurst;
+            return merged;
+        }
+    }
+}
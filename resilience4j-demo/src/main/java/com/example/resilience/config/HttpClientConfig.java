@@ -1,19 +1,156 @@
 package com.example.resilience.config;
 
+import com.example.resilience.retry.RetryAttemptInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class HttpClientConfig {
-    
+
     /**
      * RestTemplate with Sleuth instrumentation
      * Sleuth automatically adds trace headers to outgoing requests
+     * X-Retry-Attempt is added so downstream services know when not to retry
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient restTemplateHttpClient) {
+        return builder
+            .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(restTemplateHttpClient))
+            .additionalInterceptors(new RetryAttemptInterceptor())
+            .build();
+    }
+
+    /**
+     * Pooled Apache HttpClient behind the RestTemplate
+     * Connections are kept alive and reused per host instead of opened per call,
+     * and every phase of a call is bounded: connect, pool acquire and read.
+     * The classic (blocking) client speaks HTTP/1.1, so reuse comes from keep-alive.
+     * The client's own retries (503/429 after a second, I/O errors) are off:
+     * retries are the resilience4j retries', on their budget and at the edge only.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient restTemplateHttpClient(HttpClientProperties properties,
+                                                      PoolingHttpClientConnectionManager restTemplateConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectionRequestTimeout(timeout(properties.getPoolAcquireTimeout()))
+            .setResponseTimeout(timeout(properties.getReadTimeout()))
+            .setConnectionKeepAlive(TimeValue.ofMilliseconds(properties.getKeepAlive().toMillis()))
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(restTemplateConnectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .disableAutomaticRetries()
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleEviction().toMillis()))
+            .build();
+    }
+
+    /**
+     * Connection pool with total and per-host limits
+     * Pool usage is published as httpcomponents.httpclient.pool.* {httpclient=restTemplate}:
+     * total.connections{state=leased|available}, total.pending and total.max
      */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public PoolingHttpClientConnectionManager restTemplateConnectionManager(HttpClientProperties properties,
+                                                                            MeterRegistry meterRegistry) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(timeout(properties.getConnectTimeout()))
+            .setSocketTimeout(timeout(properties.getReadTimeout()))
+            .setValidateAfterInactivity(TimeValue.ofMilliseconds(properties.getValidateAfterInactivity().toMillis()))
+            .build();
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxTotal())
+            .setMaxConnPerRoute(properties.getMaxPerRoute())
+            .setDefaultConnectionConfig(connectionConfig)
+            .build();
+        properties.getRoutes().forEach((url, max) -> connectionManager.setMaxPerRoute(route(url), max));
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "restTemplate")
+            .bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Non-blocking WebClient for the reactive trace chain
+     * Built from Boot's WebClient.Builder so requests carry the trace context,
+     * and run on Reactor Netty's event loop with the same timeouts as the RestTemplate
+     */
+    @Bean
+    public WebClient webClient(WebClient.Builder builder, HttpClientProperties properties,
+                               ConnectionProvider webClientConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(webClientConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+            .responseTimeout(properties.getReadTimeout());
+        return builder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+
+    /**
+     * WebClient connection pools (one per host) with the RestTemplate's per-host limits
+     * Pool usage is published as reactor.netty.connection.provider.* {name=webClient}
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider webClientConnectionProvider(HttpClientProperties properties) {
+        ConnectionProvider.Builder pool = poolSpec(ConnectionProvider.builder("webClient"),
+            properties, properties.getMaxPerRoute());
+        properties.getRoutes().forEach((url, max) -> {
+            HttpHost target = route(url).getTargetHost();
+            pool.forRemoteHost(InetSocketAddress.createUnresolved(target.getHostName(), target.getPort()),
+                spec -> poolSpec(spec, properties, max));
+        });
+        return pool.build();
+    }
+
+    /**
+     * Settings for one host's pool; host-specific pools do not inherit the defaults
+     */
+    private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> S poolSpec(S spec, HttpClientProperties properties,
+                                                                                 int maxConnections) {
+        return spec
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(properties.getPoolAcquireTimeout())
+            .maxIdleTime(properties.getKeepAlive())
+            .evictInBackground(properties.getIdleEviction())
+            .metrics(true);
+    }
+
+    private static HttpRoute route(String url) {
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
     }
 }
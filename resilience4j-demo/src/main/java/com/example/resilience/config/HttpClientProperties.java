@@ -0,0 +1,42 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool and timeouts of the shared RestTemplate (http-client.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+
+    /** Connections open at once, over all routes; keep it at or above the routes' limits combined */
+    private int maxTotal = 100;
+
+    /** Connections open at once to one host, unless listed in routes */
+    private int maxPerRoute = 20;
+
+    /** Per-host limits by base URL, e.g. http://localhost:8080: 50 */
+    private Map<String, Integer> routes = new LinkedHashMap<>();
+
+    private Duration connectTimeout = Duration.ofMillis(500);
+
+    /** Longest wait for response data (between packets, not for the whole response) */
+    private Duration readTimeout = Duration.ofSeconds(2);
+
+    /** Longest wait for a pooled connection when all are in use */
+    private Duration poolAcquireTimeout = Duration.ofMillis(200);
+
+    /** How long an idle connection is kept when the server does not say */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /** Idle connections older than this are closed in the background */
+    private Duration idleEviction = Duration.ofSeconds(60);
+
+    /** Connections idle this long are checked before reuse */
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
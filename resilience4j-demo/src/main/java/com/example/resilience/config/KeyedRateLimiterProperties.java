@@ -0,0 +1,42 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keyed rate limiter settings (keyed-ratelimiter.*)
+ *
+ * Each instance limits every key (e.g. user ID) separately; the limits
+ * below apply per key, not to the instance as a whole.
+ */
+@Data
+@ConfigurationProperties(prefix = "keyed-ratelimiter")
+public class KeyedRateLimiterProperties {
+
+    /** How often idle keys are evicted */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    private Map<String, Instance> instances = new LinkedHashMap<>();
+
+    @Data
+    public static class Instance {
+
+        /** Permits per key per refresh period (also the burst a key may use at once) */
+        private int limitForPeriod = 10;
+
+        private Duration limitRefreshPeriod = Duration.ofSeconds(1);
+
+        /** A key with a full bucket for this long is evicted */
+        private Duration idleEviction = Duration.ofMinutes(5);
+
+        /** Tracked keys above which full buckets are evicted right away */
+        private int maxKeys = 1_000_000;
+
+        /** Keys with the most rejections reported in metrics and stats */
+        private int topRejectedKeys = 10;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limiter tier settings (ratelimiter-tiers.*)
+ *
+ * The resilience4j rate limiters listed under tiers share one pool of
+ * permits, the sum of their limitForPeriod. Each setting a tier leaves out
+ * falls back to the one under defaults, field by field.
+ */
+@Data
+@ConfigurationProperties(prefix = "ratelimiter-tiers")
+public class RateLimiterTierProperties {
+
+    /** When false, every rate limiter keeps its own hard limit */
+    private boolean enabled = true;
+
+    private Tier defaults = Tier.builtIn();
+
+    /** Tiers by rate limiter instance name */
+    private Map<String, Tier> tiers = new LinkedHashMap<>();
+
+    /**
+     * A tier's settings with every one it leaves out taken from the defaults
+     */
+    public Tier forTier(String name) {
+        Tier tier = tiers.get(name);
+        return tier != null ? tier.orElse(defaults) : defaults;
+    }
+
+    /**
+     * Settings left out (null) are taken from the defaults
+     */
+    @Data
+    public static class Tier {
+
+        /** Share of the pool while all tiers are busy; 0 uses the tier's limitForPeriod */
+        private Double weight;
+
+        /** Calls waiting for a permit, beyond which calls are rejected at once */
+        private Integer maxQueue;
+
+        /** Longest a call waits for a permit before it is rejected */
+        private Duration maxWait;
+
+        /**
+         * Permits per refresh period the tier may take beyond its own
+         * limitForPeriod from idle tiers; -1 for no cap, 0 to never go past
+         * its own limit (an external quota)
+         */
+        private Integer maxBorrow;
+
+        static Tier builtIn() {
+            Tier tier = new Tier();
+            tier.weight = 0.0;
+            tier.maxQueue = 20;
+            tier.maxWait = Duration.ofMillis(200);
+            tier.maxBorrow = -1;
+            return tier;
+        }
+
+        Tier orElse(Tier defaults) {
+            Tier merged = new Tier();
+            merged.weight = weight != null ? weight : defaults.weight;
+            merged.maxQueue = maxQueue != null ? maxQueue : defaults.maxQueue;
+            merged.maxWait = maxWait != null ? maxWait : defaults.maxWait;
+            merged.maxBorrow = maxBorrow != null ? maxBorrow : defaults.maxBorrow;
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.resilience.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Retry budget settings (retry-budget.*)
+ *
+ * Every resilience4j retry instance gets a budget. Each setting an instance
+ * leaves out (or every setting, for instances not listed) falls back to the
+ * one under defaults, field by field.
+ */
+@Data
+@ConfigurationProperties(prefix = "retry-budget")
+public class RetryBudgetProperties {
+
+    /** When false, retries are limited by maxAttempts only */
+    private boolean enabled = true;
+
+    private Budget defaults = Budget.builtIn();
+
+    private Map<String, Budget> instances = new LinkedHashMap<>();
+
+    public Budget forInstance(String name) {
+        Budget budget = instances.get(name);
+        return budget != null ? budget.orElse(defaults) : defaults;
+    }
+
+    /**
+     * Settings left out (null) are taken from the defaults
+     */
+    @Data
+    public static class Budget {
+
+        /** Tokens earned per successful call (0.1 = one retry per ten successes) */
+        private Double depositRatio;
+
+        /** Most tokens that can be saved up (the largest burst of retries) */
+        private Integer maxTokens;
+
+        /** Tokens earned per second regardless of traffic, so a quiet instance can still retry */
+        private Double minRetriesPerSecond;
+
+        static Budget builtIn() {
+            Budget budget = new Budget();
+            budget.depositRatio = 0.1;
+            budget.maxTokens = 10;
+            budget.minRetriesPerSecond = 1.0;
+            return budget;
+        }
+
+        Budget orElse(Budget defaults) {
+            Budget merged = new Budget();
+            merged.depositRatio = depositRatio != null ? depositRatio : defaults.depositRatio;
+            merged.maxTokens = maxTokens != null ? maxTokens : defaults.maxTokens;
+            merged.minRetriesPerSecond = minRetriesPerSecond != null ? minRetriesPerSecond : defaults.minRetriesPerSecond;
+            return merged;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.resilience.controller;
 
+import com.example.resilience.async.HedgingExecutor;
+import com.example.resilience.cache.StaleResponseCache;
+import com.example.resilience.coalesce.RequestCoalescer;
+import com.example.resilience.config.DecorationProperties;
 import com.example.resilience.model.ApiResponse;
 import com.example.resilience.service.CircuitBreakerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 /**
  * REST Controller demonstrating Circuit Breaker Pattern
  * 
@@ -14,6 +22,11 @@ import org.springframework.web.bind.annotation.*;
  * - GET  /api/circuit-breaker/fail - Fails to trigger circuit opening
  * - GET  /api/circuit-breaker/payment - Payment processing with circuit breaker
  * - GET  /api/circuit-breaker/slow - Slow service simulation
+ * - GET  /api/circuit-breaker/slow-async - Slow service in a bulkhead with a 2s time limit
+ * - GET  /api/circuit-breaker/slow-hedged - Slow service with occasional outliers, hedged at its p95
+ * - GET  /api/circuit-breaker/hedging - Hedge delay, hedge rate and win rate per dependency
+ * - GET  /api/circuit-breaker/fallback-cache - Cached responses served by fallbacks, and refreshes
+ * - GET  /api/circuit-breaker/coalescing - Calls executed and coalesced per single-flight name
  * - POST /api/circuit-breaker/reset - Reset counters
  * 
  * To see circuit breaker in action:
@@ -22,16 +35,35 @@ import org.springframework.web.bind.annotation.*;
  * 3. Subsequent calls will be rejected immediately (fallback executed)
  * 4. Wait for waitDurationInOpenState (10 seconds)
  * 5. Circuit transitions to HALF_OPEN and allows test requests
+ * Call /success first: while the circuit is open, /success then answers with
+ * that cached (STALE) response instead of the generic fallback message.
  */
 @RestController
 @RequestMapping("/api/circuit-breaker")
 public class CircuitBreakerController {
 
     private final CircuitBreakerService circuitBreakerService;
+    private final HedgingExecutor hedgingExecutor;
+    private final StaleResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final Function<Boolean, ApiResponse> externalService;
+    private final Function<Double, ApiResponse> payment;
+    private final Function<Long, ApiResponse> slowExternalService;
 
     @Autowired
-    public CircuitBreakerController(CircuitBreakerService circuitBreakerService) {
+    public CircuitBreakerController(CircuitBreakerService circuitBreakerService, HedgingExecutor hedgingExecutor,
+                                    StaleResponseCache responseCache, RequestCoalescer requestCoalescer,
+                                    DecorationProperties decoration) {
         this.circuitBreakerService = circuitBreakerService;
+        this.hedgingExecutor = hedgingExecutor;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.externalService = decoration.select("circuitBreakerService",
+            circuitBreakerService::callExternalService, circuitBreakerService.externalServiceChain());
+        this.payment = decoration.select("circuitBreakerService",
+            circuitBreakerService::processPayment, circuitBreakerService.paymentChain());
+        this.slowExternalService = decoration.select("circuitBreakerService",
+            circuitBreakerService::slowExternalService, circuitBreakerService.slowExternalServiceChain());
     }
 
     /**
@@ -40,7 +72,7 @@ public class CircuitBreakerController {
      */
     @GetMapping("/demo")
     public ApiResponse circuitBreakerDemo(@RequestParam(defaultValue = "false") boolean fail) {
-        return circuitBreakerService.callExternalService(fail);
+        return externalService.apply(fail);
     }
 
     /**
@@ -48,7 +80,7 @@ public class CircuitBreakerController {
      */
     @GetMapping("/success")
     public ApiResponse alwaysSucceed() {
-        return circuitBreakerService.callExternalService(false);
+        return externalService.apply(false);
     }
 
     /**
@@ -57,7 +89,7 @@ public class CircuitBreakerController {
      */
     @GetMapping("/fail")
     public ApiResponse alwaysFail() {
-        return circuitBreakerService.callExternalService(true);
+        return externalService.apply(true);
     }
 
     /**
@@ -66,7 +98,7 @@ public class CircuitBreakerController {
      */
     @GetMapping("/payment")
     public ApiResponse processPayment(@RequestParam(defaultValue = "100.00") double amount) {
-        return circuitBreakerService.processPayment(amount);
+        return payment.apply(amount);
     }
 
     /**
@@ -75,7 +107,50 @@ public class CircuitBreakerController {
      */
     @GetMapping("/slow")
     public ApiResponse slowService(@RequestParam(defaultValue = "1000") long delay) {
-        return circuitBreakerService.slowExternalService(delay);
+        return slowExternalService.apply(delay);
+    }
+
+    /**
+     * Slow service without blocking a request thread
+     * Delays above 2000ms are cut off by the time limiter
+     */
+    @GetMapping("/slow-async")
+    public CompletableFuture<ApiResponse> slowServiceAsync(@RequestParam(defaultValue = "1000") long delay) {
+        return circuitBreakerService.slowExternalServiceAsync(delay);
+    }
+
+    /**
+     * Slow service where a share of calls are outliers (5x the delay)
+     * Hedging starts after 20 calls; compare latencies with /slow-async
+     */
+    @GetMapping("/slow-hedged")
+    public CompletableFuture<ApiResponse> slowServiceHedged(@RequestParam(defaultValue = "200") long delay,
+                                                            @RequestParam(defaultValue = "0.03") double tailRate) {
+        return circuitBreakerService.slowExternalServiceHedged(delay, tailRate);
+    }
+
+    /**
+     * Hedging statistics per dependency
+     */
+    @GetMapping("/hedging")
+    public Map<String, Object> getHedgingStats() {
+        return hedgingExecutor.getStats();
+    }
+
+    /**
+     * Fallback cache statistics
+     */
+    @GetMapping("/fallback-cache")
+    public Map<String, Object> getFallbackCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * Request coalescing statistics
+     */
+    @GetMapping("/coalescing")
+    public Map<String, Object> getCoalescingStats() {
+        return requestCoalescer.getStats();
     }
 
     /**
@@ -88,7 +163,7 @@ public class CircuitBreakerController {
         
         for (int i = 1; i <= 10; i++) {
             try {
-                circuitBreakerService.callExternalService(true);
+                externalService.apply(true);
             } catch (Exception e) {
                 results.append("Call ").append(i).append(": Failed - ").append(e.getMessage()).append("\n");
             }
@@ -0,0 +1,42 @@
+package com.example.resilience.controller;
+
+import com.example.resilience.ratelimit.ClusterQuotaCoordinator;
+import com.example.resilience.ratelimit.GossipMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Peer-to-peer endpoint for cluster rate limiting
+ *
+ * Endpoints:
+ * - POST /internal/ratelimit/gossip - Exchange demand with a peer replica
+ *
+ * Called by other replicas only, which prove it with the shared secret in
+ * the X-Cluster-Secret header; anyone else gets 403. See ClusterQuotaCoordinator.
+ */
+@RestController
+@RequestMapping("/internal/ratelimit")
+public class ClusterRateLimitController {
+
+    private final ClusterQuotaCoordinator coordinator;
+
+    @Autowired
+    public ClusterRateLimitController(ClusterQuotaCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Merge a peer's gossip and reply with this replica's own
+     */
+    @PostMapping("/gossip")
+    public ResponseEntity<GossipMessage> gossip(
+            @RequestHeader(value = ClusterQuotaCoordinator.SECRET_HEADER, required = false) String secret,
+            @RequestBody GossipMessage message) {
+        if (!coordinator.isPeerSecret(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(coordinator.receive(message));
+    }
+}
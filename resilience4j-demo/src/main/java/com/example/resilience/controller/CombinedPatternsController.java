@@ -1,10 +1,14 @@
 package com.example.resilience.controller;
 
+import com.example.resilience.config.DecorationProperties;
 import com.example.resilience.model.ApiResponse;
 import com.example.resilience.service.CombinedPatternsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 /**
  * REST Controller demonstrating Combined Resilience Patterns
  * 
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
  * - GET  /api/combined/payment - Payment with all resilience patterns
  * - GET  /api/combined/database - Database operation with circuit breaker + retry
  * - GET  /api/combined/order - Order processing with all patterns
+ * - POST /api/combined/order-async - Order processing in a bulkhead with a time limit
  * - POST /api/combined/reset - Reset counters
  */
 @RestController
@@ -20,10 +25,19 @@ import org.springframework.web.bind.annotation.*;
 public class CombinedPatternsController {
 
     private final CombinedPatternsService combinedService;
+    private final Function<Double, ApiResponse> complexOperation;
+    private final Function<String, ApiResponse> databaseOperation;
+    private final Function<String, ApiResponse> orderOperation;
 
     @Autowired
-    public CombinedPatternsController(CombinedPatternsService combinedService) {
+    public CombinedPatternsController(CombinedPatternsService combinedService, DecorationProperties decoration) {
         this.combinedService = combinedService;
+        this.complexOperation = decoration.select("combinedPatternsService",
+            combinedService::processComplexOperation, combinedService.complexOperationChain());
+        this.databaseOperation = decoration.select("combinedPatternsService",
+            combinedService::saveToDatabaseWithResilience, combinedService.databaseChain());
+        this.orderOperation = decoration.select("combinedPatternsService",
+            combinedService::processOrderWithResilience, combinedService.orderChain());
     }
 
     /**
@@ -32,7 +46,7 @@ public class CombinedPatternsController {
      */
     @GetMapping("/demo")
     public ApiResponse combinedDemo(@RequestParam(defaultValue = "100.00") double amount) {
-        return combinedService.processComplexOperation(amount);
+        return complexOperation.apply(amount);
     }
 
     /**
@@ -41,7 +55,7 @@ public class CombinedPatternsController {
      */
     @PostMapping("/payment")
     public ApiResponse processPayment(@RequestParam double amount) {
-        return combinedService.processComplexOperation(amount);
+        return complexOperation.apply(amount);
     }
 
     /**
@@ -49,7 +63,7 @@ public class CombinedPatternsController {
      */
     @PostMapping("/database")
     public ApiResponse saveToDatabase(@RequestParam String recordId) {
-        return combinedService.saveToDatabaseWithResilience(recordId);
+        return databaseOperation.apply(recordId);
     }
 
     /**
@@ -57,7 +71,16 @@ public class CombinedPatternsController {
      */
     @PostMapping("/order")
     public ApiResponse processOrder(@RequestParam String orderId) {
-        return combinedService.processOrderWithResilience(orderId);
+        return orderOperation.apply(orderId);
+    }
+
+    /**
+     * Order processing without blocking a request thread
+     * Runs in the orderProcessing bulkhead with a 500ms time limit
+     */
+    @PostMapping("/order-async")
+    public CompletableFuture<ApiResponse> processOrderAsync(@RequestParam String orderId) {
+        return combinedService.processOrderAsync(orderId);
     }
 
     /**
@@ -72,7 +95,7 @@ public class CombinedPatternsController {
 
         for (int i = 1; i <= requestCount; i++) {
             try {
-                ApiResponse response = combinedService.processComplexOperation(100.0 * i);
+                ApiResponse response = complexOperation.apply(100.0 * i);
                 results.append("Request ").append(i).append(": ").append(response.getStatus()).append("\n");
                 
                 if ("SUCCESS".equals(response.getStatus())) {
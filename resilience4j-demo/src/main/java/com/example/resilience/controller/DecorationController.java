@@ -0,0 +1,57 @@
+package com.example.resilience.controller;
+
+import com.example.resilience.config.DecorationProperties;
+import com.example.resilience.decorate.DecorationBenchmark;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for annotation versus functional decoration
+ *
+ * Endpoints:
+ * - GET  /api/decoration/modes - Decoration mode per service
+ * - GET  /api/decoration/benchmark - Per-call cost of annotation and functional decoration
+ */
+@RestController
+@RequestMapping("/api/decoration")
+@EnableConfigurationProperties(DecorationProperties.class)
+public class DecorationController {
+
+    private static final List<String> SERVICES = List.of(
+        "circuitBreakerService", "retryService", "rateLimiterService", "combinedPatternsService");
+    private static final int MAX_ITERATIONS = 200_000;
+
+    private final DecorationProperties decoration;
+    private final DecorationBenchmark benchmark;
+
+    @Autowired
+    public DecorationController(DecorationProperties decoration, DecorationBenchmark benchmark) {
+        this.decoration = decoration;
+        this.benchmark = benchmark;
+    }
+
+    /**
+     * Decoration mode of each service (set with resilience-decoration.services)
+     */
+    @GetMapping("/modes")
+    public Map<String, DecorationProperties.Mode> getModes() {
+        Map<String, DecorationProperties.Mode> modes = new LinkedHashMap<>();
+        SERVICES.forEach(service -> modes.put(service, decoration.modeOf(service)));
+        return modes;
+    }
+
+    /**
+     * Benchmark a trivial call through both decorations
+     * Takes a few seconds at the default iterations (more with debug logging
+     * of resilience4j events, which both paths pay); runs one at a time
+     */
+    @GetMapping("/benchmark")
+    public Map<String, Object> benchmark(@RequestParam(defaultValue = "20000") int iterations) {
+        return benchmark.run(Math.max(1_000, Math.min(iterations, MAX_ITERATIONS)));
+    }
+}
@@ -1,22 +1,38 @@
 package com.example.resilience.controller;
 
+import com.example.resilience.config.DecorationProperties;
 import com.example.resilience.model.ApiResponse;
+import com.example.resilience.ratelimit.ClusterQuotaCoordinator;
+import com.example.resilience.ratelimit.KeyedRateLimiterRegistry;
+import com.example.resilience.ratelimit.TieredRateLimiterRegistry;
 import com.example.resilience.service.RateLimiterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * REST Controller demonstrating Rate Limiter Pattern
  * 
  * Endpoints:
- * - GET  /api/rate-limiter/demo - Basic rate limiter (10 req/sec)
- * - GET  /api/rate-limiter/api - API service rate limiter (5 req/sec)
+ * - GET  /api/rate-limiter/demo - Basic rate limiter (10 req/sec, up to 30 borrowing idle tiers' share)
+ * - GET  /api/rate-limiter/api - API service rate limiter (5 req/sec per user)
  * - GET  /api/rate-limiter/premium - Premium service (100 req/sec)
+ * - GET  /api/rate-limiter/keyed - Per-key rate limiter stats
+ * - GET  /api/rate-limiter/cluster - Cluster-wide limit shares of this replica
+ * - GET  /api/rate-limiter/tiers - Shared pool of the rate limiter tiers and per-tier queueing
+ * - GET  /api/rate-limiter/burst-test - Rapid requests against the basic rate limiter
+ * - GET  /api/rate-limiter/status - Request count and rate limits
  * - POST /api/rate-limiter/reset - Reset counters
  * 
  * To test rate limiting:
  * 1. Call an endpoint rapidly (more than limit per second)
- * 2. You'll receive RATE_LIMITED responses when limit is exceeded
+ * 2. Calls over the limit first wait briefly for a permit, then get
+ *    RATE_LIMITED; a tier with idle neighbours borrows their share up to its
+ *    maxBorrow first (ratelimiter-tiers in application.yml)
  * 3. Wait 1 second for the limit to refresh
  */
 @RestController
@@ -24,24 +40,40 @@ import org.springframework.web.bind.annotation.*;
 public class RateLimiterController {
 
     private final RateLimiterService rateLimiterService;
+    private final KeyedRateLimiterRegistry keyedRateLimiters;
+    private final ClusterQuotaCoordinator clusterQuota;
+    private final TieredRateLimiterRegistry rateLimiterTiers;
+    private final Supplier<ApiResponse> standardOperation;
+    private final Function<String, ApiResponse> premiumRequest;
 
     @Autowired
-    public RateLimiterController(RateLimiterService rateLimiterService) {
+    public RateLimiterController(RateLimiterService rateLimiterService,
+                                 KeyedRateLimiterRegistry keyedRateLimiters,
+                                 ClusterQuotaCoordinator clusterQuota,
+                                 TieredRateLimiterRegistry rateLimiterTiers,
+                                 DecorationProperties decoration) {
         this.rateLimiterService = rateLimiterService;
+        this.keyedRateLimiters = keyedRateLimiters;
+        this.clusterQuota = clusterQuota;
+        this.rateLimiterTiers = rateLimiterTiers;
+        this.standardOperation = decoration.select("rateLimiterService",
+            rateLimiterService::performStandardOperation, rateLimiterService.standardOperationChain());
+        this.premiumRequest = decoration.select("rateLimiterService",
+            rateLimiterService::processPremiumRequest, rateLimiterService.premiumRequestChain());
     }
 
     /**
      * Basic rate limiter demonstration
-     * Limited to 10 requests per second
+     * Limited to 10 requests per second, or up to 30 while other tiers are idle
      */
     @GetMapping("/demo")
     public ApiResponse rateLimiterDemo() {
-        return rateLimiterService.performStandardOperation();
+        return standardOperation.get();
     }
 
     /**
      * API service with stricter rate limiting
-     * Limited to 5 requests per second
+     * Limited to 5 requests per second per user
      */
     @GetMapping("/api")
     public ApiResponse apiServiceCall(@RequestParam(defaultValue = "user123") String userId) {
@@ -54,21 +86,23 @@ public class RateLimiterController {
      */
     @GetMapping("/premium")
     public ApiResponse premiumServiceCall(@RequestParam(defaultValue = "premium456") String customerId) {
-        return rateLimiterService.processPremiumRequest(customerId);
+        return premiumRequest.apply(customerId);
     }
 
     /**
      * Test endpoint to make multiple rapid requests
-     * This will demonstrate rate limiting in action
+     * This will demonstrate rate limiting in action; the default tier takes
+     * up to 30 in a second when the other tiers are idle, so 40 requests
+     * get some rate limited
      */
     @GetMapping("/burst-test")
-    public ApiResponse burstTest(@RequestParam(defaultValue = "15") int requestCount) {
+    public ApiResponse burstTest(@RequestParam(defaultValue = "40") int requestCount) {
         StringBuilder results = new StringBuilder("Making " + requestCount + " rapid requests:\n\n");
         int successCount = 0;
         int rateLimitedCount = 0;
 
         for (int i = 1; i <= requestCount; i++) {
-            ApiResponse response = rateLimiterService.performStandardOperation();
+            ApiResponse response = standardOperation.get();
             results.append("Request ").append(i).append(": ").append(response.getStatus()).append("\n");
             
             if ("SUCCESS".equals(response.getStatus())) {
@@ -81,7 +115,7 @@ public class RateLimiterController {
         results.append("\n=== Summary ===\n");
         results.append("Successful: ").append(successCount).append("\n");
         results.append("Rate Limited: ").append(rateLimitedCount).append("\n");
-        results.append("\nRate limit: 10 requests per second");
+        results.append("\nRate limit: 10 requests per second, up to 30 borrowing idle tiers' share");
 
         return new ApiResponse(
             results.toString(),
@@ -90,6 +124,33 @@ public class RateLimiterController {
         );
     }
 
+    /**
+     * Per-key rate limiter stats: tracked keys, permitted/rejected calls
+     * and the keys rejected most
+     */
+    @GetMapping("/keyed")
+    public List<Map<String, Object>> keyedStats() {
+        return keyedRateLimiters.getStats();
+    }
+
+    /**
+     * Cluster rate limiting: live replicas and this replica's share of
+     * each cluster-wide limit
+     */
+    @GetMapping("/cluster")
+    public Map<String, Object> clusterStats() {
+        return clusterQuota.getStats();
+    }
+
+    /**
+     * Rate limiter tiers: permits left in the shared pool and, per tier,
+     * calls by outcome, borrowed permits and time spent waiting in the queue
+     */
+    @GetMapping("/tiers")
+    public Map<String, Object> tierStats() {
+        return rateLimiterTiers.getStats();
+    }
+
     /**
      * Reset the request counter
      */
@@ -108,10 +169,12 @@ public class RateLimiterController {
         return new ApiResponse(
             "Current request count: " + requests + 
             "\n\nRate Limits:\n" +
-            "  - Default: 10 req/sec\n" +
-            "  - API Service: 5 req/sec\n" +
-            "  - Premium: 100 req/sec\n\n" +
-            "To see rate limiter states, visit: http://localhost:8080/actuator/ratelimiters",
+            "  - Default: 10 req/sec, up to 30 borrowing idle tiers' share\n" +
+            "  - API Service: 5 req/sec per user\n" +
+            "  - Premium: 100 req/sec, borrowing idle tiers' share without a cap\n\n" +
+            "To see rate limiter states, visit: http://localhost:8080/actuator/ratelimiters\n" +
+            "Shared pool and tiers: http://localhost:8080/api/rate-limiter/tiers\n" +
+            "Per-user limits: http://localhost:8080/api/rate-limiter/keyed",
             "SUCCESS",
             "RATE_LIMITER"
         );
@@ -1,10 +1,17 @@
 package com.example.resilience.controller;
 
+import com.example.resilience.config.DecorationProperties;
 import com.example.resilience.model.ApiResponse;
+import com.example.resilience.retry.RetryBudgetRegistry;
 import com.example.resilience.service.RetryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 /**
  * REST Controller demonstrating Retry Pattern
  * 
@@ -13,6 +20,9 @@ import org.springframework.web.bind.annotation.*;
  * - GET  /api/retry/success - Always succeeds
  * - GET  /api/retry/fail - Always fails to show fallback
  * - GET  /api/retry/unreliable - Random success/failure
+ * - GET  /api/retry/demo-async - Retry with back-off on a scheduler (no thread held)
+ * - GET  /api/retry/unreliable-async - Random success/failure, retried asynchronously
+ * - GET  /api/retry/budget - Retry budget tokens and refused retries per instance
  * - POST /api/retry/reset - Reset counters
  */
 @RestController
@@ -20,10 +30,19 @@ import org.springframework.web.bind.annotation.*;
 public class RetryController {
 
     private final RetryService retryService;
+    private final RetryBudgetRegistry retryBudgets;
+    private final Function<Boolean, ApiResponse> operation;
+    private final Supplier<ApiResponse> unreliableOperation;
 
     @Autowired
-    public RetryController(RetryService retryService) {
+    public RetryController(RetryService retryService, RetryBudgetRegistry retryBudgets,
+                           DecorationProperties decoration) {
         this.retryService = retryService;
+        this.retryBudgets = retryBudgets;
+        this.operation = decoration.select("retryService",
+            retryService::performOperationWithRetry, retryService.operationChain());
+        this.unreliableOperation = decoration.select("retryService",
+            retryService::unreliableOperation, retryService.unreliableOperationChain());
     }
 
     /**
@@ -32,7 +51,7 @@ public class RetryController {
      */
     @GetMapping("/demo")
     public ApiResponse retryDemo(@RequestParam(defaultValue = "false") boolean fail) {
-        return retryService.performOperationWithRetry(fail);
+        return operation.apply(fail);
     }
 
     /**
@@ -40,7 +59,7 @@ public class RetryController {
      */
     @GetMapping("/success")
     public ApiResponse alwaysSucceed() {
-        return retryService.performOperationWithRetry(false);
+        return operation.apply(false);
     }
 
     /**
@@ -48,7 +67,7 @@ public class RetryController {
      */
     @GetMapping("/fail")
     public ApiResponse alwaysFail() {
-        return retryService.performOperationWithRetry(true);
+        return operation.apply(true);
     }
 
     /**
@@ -56,7 +75,33 @@ public class RetryController {
      */
     @GetMapping("/unreliable")
     public ApiResponse unreliableOperation() {
-        return retryService.unreliableOperation();
+        return unreliableOperation.get();
+    }
+
+    /**
+     * Retry without holding a request thread
+     * Try with ?fail=true - the first two attempts fail and are retried
+     * after jittered back-off waits on the scheduler
+     */
+    @GetMapping("/demo-async")
+    public CompletableFuture<ApiResponse> retryDemoAsync(@RequestParam(defaultValue = "false") boolean fail) {
+        return retryService.performOperationWithRetryAsync(fail);
+    }
+
+    /**
+     * Unreliable operation retried asynchronously
+     */
+    @GetMapping("/unreliable-async")
+    public CompletableFuture<ApiResponse> unreliableOperationAsync() {
+        return retryService.unreliableOperationAsync();
+    }
+
+    /**
+     * Retry budgets: tokens left and retries refused per retry instance
+     */
+    @GetMapping("/budget")
+    public Map<String, Object> getBudgets() {
+        return retryBudgets.getStats();
     }
 
     /**
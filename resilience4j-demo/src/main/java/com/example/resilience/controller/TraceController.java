@@ -1,34 +1,67 @@
 package com.example.resilience.controller;
 
+import com.example.resilience.async.HedgingExecutor;
+import com.example.resilience.retry.RetryAttempt;
+import io.github.resilience4j.retry.RetryRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
 
 import static net.logstash.logback.argument.StructuredArguments.kv;
 
+/**
+ * Three-hop call chain for tracing: start -> middle -> end
+ *
+ * Calls are retried with the "downstream" retry instance at the edge only:
+ * every call carries X-Retry-Attempt, so middle, serving start's request,
+ * makes a single attempt at end and start's retries are the only ones. Try ?failureRate=0.5 on /start to make /end fail half the time;
+ * /api/retry/budget shows the retries made and refused.
+ *
+ * The reactive variant (/reactive/start -> /reactive/middle -> end) makes
+ * the same calls through WebClient: the request thread is released while
+ * the calls are in flight, and /reactive/start fans out to several middles
+ * in parallel and combines their results. A failed branch is reported as
+ * unavailable instead of failing the whole request. Its hops are hedged:
+ * a call still unanswered at the hop's p95 latency is sent again and the
+ * slower copy cancelled. Try ?tailRate=0.05 to make 5% of /end calls take
+ * a second; /api/circuit-breaker/hedging shows the hedges.
+ *
+ * Hop calls are deliberately not coalesced (see RequestCoalescer): every
+ * request, and every fan-out branch, makes its own downstream call and so
+ * gets its own span in the trace.
+ */
 @Slf4j
 @RestController
 @RequestMapping("/api/trace")
 @RequiredArgsConstructor
 public class TraceController {
     
+    private static final int MAX_FANOUT = 10;
+    
     private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final RetryRegistry retryRegistry;
+    private final HedgingExecutor hedgingExecutor;
     
     /**
      * Endpoint 1: Entry point
      */
     @GetMapping("/start")
-    public ResponseEntity<String> start() {
+    public ResponseEntity<String> start(@RequestParam(defaultValue = "0") double failureRate) {
         log.info("Start endpoint called",
             kv("endpoint", "/api/trace/start"));
         
         // Call second endpoint
-        String result = restTemplate.getForObject(
-            "http://localhost:8080/api/trace/middle",
-            String.class
-        );
+        String result = callDownstream(
+            "http://localhost:8080/api/trace/middle?failureRate=" + failureRate);
         
         log.info("Start endpoint completed",
             kv("result", result));
@@ -40,15 +73,14 @@ public class TraceController {
      * Endpoint 2: Middle
      */
     @GetMapping("/middle")
-    public ResponseEntity<String> middle() {
+    public ResponseEntity<String> middle(@RequestParam(defaultValue = "0") double failureRate) {
         log.info("Middle endpoint called",
-            kv("endpoint", "/api/trace/middle"));
+            kv("endpoint", "/api/trace/middle"),
+            kv("retryAttempt", RetryAttempt.inbound()));
         
         // Call third endpoint
-        String result = restTemplate.getForObject(
-            "http://localhost:8080/api/trace/end",
-            String.class
-        );
+        String result = callDownstream(
+            "http://localhost:8080/api/trace/end?failureRate=" + failureRate);
         
         log.info("Middle endpoint completed",
             kv("result", result));
@@ -60,10 +92,77 @@ public class TraceController {
      * Endpoint 3: End
      */
     @GetMapping("/end")
-    public ResponseEntity<String> end() {
+    public ResponseEntity<String> end(@RequestParam(defaultValue = "0") double failureRate,
+                                      @RequestParam(defaultValue = "0") double tailRate) throws InterruptedException {
         log.info("End endpoint called",
-            kv("endpoint", "/api/trace/end"));
+            kv("endpoint", "/api/trace/end"),
+            kv("retryAttempt", RetryAttempt.inbound()));
         
+        if (ThreadLocalRandom.current().nextDouble() < tailRate) {
+            Thread.sleep(1000);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("End unavailable");
+        }
         return ResponseEntity.ok("End");
     }
+    
+    /**
+     * Reactive entry point: calls `fanout` reactive middles in parallel
+     */
+    @GetMapping("/reactive/start")
+    public Mono<String> reactiveStart(@RequestParam(defaultValue = "3") int fanout,
+                                      @RequestParam(defaultValue = "0") double failureRate,
+                                      @RequestParam(defaultValue = "0") double tailRate) {
+        int branches = Math.max(1, Math.min(fanout, MAX_FANOUT));
+        log.info("Reactive start endpoint called",
+            kv("endpoint", "/api/trace/reactive/start"),
+            kv("fanout", branches));
+        
+        // Call all middles at once; results keep the branch order
+        return Flux.range(1, branches)
+            .flatMapSequential(branch -> callReactive("traceMiddle",
+                    "http://localhost:8080/api/trace/reactive/middle?failureRate=" + failureRate
+                        + "&tailRate=" + tailRate)
+                .onErrorResume(e -> {
+                    log.warn("Reactive middle call failed",
+                        kv("branch", branch),
+                        kv("error", e.getMessage()));
+                    return Mono.just("Middle unavailable");
+                }))
+            .collectList()
+            .map(results -> "Start -> " + results)
+            .doOnNext(result -> log.info("Reactive start endpoint completed",
+                kv("result", result)));
+    }
+    
+    /**
+     * Reactive middle: calls end without holding a thread
+     */
+    @GetMapping("/reactive/middle")
+    public Mono<String> reactiveMiddle(@RequestParam(defaultValue = "0") double failureRate,
+                                       @RequestParam(defaultValue = "0") double tailRate) {
+        log.info("Reactive middle endpoint called",
+            kv("endpoint", "/api/trace/reactive/middle"));
+        
+        return callReactive("traceEnd",
+                "http://localhost:8080/api/trace/end?failureRate=" + failureRate + "&tailRate=" + tailRate)
+            .map(result -> "Middle -> " + result);
+    }
+    
+    /**
+     * GET through WebClient, hedged per hop; cancelling a hedge closes its request
+     */
+    private Mono<String> callReactive(String hop, String url) {
+        return Mono.fromFuture(() -> hedgingExecutor.execute(hop, () -> webClient.get()
+            .uri(url)
+            .retrieve()
+            .bodyToMono(String.class)
+            .toFuture()));
+    }
+    
+    private String callDownstream(String url) {
+        return retryRegistry.retry("downstream")
+            .executeSupplier(() -> restTemplate.getForObject(url, String.class));
+    }
 }
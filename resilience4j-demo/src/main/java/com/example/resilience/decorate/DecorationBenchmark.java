@@ -0,0 +1,123 @@
+package com.example.resilience.decorate;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.decorators.Decorators;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-call cost of annotation (AOP proxy) versus functional (Decorators) decoration
+ *
+ * The same trivial operation runs undecorated, through a Decorators chain
+ * and through the @Retry/@CircuitBreaker/@RateLimiter proxy, on
+ * decorationBenchmark instances that never reject. Each variant is warmed up,
+ * then the variants are timed in alternating rounds and the median per-call
+ * time is reported. The numbers are in-process and rough (no forking or
+ * dead-code protection as in a harness like JMH); compare them with each
+ * other on the same machine, not across machines.
+ */
+@Component
+public class DecorationBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecorationBenchmark.class);
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 7;
+
+    private final DecorationBenchmarkTarget target;
+    private final Function<String, String> chain;
+    private volatile int sink;
+
+    public DecorationBenchmark(DecorationBenchmarkTarget target, RetryRegistry retryRegistry,
+                               CircuitBreakerRegistry circuitBreakerRegistry,
+                               RateLimiterRegistry rateLimiterRegistry) {
+        this.target = target;
+
+        // Created before the annotations look them up, so both paths share them
+        String name = DecorationBenchmarkTarget.NAME;
+        RateLimiterConfig unlimited = RateLimiterConfig.custom()
+            .limitForPeriod(Integer.MAX_VALUE)
+            .limitRefreshPeriod(Duration.ofSeconds(1))
+            .timeoutDuration(Duration.ZERO)
+            .build();
+        this.chain = FunctionalChains.withFallback(
+            Decorators.ofFunction((String input) -> input)
+                .withRateLimiter(rateLimiterRegistry.rateLimiter(name, unlimited))
+                .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker(name, CircuitBreakerConfig.ofDefaults()))
+                .withRetry(retryRegistry.retry(name, RetryConfig.ofDefaults()))
+                .decorate(),
+            (input, ex) -> "fallback");
+    }
+
+    /**
+     * Time each variant over the given number of calls per round
+     */
+    public synchronized Map<String, Object> run(int iterations) {
+        Function<String, String> plain = input -> input;
+        Function<String, String> annotated = target::call;
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            time(plain, iterations);
+            time(chain, iterations);
+            time(annotated, iterations);
+        }
+
+        double[] plainNanos = new double[ROUNDS];
+        double[] functionalNanos = new double[ROUNDS];
+        double[] annotationNanos = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            plainNanos[round] = time(plain, iterations);
+            functionalNanos[round] = time(chain, iterations);
+            annotationNanos[round] = time(annotated, iterations);
+        }
+
+        double plainMedian = median(plainNanos);
+        double functional = median(functionalNanos);
+        double annotation = median(annotationNanos);
+        logger.info("Decoration benchmark ({} calls x {} rounds): plain {} ns, functional {} ns, annotation {} ns",
+            iterations, ROUNDS, round(plainMedian), round(functional), round(annotation));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("iterations", iterations);
+        result.put("rounds", ROUNDS);
+        result.put("plainNanosPerCall", round(plainMedian));
+        result.put("functionalNanosPerCall", round(functional));
+        result.put("annotationNanosPerCall", round(annotation));
+        result.put("savedNanosPerCall", round(annotation - functional));
+        result.put("annotationToFunctionalRatio", round(annotation / functional));
+        return result;
+    }
+
+    private double time(Function<String, String> operation, int iterations) {
+        int lengths = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            lengths += operation.apply("x").length();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = lengths;
+        return (double) elapsed / iterations;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
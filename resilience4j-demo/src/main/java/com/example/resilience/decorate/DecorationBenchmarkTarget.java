@@ -0,0 +1,27 @@
+package com.example.resilience.decorate;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.springframework.stereotype.Component;
+
+/**
+ * A trivial operation behind the three annotations, so the benchmark
+ * measures the decoration and nothing else
+ */
+@Component
+public class DecorationBenchmarkTarget {
+
+    static final String NAME = "decorationBenchmark";
+
+    @Retry(name = NAME)
+    @CircuitBreaker(name = NAME, fallbackMethod = "fallback")
+    @RateLimiter(name = NAME)
+    public String call(String input) {
+        return input;
+    }
+
+    private String fallback(String input, Exception ex) {
+        return "fallback";
+    }
+}
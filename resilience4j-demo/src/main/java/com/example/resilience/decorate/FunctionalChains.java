@@ -0,0 +1,28 @@
+package com.example.resilience.decorate;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Helpers for Decorators-built chains
+ */
+public final class FunctionalChains {
+
+    private FunctionalChains() {
+    }
+
+    /**
+     * Typed fallback for a decorated function (Decorators only has fallbacks
+     * for suppliers); like an annotation fallbackMethod taking Exception, it
+     * gets the argument and any exception, and errors pass through
+     */
+    public static <T, R> Function<T, R> withFallback(Function<T, R> decorated, BiFunction<T, Exception, R> fallback) {
+        return argument -> {
+            try {
+                return decorated.apply(argument);
+            } catch (Exception e) {
+                return fallback.apply(argument, e);
+            }
+        };
+    }
+}
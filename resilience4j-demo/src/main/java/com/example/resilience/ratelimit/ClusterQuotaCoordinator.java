@@ -0,0 +1,372 @@
+package com.example.resilience.ratelimit;
+
+import com.example.resilience.config.ClusterRateLimitProperties;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cluster Quota Coordinator
+ *
+ * Splits rate limits between replicas so that a configured limit holds for
+ * the cluster rather than for each replica. Every request is still decided
+ * by the local limiter with no network call; only the local limit changes.
+ *
+ * Each gossip round, a replica sends its ID and its recent demand (calls per
+ * second per shared limiter) to every peer over HTTP and merges what the
+ * peer sends back (push-pull). Peers come from a static URL list and/or a
+ * DNS name resolving to all replicas. A peer not heard from for member-ttl
+ * drops out, and the remaining replicas take over its share.
+ *
+ * Shares per round, with N live replicas:
+ * - limiters: the configured limit split by demand, with a fifth of the
+ *   average demand credited to every replica so an idle one can ramp up;
+ *   split evenly while there is no demand. Whole permits are handed out by
+ *   largest remainder (ties by node ID), so the shares add up to the limit;
+ *   a replica may get 0, except that a plain resilience4j limiter cannot go
+ *   below 1 (a tier's can, see TierRateLimiter)
+ * - keyed limiters: the per-key limit split evenly, since a key's calls are
+ *   spread over the replicas by the load balancer; the remainder goes one
+ *   permit each to the replicas first by node ID, so the shares add up to
+ *   the limit (a replica may get 0 when there are more replicas than permits)
+ *
+ * A rate limiter tier's share is what it adds to the tiers' shared pool.
+ *
+ * Gossip carries a shared secret (cluster-ratelimit.secret) in the
+ * X-Cluster-Secret header, and gossip without it is refused, so a client
+ * reaching the app port cannot pose as replicas and shrink the shares. At
+ * most max-members peers are counted; further node IDs are ignored.
+ *
+ * A replica cut off from its peers falls back to the full limit once they
+ * expire, so during a network partition the cluster may admit up to the
+ * limit on each side.
+ */
+@Component
+@EnableConfigurationProperties(ClusterRateLimitProperties.class)
+public class ClusterQuotaCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterQuotaCoordinator.class);
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final double DEMAND_SMOOTHING = 0.5;
+    private static final double RESERVED_DEMAND = 0.2;
+
+    private final ClusterRateLimitProperties properties;
+    private final RestTemplate restTemplate;
+    private final Map<String, SharedLimiter> limiters = new LinkedHashMap<>();
+    private final Map<String, KeyedRateLimiter> keyedLimiters = new LinkedHashMap<>();
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private volatile Map<String, Double> localDemand = Map.of();
+    private volatile int replicaCount = 1;
+    private volatile int replicaRank = 0;
+    private long lastRoundNanos = System.nanoTime();
+    private final ScheduledExecutorService gossiper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ratelimit-gossip");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClusterQuotaCoordinator(ClusterRateLimitProperties properties,
+                                   TieredRateLimiterRegistry rateLimiters,
+                                   KeyedRateLimiterRegistry keyedRateLimiterRegistry,
+                                   RestTemplateBuilder restTemplateBuilder,
+                                   MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.restTemplate = restTemplateBuilder
+            .connectTimeout(properties.getRequestTimeout())
+            .readTimeout(properties.getRequestTimeout())
+            .build();
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String name : properties.getLimiters()) {
+            RateLimiter rateLimiter = rateLimiters.rateLimiter(name);
+            SharedLimiter shared = new SharedLimiter(rateLimiter);
+            rateLimiter.getEventPublisher().onEvent(event -> shared.calls.increment());
+            limiters.put(name, shared);
+            Gauge.builder("ratelimiter.cluster.share", shared, s -> s.share)
+                .description("This replica's share of a cluster-wide limit")
+                .tag("name", name)
+                .register(meterRegistry);
+        }
+        for (String name : properties.getKeyedLimiters()) {
+            keyedLimiters.put(name, keyedRateLimiterRegistry.rateLimiter(name));
+        }
+        Gauge.builder("ratelimiter.cluster.members", members, m -> m.size() + 1)
+            .description("Live replicas sharing rate limits, including this one")
+            .register(meterRegistry);
+
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            logger.warn("No cluster-ratelimit.secret set - peers' gossip is refused and each replica keeps the full limits");
+        }
+        long interval = properties.getGossipInterval().toMillis();
+        gossiper.scheduleWithFixedDelay(this::gossipRound, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Cluster rate limiting enabled - node {} sharing {} and keyed {}",
+            properties.getNodeId(), limiters.keySet(), keyedLimiters.keySet());
+    }
+
+    /**
+     * Whether a gossip request carries the shared secret (never while none is configured)
+     */
+    public boolean isPeerSecret(String secret) {
+        String expected = properties.getSecret();
+        if (expected == null || expected.isBlank() || secret == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Merge a peer's gossip and answer with this replica's state
+     */
+    public GossipMessage receive(GossipMessage message) {
+        merge(message);
+        return localMessage();
+    }
+
+    private GossipMessage localMessage() {
+        return new GossipMessage(properties.getNodeId(), localDemand);
+    }
+
+    private void merge(GossipMessage message) {
+        if (message == null || message.nodeId() == null || message.nodeId().equals(properties.getNodeId())) {
+            return;
+        }
+        if (!members.containsKey(message.nodeId()) && members.size() >= properties.getMaxMembers()) {
+            logger.warn("Rate limit peer {} ignored - already counting {} peers", message.nodeId(), members.size());
+            return;
+        }
+        Map<String, Double> demand = new HashMap<>();
+        if (message.demand() != null) {
+            message.demand().forEach((name, rate) -> {
+                if (rate != null && Double.isFinite(rate) && rate >= 0) {
+                    demand.put(name, rate);
+                }
+            });
+        }
+        Member previous = members.put(message.nodeId(), new Member(demand, System.nanoTime()));
+        if (previous == null) {
+            logger.info("Rate limit peer joined: {}", message.nodeId());
+        }
+    }
+
+    private void gossipRound() {
+        try {
+            measureDemand();
+            HttpHeaders headers = new HttpHeaders();
+            if (properties.getSecret() != null) {
+                headers.set(SECRET_HEADER, properties.getSecret());
+            }
+            HttpEntity<GossipMessage> local = new HttpEntity<>(localMessage(), headers);
+            for (String peer : peerUrls()) {
+                try {
+                    merge(restTemplate.postForObject(peer + "/internal/ratelimit/gossip", local, GossipMessage.class));
+                } catch (RestClientException e) {
+                    logger.debug("Rate limit gossip to {} failed: {}", peer, e.getMessage());
+                }
+            }
+            expireMembers();
+            rebalance();
+        } catch (RuntimeException e) {
+            logger.error("Rate limit gossip round failed", e);
+        }
+    }
+
+    private void measureDemand() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastRoundNanos) / 1e9);
+        lastRoundNanos = now;
+
+        Map<String, Double> demand = new HashMap<>();
+        limiters.forEach((name, shared) -> {
+            double rate = shared.calls.sumThenReset() / seconds;
+            shared.demand = shared.demand * (1 - DEMAND_SMOOTHING) + rate * DEMAND_SMOOTHING;
+            demand.put(name, shared.demand);
+        });
+        localDemand = demand;
+    }
+
+    private Set<String> peerUrls() {
+        Set<String> urls = new LinkedHashSet<>(properties.getPeers());
+        String peerDns = properties.getPeerDns();
+        if (peerDns != null && !peerDns.isBlank()) {
+            int colon = peerDns.lastIndexOf(':');
+            String host = colon > 0 ? peerDns.substring(0, colon) : peerDns;
+            String port = colon > 0 ? peerDns.substring(colon + 1) : "8080";
+            try {
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    urls.add("http://" + address.getHostAddress() + ":" + port);
+                }
+            } catch (UnknownHostException e) {
+                logger.debug("Rate limit peer DNS {} not resolvable: {}", host, e.getMessage());
+            }
+        }
+        return urls;
+    }
+
+    private void expireMembers() {
+        long ttl = properties.getMemberTtl().toNanos();
+        long now = System.nanoTime();
+        members.entrySet().removeIf(entry -> {
+            boolean expired = now - entry.getValue().lastSeen() > ttl;
+            if (expired) {
+                logger.info("Rate limit peer expired: {}", entry.getKey());
+            }
+            return expired;
+        });
+    }
+
+    /**
+     * Recompute this replica's share of every shared limit
+     */
+    private void rebalance() {
+        Map<String, Member> snapshot = new HashMap<>(members);
+        List<Member> peers = new ArrayList<>(snapshot.values());
+        int replicas = peers.size() + 1;
+
+        limiters.forEach((name, shared) -> {
+            Map<String, Double> demand = new TreeMap<>();
+            demand.put(properties.getNodeId(), shared.demand);
+            snapshot.forEach((nodeId, peer) -> demand.put(nodeId, peer.demand().getOrDefault(name, 0.0)));
+            double total = demand.values().stream().mapToDouble(Double::doubleValue).sum();
+            double reserved = total / replicas * RESERVED_DEMAND;
+            Map<String, Double> weights = new TreeMap<>();
+            demand.forEach((nodeId, rate) -> weights.put(nodeId, total <= 0 ? 1.0 : rate + reserved));
+
+            int share = apportion(shared.configuredLimit, weights).get(properties.getNodeId());
+            if (share != shared.share) {
+                shared.rateLimiter.changeLimitForPeriod(shared.rateLimiter instanceof TierRateLimiter
+                    ? share : Math.max(1, share));
+                logger.info("Rate limiter '{}' share changed to {} of {} ({} replicas)",
+                    name, share, shared.configuredLimit, replicas);
+                shared.share = share;
+            }
+        });
+
+        List<String> nodeIds = new ArrayList<>(snapshot.keySet());
+        nodeIds.add(properties.getNodeId());
+        Collections.sort(nodeIds);
+        int rank = nodeIds.indexOf(properties.getNodeId());
+        if (replicas != replicaCount || rank != replicaRank) {
+            replicaCount = replicas;
+            replicaRank = rank;
+            keyedLimiters.values().forEach(limiter ->
+                limiter.changeLimitForPeriod(keyedShare(limiter.getConfiguredLimit(), replicas, rank)));
+        }
+    }
+
+    /**
+     * Split a limit between replicas in proportion to their weights, by
+     * largest remainder: each gets the whole part of its exact quota, and
+     * the permits left go one each to the largest fractional parts, ties
+     * going to the first node ID. The shares add up to the limit.
+     *
+     * @param weights by node ID, iterated in node ID order
+     */
+    static Map<String, Integer> apportion(int limit, Map<String, Double> weights) {
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<String, Integer> shares = new LinkedHashMap<>();
+        List<Map.Entry<String, Double>> remainders = new ArrayList<>();
+        int assigned = 0;
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            double quota = total > 0 ? limit * entry.getValue() / total : (double) limit / weights.size();
+            int whole = (int) Math.floor(quota);
+            shares.put(entry.getKey(), whole);
+            remainders.add(Map.entry(entry.getKey(), quota - whole));
+            assigned += whole;
+        }
+        // Stable sort, so equal remainders keep node ID order
+        remainders.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        for (int i = 0; i < limit - assigned && i < remainders.size(); i++) {
+            shares.merge(remainders.get(i).getKey(), 1, Integer::sum);
+        }
+        return shares;
+    }
+
+    /**
+     * This replica's part of a per-key limit: an even split, plus one of the
+     * remaining permits for each of the first replicas by node ID
+     */
+    private static int keyedShare(int limit, int replicas, int rank) {
+        return limit / replicas + (rank < limit % replicas ? 1 : 0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("nodeId", properties.getNodeId());
+        stats.put("replicas", members.size() + 1);
+        stats.put("peers", new ArrayList<>(members.keySet()));
+        Map<String, Object> shares = new LinkedHashMap<>();
+        limiters.forEach((name, shared) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("clusterLimit", shared.configuredLimit);
+            entry.put("localShare", shared.share);
+            entry.put("localDemandPerSec", Math.round(shared.demand * 10) / 10.0);
+            shares.put(name, entry);
+        });
+        stats.put("limiters", shares);
+        Map<String, Object> keyedShares = new LinkedHashMap<>();
+        keyedLimiters.forEach((name, limiter) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("clusterLimitPerKey", limiter.getConfiguredLimit());
+            entry.put("localSharePerKey", keyedShare(limiter.getConfiguredLimit(), replicaCount, replicaRank));
+            keyedShares.put(name, entry);
+        });
+        stats.put("keyedLimiters", keyedShares);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gossiper.shutdownNow();
+    }
+
+    private record Member(Map<String, Double> demand, long lastSeen) {
+    }
+
+    private static final class SharedLimiter {
+        private final RateLimiter rateLimiter;
+        private final int configuredLimit;
+        private final LongAdder calls = new LongAdder();
+        private volatile double demand;
+        private volatile int share;
+
+        private SharedLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            this.configuredLimit = rateLimiter.getRateLimiterConfig().getLimitForPeriod();
+            this.share = configuredLimit;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.resilience.ratelimit;
+
+import java.util.Map;
+
+/**
+ * What a replica tells its peers each gossip round
+ *
+ * @param nodeId replica ID
+ * @param demand calls per second per shared limiter, permitted or not
+ */
+public record GossipMessage(String nodeId, Map<String, Double> demand) {
+}
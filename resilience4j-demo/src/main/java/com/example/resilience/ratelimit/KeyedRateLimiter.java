@@ -0,0 +1,247 @@
+package com.example.resilience.ratelimit;
+
+import com.example.resilience.config.KeyedRateLimiterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter with an independent token bucket per key
+ *
+ * Each bucket is a single AtomicLong holding the bucket's "theoretical
+ * arrival time" (GCRA): a permit moves it forward by one emission interval
+ * (refresh period / limit), and a call is rejected when that would put it
+ * more than one refresh period ahead of now. Acquiring is one CAS with no
+ * locks, and a key costs one map entry plus one AtomicLong.
+ *
+ * Buckets are created on a key's first call. A bucket whose arrival time is
+ * in the past is full, so removing it loses nothing - the key simply gets a
+ * new, full bucket on its next call. Buckets idle for idle-eviction are
+ * evicted periodically, and all full buckets once max-keys is exceeded.
+ *
+ * Metrics (tagged with name=instance, never with the key):
+ * - ratelimiter.keyed.calls{outcome=permitted|rejected}
+ * - ratelimiter.keyed.keys - tracked keys
+ * - ratelimiter.keyed.top.rejected{rank=1..n} - rejections of the n keys
+ *   rejected most (see getStats() for which keys they are)
+ */
+public class KeyedRateLimiter {
+
+    private final String name;
+    private final int configuredLimit;
+    private volatile int limitForPeriod;
+    private volatile long intervalNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final TopKeys topRejected;
+    private final Counter permittedCounter;
+    private final Counter rejectedCounter;
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong nextForcedEviction = new AtomicLong(System.nanoTime());
+
+    public KeyedRateLimiter(String name, KeyedRateLimiterProperties.Instance config, MeterRegistry meterRegistry) {
+        if (config.getLimitForPeriod() < 1) {
+            throw new IllegalArgumentException("limitForPeriod must be at least 1 for " + name);
+        }
+        this.name = name;
+        this.configuredLimit = config.getLimitForPeriod();
+        this.limitForPeriod = configuredLimit;
+        this.burstNanos = config.getLimitRefreshPeriod().toNanos();
+        this.intervalNanos = Math.max(1, burstNanos / limitForPeriod);
+        this.idleNanos = config.getIdleEviction().toNanos();
+        this.maxKeys = config.getMaxKeys();
+        this.topRejected = new TopKeys(Math.max(1, config.getTopRejectedKeys()));
+
+        this.permittedCounter = Counter.builder("ratelimiter.keyed.calls")
+            .description("Calls through a keyed rate limiter")
+            .tag("name", name)
+            .tag("outcome", "permitted")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ratelimiter.keyed.calls")
+            .description("Calls through a keyed rate limiter")
+            .tag("name", name)
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        Gauge.builder("ratelimiter.keyed.keys", buckets, Map::size)
+            .description("Keys with a token bucket")
+            .tag("name", name)
+            .register(meterRegistry);
+        for (int rank = 1; rank <= topRejected.capacity; rank++) {
+            int index = rank - 1;
+            Gauge.builder("ratelimiter.keyed.top.rejected", topRejected, top -> top.countAt(index))
+                .description("Rejections of the keys rejected most, by rank")
+                .tag("name", name)
+                .tag("rank", String.valueOf(rank))
+                .register(meterRegistry);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Per-key limit from configuration, before any change
+     */
+    public int getConfiguredLimit() {
+        return configuredLimit;
+    }
+
+    /**
+     * Change the per-key limit; applies to the next permit of every key.
+     * 0 rejects every call.
+     */
+    public void changeLimitForPeriod(int limit) {
+        int newLimit = Math.max(0, limit);
+        // An interval beyond the burst can never be granted
+        this.intervalNanos = newLimit == 0 ? burstNanos + 1 : Math.max(1, burstNanos / newLimit);
+        this.limitForPeriod = newLimit;
+    }
+
+    /**
+     * Calls so far, permitted or not
+     */
+    public long getCalls() {
+        return (long) (permittedCounter.count() + rejectedCounter.count());
+    }
+
+    /**
+     * Take a permit for the key without waiting
+     *
+     * @return false if the key has used up its limit for now
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            if (buckets.size() > maxKeys) {
+                evictFull(now);
+            }
+        }
+
+        long interval = intervalNanos;
+        while (true) {
+            long arrival = bucket.get();
+            long next = (arrival - now > 0 ? arrival : now) + interval;
+            if (next - now > burstNanos) {
+                rejectedCounter.increment();
+                topRejected.add(key);
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                permittedCounter.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove buckets that have been full for at least the idle eviction time
+     */
+    public void evictIdle() {
+        evict(System.nanoTime(), idleNanos);
+    }
+
+    /**
+     * Over max-keys: evict every full bucket, at most once per refresh period
+     * so a flood of active keys does not turn each new key into a full scan
+     */
+    private void evictFull(long now) {
+        long due = nextForcedEviction.get();
+        if (now - due >= 0 && nextForcedEviction.compareAndSet(due, now + burstNanos)) {
+            evict(now, 0);
+        }
+    }
+
+    private void evict(long now, long minIdleNanos) {
+        buckets.forEach((key, bucket) -> {
+            // A permit taken between this check and the removal is forgiven
+            if (now - bucket.get() >= minIdleNanos && buckets.remove(key, bucket)) {
+                evicted.incrementAndGet();
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("limitForPeriod", limitForPeriod);
+        stats.put("configuredLimitForPeriod", configuredLimit);
+        stats.put("limitRefreshPeriodMs", burstNanos / 1_000_000);
+        stats.put("keys", buckets.size());
+        stats.put("evictedKeys", evicted.get());
+        stats.put("permitted", (long) permittedCounter.count());
+        stats.put("rejected", (long) rejectedCounter.count());
+        stats.put("topRejectedKeys", topRejected.snapshot());
+        return stats;
+    }
+
+    /**
+     * Space-saving top-n counter: tracks at most n keys; a new key replaces
+     * the one with the lowest count and inherits that count, so frequent keys
+     * stay in while rare ones churn
+     */
+    private static final class TopKeys {
+        private final int capacity;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        private TopKeys(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void add(String key) {
+            Long count = counts.get(key);
+            if (count != null) {
+                counts.put(key, count + 1);
+            } else if (counts.size() < capacity) {
+                counts.put(key, 1L);
+            } else {
+                String lowest = null;
+                long lowestCount = Long.MAX_VALUE;
+                for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                    if (entry.getValue() < lowestCount) {
+                        lowest = entry.getKey();
+                        lowestCount = entry.getValue();
+                    }
+                }
+                counts.remove(lowest);
+                counts.put(key, lowestCount + 1);
+            }
+        }
+
+        private synchronized List<Map.Entry<String, Long>> sorted() {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            return entries;
+        }
+
+        private double countAt(int index) {
+            List<Map.Entry<String, Long>> entries = sorted();
+            return index < entries.size() ? entries.get(index).getValue() : 0;
+        }
+
+        private List<Map<String, Object>> snapshot() {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : sorted()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("key", entry.getKey());
+                item.put("rejected", entry.getValue());
+                result.add(item);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.resilience.ratelimit;
+
+import com.example.resilience.config.KeyedRateLimiterProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of keyed rate limiters, configured under keyed-ratelimiter.instances
+ *
+ * Limiters are created on first use; a name without configuration gets the
+ * default settings. Idle keys of all limiters are evicted on one background
+ * thread every eviction-interval.
+ */
+@Component
+@EnableConfigurationProperties(KeyedRateLimiterProperties.class)
+public class KeyedRateLimiterRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedRateLimiterRegistry.class);
+
+    private final KeyedRateLimiterProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, KeyedRateLimiter> limiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "keyed-ratelimiter-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public KeyedRateLimiterRegistry(KeyedRateLimiterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        long interval = properties.getEvictionInterval().toMillis();
+        evictor.scheduleWithFixedDelay(this::evictIdleKeys, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get or create the keyed rate limiter with the given name
+     */
+    public KeyedRateLimiter rateLimiter(String name) {
+        return limiters.computeIfAbsent(name, n -> {
+            KeyedRateLimiterProperties.Instance config = properties.getInstances()
+                .getOrDefault(n, new KeyedRateLimiterProperties.Instance());
+            logger.info("Created keyed rate limiter '{}' - {} per {} per key",
+                n, config.getLimitForPeriod(), config.getLimitRefreshPeriod());
+            return new KeyedRateLimiter(n, config, meterRegistry);
+        });
+    }
+
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        limiters.values().forEach(limiter -> stats.add(limiter.getStats()));
+        return stats;
+    }
+
+    private void evictIdleKeys() {
+        try {
+            limiters.values().forEach(KeyedRateLimiter::evictIdle);
+        } catch (RuntimeException e) {
+            logger.error("Evicting idle rate limiter keys failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+}
@@ -0,0 +1,466 @@
+package com.example.resilience.ratelimit;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One pool of permits shared by several lanes (rate limiter tiers), with
+ * weighted fair queuing between them
+ *
+ * The pool is a token bucket refilled continuously at the sum of the lanes'
+ * rates (limitForPeriod / limitRefreshPeriod) and holding at most the sum of
+ * their limits, so all lanes together admit what they would have admitted
+ * separately. A call takes a permit at once while permits are left and no
+ * call is waiting. Otherwise it waits in its lane's bounded queue until a
+ * permit comes up or its wait runs out; a full queue rejects at once.
+ *
+ * Permits that come up while calls are waiting are handed out by stride
+ * scheduling: each lane has a pass that grows by permits / weight with
+ * every grant, and the waiting lane with the lowest pass goes next. Busy
+ * lanes so split the pool by weight, and a lane with nothing waiting leaves
+ * its share to the others. A lane that starts waiting again resumes from
+ * the pass of the latest grant, so it cannot claim the time it was idle.
+ *
+ * A lane's maxBorrow caps what it borrows: within one of its refresh
+ * periods it takes at most limitForPeriod + maxBorrow permits, however idle
+ * the other lanes are, and calls over that wait for its next period. A lane
+ * fronting an external quota sets 0 and never goes past its own limit.
+ * When a lane's limit is changed (a replica's cluster share), its maxBorrow
+ * is scaled by the same factor, rounded down, so across the replicas the
+ * lane still takes at most its configured limit + maxBorrow.
+ *
+ * Waiting lanes are served by a dispatch on the given scheduler, timed for
+ * the moment the next permit is due or a capped lane's period ends.
+ */
+public class SharedPermitPool {
+
+    private final ScheduledExecutorService dispatcher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Lane> lanes = new ArrayList<>();
+    private double permits;
+    private double maxPermits;
+    private double permitsPerNano;
+    private long refilledAt = System.nanoTime();
+    private double virtualTime;
+    private int waiting;
+    private boolean dispatchScheduled;
+
+    public SharedPermitPool(ScheduledExecutorService dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Add a lane contributing limitForPeriod permits per refreshPeriod to the pool
+     *
+     * @param weight share of the pool while all lanes are busy; 0 or less follows limitForPeriod
+     * @param maxBorrow permits per refresh period the lane may take beyond its limit; less than 0 for no cap
+     */
+    public Lane addLane(String name, int limitForPeriod, Duration refreshPeriod, double weight, int maxQueue,
+                        int maxBorrow) {
+        lock.lock();
+        try {
+            Lane lane = new Lane(name, limitForPeriod, refreshPeriod.toNanos(), weight, maxQueue, maxBorrow);
+            lanes.add(lane);
+            resize();
+            permits = maxPermits;
+            return lane;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take permits for a call in the lane, waiting up to maxWaitNanos
+     * (0 takes them only if that needs no waiting)
+     */
+    public Admission acquire(Lane lane, int count, long maxWaitNanos) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            refill(start);
+            Admission atOnce = admitAtOnce(lane, count, maxWaitNanos, start);
+            if (atOnce != null) {
+                return atOnce;
+            }
+
+            Waiter waiter = enqueue(lane, new Waiter(count, start, lock.newCondition(), null), start);
+            long deadline = start + maxWaitNanos;
+            try {
+                long left = maxWaitNanos;
+                while (!waiter.granted && left > 0) {
+                    waiter.condition.awaitNanos(left);
+                    left = deadline - System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long waited = System.nanoTime() - start;
+            if (waiter.granted) {
+                return Admission.admitted(Outcome.ADMITTED_AFTER_WAIT, waited, waiter.borrowed);
+            }
+            dequeue(lane, waiter);
+            return Admission.rejected(Outcome.REJECTED_TIMEOUT, waited);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Same as acquire, but without blocking the caller: a call that has to
+     * wait gets its admission once the dispatcher grants its permits or its
+     * wait runs out. The returned future is completed on the dispatcher then,
+     * outside the pool's lock.
+     */
+    public CompletableFuture<Admission> acquireAsync(Lane lane, int count, long maxWaitNanos) {
+        long start = System.nanoTime();
+        Waiter waiter;
+        lock.lock();
+        try {
+            refill(start);
+            Admission atOnce = admitAtOnce(lane, count, maxWaitNanos, start);
+            if (atOnce != null) {
+                return CompletableFuture.completedFuture(atOnce);
+            }
+            waiter = enqueue(lane, new Waiter(count, start, null, new CompletableFuture<>()), start);
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.schedule(() -> expire(lane, waiter), maxWaitNanos, TimeUnit.NANOSECONDS);
+        return waiter.future;
+    }
+
+    /**
+     * The admission of a call that needs no waiting (admitted or rejected),
+     * or null when the call has to queue
+     */
+    private Admission admitAtOnce(Lane lane, int count, long maxWaitNanos, long now) {
+        if (count > maxPermits || (lane.maxBorrow >= 0 && count > lane.limitForPeriod + lane.maxBorrow)) {
+            return Admission.rejected(Outcome.REJECTED_OVER_CAPACITY, 0);
+        }
+        if (waiting == 0 && permits >= count && withinCap(lane, count, now)) {
+            return Admission.admitted(Outcome.ADMITTED, 0, take(lane, count, now));
+        }
+        if (maxWaitNanos <= 0 || lane.queue.size() >= lane.maxQueue) {
+            return Admission.rejected(Outcome.REJECTED_QUEUE_FULL, 0);
+        }
+        return null;
+    }
+
+    private Waiter enqueue(Lane lane, Waiter waiter, long now) {
+        if (lane.queue.isEmpty()) {
+            lane.pass = Math.max(lane.pass, virtualTime);
+        }
+        lane.queue.addLast(waiter);
+        lane.queued++;
+        waiting++;
+        scheduleDispatch(now);
+        return waiter;
+    }
+
+    private void dequeue(Lane lane, Waiter waiter) {
+        lane.queue.remove(waiter);
+        lane.queued--;
+        waiting--;
+    }
+
+    /**
+     * Reject an async waiter whose wait ran out before it was granted
+     */
+    private void expire(Lane lane, Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiter.granted) {
+                return;
+            }
+            dequeue(lane, waiter);
+        } finally {
+            lock.unlock();
+        }
+        waiter.future.complete(Admission.rejected(Outcome.REJECTED_TIMEOUT, System.nanoTime() - waiter.start));
+    }
+
+    /**
+     * Change a lane's contribution to the pool (and its weight, if that
+     * follows the limit), scaling its borrow cap along
+     */
+    public void changeLimit(Lane lane, int limitForPeriod) {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            lane.limitForPeriod = limitForPeriod;
+            lane.maxBorrow = lane.configuredMaxBorrow < 0
+                ? lane.configuredMaxBorrow
+                : (int) ((long) lane.configuredMaxBorrow * limitForPeriod / lane.configuredLimit);
+            resize();
+            permits = Math.min(permits, maxPermits);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop all permits left in the pool; waiting calls get the next ones
+     */
+    public void drain() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            permits = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAvailablePermits() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            return (int) permits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxPermits() {
+        lock.lock();
+        try {
+            return (int) maxPermits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resize() {
+        maxPermits = 0;
+        permitsPerNano = 0;
+        for (Lane lane : lanes) {
+            maxPermits += lane.limitForPeriod;
+            permitsPerNano += (double) lane.limitForPeriod / lane.refreshNanos;
+        }
+    }
+
+    private void refill(long now) {
+        permits = Math.min(maxPermits, permits + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+
+    /**
+     * Take permits for the lane, returning how many of them it borrowed,
+     * that is took beyond its own limit in its current refresh period
+     */
+    private int take(Lane lane, int count, long now) {
+        permits -= count;
+        if (now - lane.periodStart >= lane.refreshNanos) {
+            lane.periodStart = now;
+            lane.usedInPeriod = 0;
+        }
+        int ownLeft = Math.max(0, lane.limitForPeriod - lane.usedInPeriod);
+        lane.usedInPeriod += count;
+        return Math.max(0, count - ownLeft);
+    }
+
+    /**
+     * Whether the lane may take count more permits in its current refresh
+     * period without going over its borrow cap
+     */
+    private boolean withinCap(Lane lane, int count, long now) {
+        if (lane.maxBorrow < 0) {
+            return true;
+        }
+        int used = now - lane.periodStart >= lane.refreshNanos ? 0 : lane.usedInPeriod;
+        return used + count <= lane.limitForPeriod + lane.maxBorrow;
+    }
+
+    private void scheduleDispatch(long now) {
+        if (dispatchScheduled) {
+            return;
+        }
+        long delay = -1;
+        Lane next = nextLane(now);
+        if (next != null) {
+            double missing = next.queue.peekFirst().count - permits;
+            if (missing <= 0) {
+                delay = 0;
+            } else if (permitsPerNano > 0) {
+                delay = (long) Math.ceil(missing / permitsPerNano);
+            }
+        }
+        // lanes held back by their cap are due again when their period ends
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty() && !withinCap(lane, lane.queue.peekFirst().count, now)) {
+                long periodLeft = lane.periodStart + lane.refreshNanos - now;
+                delay = delay < 0 ? periodLeft : Math.min(delay, periodLeft);
+            }
+        }
+        if (delay < 0) {
+            return;
+        }
+        dispatchScheduled = true;
+        dispatcher.schedule(this::dispatch, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch() {
+        List<Waiter> grantedAsync = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            dispatchScheduled = false;
+            refill(now);
+            Lane lane;
+            while ((lane = nextLane(now)) != null && permits >= lane.queue.peekFirst().count) {
+                Waiter waiter = lane.queue.pollFirst();
+                lane.queued--;
+                waiting--;
+                virtualTime = lane.pass;
+                lane.pass += waiter.count / lane.weight();
+                waiter.borrowed = take(lane, waiter.count, now);
+                waiter.granted = true;
+                if (waiter.future != null) {
+                    grantedAsync.add(waiter);
+                } else {
+                    waiter.condition.signal();
+                }
+            }
+            if (waiting > 0) {
+                scheduleDispatch(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : grantedAsync) {
+            waiter.future.complete(Admission.admitted(Outcome.ADMITTED_AFTER_WAIT, now - waiter.start, waiter.borrowed));
+        }
+    }
+
+    /**
+     * The waiting lane with the lowest pass, leaving out lanes at their borrow cap
+     */
+    private Lane nextLane(long now) {
+        Lane next = null;
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty() && (next == null || lane.pass < next.pass)
+                && withinCap(lane, lane.queue.peekFirst().count, now)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    public enum Outcome {
+        ADMITTED,
+        /** Admitted once permits came up */
+        ADMITTED_AFTER_WAIT,
+        /** The lane's queue was full, or the call could not wait */
+        REJECTED_QUEUE_FULL,
+        REJECTED_TIMEOUT,
+        /** More permits asked for than the pool holds, or than the lane's cap lets it take */
+        REJECTED_OVER_CAPACITY
+    }
+
+    /**
+     * What became of a call: its outcome, how long it waited and how many
+     * of its permits were borrowed from other lanes' shares
+     */
+    public record Admission(Outcome outcome, long waitedNanos, int borrowed) {
+
+        static Admission admitted(Outcome outcome, long waitedNanos, int borrowed) {
+            return new Admission(outcome, waitedNanos, borrowed);
+        }
+
+        static Admission rejected(Outcome outcome, long waitedNanos) {
+            return new Admission(outcome, waitedNanos, 0);
+        }
+
+        public boolean isAdmitted() {
+            return outcome == Outcome.ADMITTED || outcome == Outcome.ADMITTED_AFTER_WAIT;
+        }
+    }
+
+    /**
+     * A lane's share of the pool and its queue; guarded by the pool's lock
+     */
+    public static final class Lane {
+        private final String name;
+        private final long refreshNanos;
+        private final double configuredWeight;
+        private final int maxQueue;
+        private final int configuredLimit;
+        private final int configuredMaxBorrow;
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private volatile int maxBorrow;
+        private volatile int limitForPeriod;
+        private volatile int queued;
+        private double pass;
+        private long periodStart = System.nanoTime();
+        private int usedInPeriod;
+
+        private Lane(String name, int limitForPeriod, long refreshNanos, double weight, int maxQueue, int maxBorrow) {
+            this.name = name;
+            this.limitForPeriod = limitForPeriod;
+            this.refreshNanos = refreshNanos;
+            this.configuredWeight = weight;
+            this.maxQueue = maxQueue;
+            this.configuredLimit = Math.max(1, limitForPeriod);
+            this.configuredMaxBorrow = maxBorrow;
+            this.maxBorrow = maxBorrow;
+        }
+
+        private double weight() {
+            return configuredWeight > 0 ? configuredWeight : Math.max(1, limitForPeriod);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLimitForPeriod() {
+            return limitForPeriod;
+        }
+
+        public double getWeight() {
+            return weight();
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        /** Permits per refresh period the lane may borrow; less than 0 for no cap */
+        public int getMaxBorrow() {
+            return maxBorrow;
+        }
+
+        /** Calls currently waiting in the lane */
+        public int getQueued() {
+            return queued;
+        }
+    }
+
+    /**
+     * A queued call: a blocked thread waits on the condition, an async call
+     * on the future
+     */
+    private static final class Waiter {
+        private final int count;
+        private final long start;
+        private final Condition condition;
+        private final CompletableFuture<Admission> future;
+        private boolean granted;
+        private int borrowed;
+
+        private Waiter(int count, long start, Condition condition, CompletableFuture<Admission> future) {
+            this.count = count;
+            this.start = start;
+            this.condition = condition;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.resilience.ratelimit;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnFailureEvent;
+import io.github.resilience4j.ratelimiter.event.RateLimiterOnSuccessEvent;
+import io.github.resilience4j.ratelimiter.internal.RateLimiterEventProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A resilience4j RateLimiter taking its permits from a SharedPermitPool
+ *
+ * Stands in for a configured rate limiter, whose limitForPeriod becomes the
+ * tier's contribution to the pool. Instead of failing at once when the pool
+ * is empty, a call waits up to the tier's max wait in the tier's queue
+ * (timeoutDuration reports and changes that wait). changeLimitForPeriod
+ * changes the tier's contribution, so cluster shares still apply; unlike a
+ * plain rate limiter's it may be 0, leaving the tier only what it borrows.
+ * reservePermission only succeeds when a permit is free right away, since
+ * a waiting call's turn depends on the other tiers.
+ *
+ * acquirePermission parks the calling thread while it waits.
+ * RateLimiter.decorateCompletionStage does the same, blocking the thread
+ * that starts the stage. Async callers use decorateCompletionStage here
+ * instead: it waits for the permit without blocking and starts the stage
+ * once the permit is granted. Events and metrics are the tier's own; tags
+ * are the replaced limiter's.
+ */
+public class TierRateLimiter implements RateLimiter {
+
+    private final String name;
+    private final Map<String, String> tags;
+    private final SharedPermitPool pool;
+    private final SharedPermitPool.Lane lane;
+    private final Map<SharedPermitPool.Outcome, Counter> calls;
+    private final Counter borrowed;
+    private final Timer wait;
+    private final RateLimiterEventProcessor eventProcessor = new RateLimiterEventProcessor();
+    private final Metrics metrics = new TierMetrics();
+    private volatile RateLimiterConfig config;
+
+    public TierRateLimiter(RateLimiter replaced, Duration maxWait, SharedPermitPool pool, SharedPermitPool.Lane lane,
+                           Map<SharedPermitPool.Outcome, Counter> calls, Counter borrowed, Timer wait) {
+        this.name = replaced.getName();
+        this.tags = replaced.getTags();
+        this.pool = pool;
+        this.lane = lane;
+        this.calls = calls;
+        this.borrowed = borrowed;
+        this.wait = wait;
+        this.config = RateLimiterConfig.from(replaced.getRateLimiterConfig())
+            .timeoutDuration(maxWait)
+            .build();
+    }
+
+    @Override
+    public boolean acquirePermission(int permits) {
+        return admit(permits, config.getTimeoutDuration().toNanos());
+    }
+
+    @Override
+    public long reservePermission(int permits) {
+        return admit(permits, 0) ? 0 : -1;
+    }
+
+    /**
+     * Take permits, waiting for them without blocking the caller; completes
+     * with whether they were granted
+     */
+    public CompletableFuture<Boolean> acquirePermissionAsync(int permits) {
+        return pool.acquireAsync(lane, permits, config.getTimeoutDuration().toNanos())
+            .thenApply(admission -> record(admission, permits));
+    }
+
+    /**
+     * Start the stage once a permit is granted, failing with
+     * RequestNotPermitted when none is; the caller is not blocked meanwhile
+     */
+    public <T> Supplier<CompletionStage<T>> decorateCompletionStage(Supplier<CompletionStage<T>> supplier) {
+        return () -> acquirePermissionAsync(1).thenCompose(permitted -> permitted
+            ? supplier.get()
+            : CompletableFuture.failedFuture(RequestNotPermitted.createRequestNotPermitted(this)));
+    }
+
+    private boolean admit(int permits, long maxWaitNanos) {
+        return record(pool.acquire(lane, permits, maxWaitNanos), permits);
+    }
+
+    private boolean record(SharedPermitPool.Admission admission, int permits) {
+        calls.get(admission.outcome()).increment();
+        if (admission.isAdmitted()) {
+            wait.record(admission.waitedNanos(), TimeUnit.NANOSECONDS);
+            if (admission.borrowed() > 0) {
+                borrowed.increment(admission.borrowed());
+            }
+        }
+        if (eventProcessor.hasConsumers()) {
+            eventProcessor.consumeEvent(admission.isAdmitted()
+                ? new RateLimiterOnSuccessEvent(name, permits)
+                : new RateLimiterOnFailureEvent(name, permits));
+        }
+        return admission.isAdmitted();
+    }
+
+    @Override
+    public void changeTimeoutDuration(Duration timeoutDuration) {
+        config = RateLimiterConfig.from(config).timeoutDuration(timeoutDuration).build();
+    }
+
+    @Override
+    public void changeLimitForPeriod(int limitForPeriod) {
+        pool.changeLimit(lane, Math.max(0, limitForPeriod));
+        // RateLimiterConfig needs at least 1; a contribution of 0 lives in the lane only
+        config = RateLimiterConfig.from(config).limitForPeriod(Math.max(1, limitForPeriod)).build();
+    }
+
+    /**
+     * Drains the whole pool, which the tiers share
+     */
+    @Override
+    public void drainPermissions() {
+        pool.drain();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public RateLimiterConfig getRateLimiterConfig() {
+        return config;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return eventProcessor;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limitForPeriod", lane.getLimitForPeriod());
+        stats.put("weight", lane.getWeight());
+        stats.put("maxBorrow", lane.getMaxBorrow());
+        stats.put("maxQueue", lane.getMaxQueue());
+        stats.put("maxWaitMs", config.getTimeoutDuration().toMillis());
+        stats.put("queued", lane.getQueued());
+        calls.forEach((outcome, counter) -> stats.put(outcome.name().toLowerCase(), (long) counter.count()));
+        stats.put("borrowedPermits", (long) borrowed.count());
+
+        HistogramSnapshot snapshot = wait.takeSnapshot();
+        stats.put("waitMeanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("waitP" + Math.round(percentile.percentile() * 100) + "Ms",
+                round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        stats.put("waitMaxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private final class TierMetrics implements Metrics {
+
+        @Override
+        public int getNumberOfWaitingThreads() {
+            return lane.getQueued();
+        }
+
+        /**
+         * Permits left in the shared pool
+         */
+        @Override
+        public int getAvailablePermissions() {
+            return pool.getAvailablePermits();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.resilience.ratelimit;
+
+import com.example.resilience.config.RateLimiterTierProperties;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Puts the rate limiters listed under ratelimiter-tiers.tiers on one shared
+ * pool of permits
+ *
+ * At startup each tier's instance in the RateLimiterRegistry is replaced by
+ * a TierRateLimiter, so @RateLimiter annotations and programmatic callers
+ * alike draw from the pool. Callers holding on to a limiter should get it
+ * from rateLimiter(name), which returns it after the replacement. While all
+ * tiers are busy the pool is split by weight; a tier that is idle lends its
+ * share to the others, up to what each borrower's maxBorrow allows, and
+ * calls over the pool wait briefly in their tier's queue rather than being
+ * rejected at once (see SharedPermitPool).
+ *
+ * Metrics:
+ * - ratelimiter.tier.calls{name,outcome} - admitted, admitted_after_wait,
+ *   rejected_queue_full, rejected_timeout or rejected_over_capacity
+ * - ratelimiter.tier.wait{name} - time admitted calls waited for a permit
+ * - ratelimiter.tier.borrowed{name} - permits taken beyond the tier's own
+ *   limitForPeriod, out of other tiers' idle share
+ */
+@Component
+@EnableConfigurationProperties(RateLimiterTierProperties.class)
+public class TieredRateLimiterRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredRateLimiterRegistry.class);
+
+    private final RateLimiterTierProperties properties;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final Map<String, TierRateLimiter> tiers = new LinkedHashMap<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ratelimit-tiers");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SharedPermitPool pool = new SharedPermitPool(dispatcher);
+
+    public TieredRateLimiterRegistry(RateLimiterTierProperties properties, RateLimiterRegistry rateLimiterRegistry,
+                                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+        properties.getTiers().keySet().forEach(name -> {
+            RateLimiterTierProperties.Tier tier = properties.forTier(name);
+            RateLimiter replaced = rateLimiterRegistry.rateLimiter(name);
+            RateLimiterConfig config = replaced.getRateLimiterConfig();
+            SharedPermitPool.Lane lane = pool.addLane(name, config.getLimitForPeriod(),
+                config.getLimitRefreshPeriod(), tier.getWeight(), tier.getMaxQueue(), tier.getMaxBorrow());
+
+            Map<SharedPermitPool.Outcome, Counter> calls = new EnumMap<>(SharedPermitPool.Outcome.class);
+            for (SharedPermitPool.Outcome outcome : SharedPermitPool.Outcome.values()) {
+                calls.put(outcome, Counter.builder("ratelimiter.tier.calls")
+                    .description("Calls through a rate limiter tier by outcome")
+                    .tag("name", name)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+            }
+            Counter borrowed = Counter.builder("ratelimiter.tier.borrowed")
+                .description("Permits a tier took beyond its own limit, out of idle tiers' share")
+                .tag("name", name)
+                .register(meterRegistry);
+            Timer wait = Timer.builder("ratelimiter.tier.wait")
+                .description("Time admitted calls waited in a tier's queue")
+                .tag("name", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+            TierRateLimiter tierLimiter = new TierRateLimiter(replaced, tier.getMaxWait(), pool, lane,
+                calls, borrowed, wait);
+            rateLimiterRegistry.replace(name, tierLimiter);
+            tiers.put(name, tierLimiter);
+        });
+        logger.info("Rate limiter tiers {} sharing {} permits", tiers.keySet(), pool.getMaxPermits());
+    }
+
+    /**
+     * The rate limiter of the given name, a tier's once tiers are in place
+     */
+    public RateLimiter rateLimiter(String name) {
+        return rateLimiterRegistry.rateLimiter(name);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("poolPermits", pool.getMaxPermits());
+        stats.put("availablePermits", pool.getAvailablePermits());
+        Map<String, Object> tierStats = new LinkedHashMap<>();
+        tiers.forEach((name, tier) -> tierStats.put(name, tier.getStats()));
+        stats.put("tiers", tierStats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.resilience.retry;
+
+import io.github.resilience4j.core.EventConsumer;
+import io.github.resilience4j.core.EventProcessor;
+import io.github.resilience4j.retry.MaxRetriesExceeded;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.event.RetryEvent;
+import io.github.resilience4j.retry.event.RetryOnErrorEvent;
+import io.github.resilience4j.retry.event.RetryOnIgnoredErrorEvent;
+import io.github.resilience4j.retry.event.RetryOnRetryEvent;
+import io.github.resilience4j.retry.event.RetryOnSuccessEvent;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A resilience4j Retry whose retries are paid for from a RetryBudget
+ *
+ * Wraps the configured retry and decides, before each retry, whether it may
+ * happen at all: not while serving a request from another service, which
+ * retries itself (see RetryAttempt), and not without a token from the
+ * budget. That holds for retries on an exception and on a result the retry's
+ * result predicate rejects. A refused retry fails fast with the attempt's own
+ * exception, or returns the rejected result, so fallbacks run as they would
+ * after the last attempt. Everything else (back-off, exception rules,
+ * events, metrics) is the wrapped retry's.
+ *
+ * The wrapped retry cannot be told that an attempt is its last without
+ * waiting out the back-off, so a refused retry is recorded here: it counts
+ * as a failed call (with or without retry attempts) in getMetrics() and is
+ * published as a RetryOnErrorEvent, next to the wrapped retry's own events.
+ *
+ * Synchronous retries also publish their attempt number for outgoing calls
+ * made on the same thread.
+ */
+public class BudgetedRetry implements Retry {
+
+    private final Retry delegate;
+    private final RetryBudget budget;
+    private final Counter exhausted;
+    private final Counter upstreamRetry;
+    private final BudgetedEventProcessor eventProcessor = new BudgetedEventProcessor();
+    private final LongAdder refusedWithoutRetry = new LongAdder();
+    private final LongAdder refusedWithRetry = new LongAdder();
+    private final Metrics metrics = new BudgetedMetrics();
+
+    public BudgetedRetry(Retry delegate, RetryBudget budget, Counter exhausted, Counter upstreamRetry) {
+        this.delegate = delegate;
+        this.budget = budget;
+        this.exhausted = exhausted;
+        this.upstreamRetry = upstreamRetry;
+        delegate.getEventPublisher().onEvent(eventProcessor::consumeEvent);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public <T> Context<T> context() {
+        return new BudgetedContext<>(delegate.context());
+    }
+
+    @Override
+    public <T> AsyncContext<T> asyncContext() {
+        return new BudgetedAsyncContext<>(delegate.asyncContext());
+    }
+
+    @Override
+    public RetryConfig getRetryConfig() {
+        return delegate.getRetryConfig();
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return delegate.getTags();
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return eventProcessor;
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Whether the wrapped retry would retry after this failure
+     */
+    private boolean wouldRetry(Throwable error, int attempt) {
+        RetryConfig config = delegate.getRetryConfig();
+        return attempt + 1 < config.getMaxAttempts() && config.getExceptionPredicate().test(error);
+    }
+
+    /**
+     * Whether the wrapped retry would retry after this result
+     */
+    private boolean wouldRetryResult(Object result, int attempt) {
+        RetryConfig config = delegate.getRetryConfig();
+        Predicate<Object> predicate = config.getResultPredicate();
+        return attempt + 1 < config.getMaxAttempts() && predicate != null && predicate.test(result);
+    }
+
+    private boolean admit(boolean edge) {
+        if (!edge) {
+            upstreamRetry.increment();
+            return false;
+        }
+        if (!budget.tryWithdraw()) {
+            exhausted.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record a call that failed because its retry was refused
+     *
+     * @param retries retries made before the refused one
+     */
+    private void recordRefused(Throwable error, int retries) {
+        (retries > 0 ? refusedWithRetry : refusedWithoutRetry).increment();
+        eventProcessor.consumeEvent(new RetryOnErrorEvent(getName(), retries + 1, error));
+    }
+
+    private void recordRefusedResult(int retries) {
+        recordRefused(new MaxRetriesExceeded("Retry of '" + getName() + "' refused for its result"), retries);
+    }
+
+    private final class BudgetedContext<T> implements Context<T> {
+        private final Context<T> context;
+        private final boolean edge = RetryAttempt.isEdge();
+        private final Integer previousAttempt = RetryAttempt.setCurrent(0);
+        private int attempt;
+        private boolean refusedResult;
+
+        private BudgetedContext(Context<T> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onComplete() {
+            RetryAttempt.setCurrent(previousAttempt);
+            if (refusedResult) {
+                recordRefusedResult(attempt);
+                return;
+            }
+            budget.deposit();
+            context.onComplete();
+        }
+
+        @Override
+        public boolean onResult(T result) {
+            if (wouldRetryResult(result, attempt) && !admit(edge)) {
+                refusedResult = true;
+                return false;
+            }
+            boolean retry = context.onResult(result);
+            if (retry) {
+                RetryAttempt.setCurrent(++attempt);
+            }
+            return retry;
+        }
+
+        @Override
+        public void onError(Exception exception) throws Exception {
+            if (wouldRetry(exception, attempt) && !admit(edge)) {
+                RetryAttempt.setCurrent(previousAttempt);
+                recordRefused(exception, attempt);
+                throw exception;
+            }
+            try {
+                context.onError(exception);
+            } catch (Exception e) {
+                RetryAttempt.setCurrent(previousAttempt);
+                throw e;
+            }
+            RetryAttempt.setCurrent(++attempt);
+        }
+
+        @Override
+        public void onRuntimeError(RuntimeException exception) {
+            if (wouldRetry(exception, attempt) && !admit(edge)) {
+                RetryAttempt.setCurrent(previousAttempt);
+                recordRefused(exception, attempt);
+                throw exception;
+            }
+            try {
+                context.onRuntimeError(exception);
+            } catch (RuntimeException e) {
+                RetryAttempt.setCurrent(previousAttempt);
+                throw e;
+            }
+            RetryAttempt.setCurrent(++attempt);
+        }
+    }
+
+    private final class BudgetedAsyncContext<T> implements AsyncContext<T> {
+        private final AsyncContext<T> context;
+        private final boolean edge = RetryAttempt.isEdge();
+        private int attempt;
+        private boolean refusedResult;
+
+        private BudgetedAsyncContext(AsyncContext<T> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onComplete() {
+            if (refusedResult) {
+                recordRefusedResult(attempt);
+                return;
+            }
+            budget.deposit();
+            context.onComplete();
+        }
+
+        @Override
+        public long onError(Throwable throwable) {
+            Throwable cause = throwable;
+            if ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (wouldRetry(cause, attempt) && !admit(edge)) {
+                recordRefused(cause, attempt);
+                return -1;
+            }
+            long delay = context.onError(throwable);
+            if (delay >= 0) {
+                attempt++;
+            }
+            return delay;
+        }
+
+        @Override
+        public long onResult(T result) {
+            if (wouldRetryResult(result, attempt) && !admit(edge)) {
+                refusedResult = true;
+                return -1;
+            }
+            long delay = context.onResult(result);
+            if (delay >= 0) {
+                attempt++;
+            }
+            return delay;
+        }
+    }
+
+    private final class BudgetedMetrics implements Metrics {
+
+        @Override
+        public long getNumberOfSuccessfulCallsWithoutRetryAttempt() {
+            return delegate.getMetrics().getNumberOfSuccessfulCallsWithoutRetryAttempt();
+        }
+
+        @Override
+        public long getNumberOfFailedCallsWithoutRetryAttempt() {
+            return delegate.getMetrics().getNumberOfFailedCallsWithoutRetryAttempt() + refusedWithoutRetry.sum();
+        }
+
+        @Override
+        public long getNumberOfSuccessfulCallsWithRetryAttempt() {
+            return delegate.getMetrics().getNumberOfSuccessfulCallsWithRetryAttempt();
+        }
+
+        @Override
+        public long getNumberOfFailedCallsWithRetryAttempt() {
+            return delegate.getMetrics().getNumberOfFailedCallsWithRetryAttempt() + refusedWithRetry.sum();
+        }
+
+        @Override
+        public long getNumberOfTotalCalls() {
+            return delegate.getMetrics().getNumberOfTotalCalls() + refusedWithoutRetry.sum() + refusedWithRetry.sum();
+        }
+    }
+
+    /**
+     * The wrapped retry's events plus those of refused retries
+     */
+    private static final class BudgetedEventProcessor extends EventProcessor<RetryEvent>
+        implements EventConsumer<RetryEvent>, EventPublisher {
+
+        @Override
+        public void consumeEvent(RetryEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public EventPublisher onRetry(EventConsumer<RetryOnRetryEvent> consumer) {
+            registerConsumer(RetryOnRetryEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onSuccess(EventConsumer<RetryOnSuccessEvent> consumer) {
+            registerConsumer(RetryOnSuccessEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onError(EventConsumer<RetryOnErrorEvent> consumer) {
+            registerConsumer(RetryOnErrorEvent.class.getName(), consumer);
+            return this;
+        }
+
+        @Override
+        public EventPublisher onIgnoredError(EventConsumer<RetryOnIgnoredErrorEvent> consumer) {
+            registerConsumer(RetryOnIgnoredErrorEvent.class.getName(), consumer);
+            return this;
+        }
+    }
+}
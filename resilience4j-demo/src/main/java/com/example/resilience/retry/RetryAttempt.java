@@ -0,0 +1,83 @@
+package com.example.resilience.retry;
+
+/**
+ * Retry attempt propagated along a call chain in the X-Retry-Attempt header
+ *
+ * Every outgoing call carries the header, with the attempt number of the
+ * retry that makes it (0 for a first attempt), or the attempt number of the
+ * request being served if that is higher. Only the edge - the service that
+ * received a request without the header - retries; a service serving a
+ * request that carries it, first attempt or not, makes a single attempt at
+ * each of its own dependencies and leaves the retrying to the edge.
+ *
+ * Without this, every layer of start -> middle -> end retrying 3 times makes
+ * up to 3 x 3 calls to end for one failing request. With it, only start
+ * retries, so end sees at most 3 calls.
+ */
+public final class RetryAttempt {
+
+    public static final String HEADER = "X-Retry-Attempt";
+
+    private static final ThreadLocal<Integer> INBOUND = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private RetryAttempt() {
+    }
+
+    /**
+     * Attempt number of the request this thread is serving (0 if none)
+     */
+    public static int inbound() {
+        Integer attempt = INBOUND.get();
+        return attempt == null ? 0 : attempt;
+    }
+
+    /**
+     * Whether this thread serves a request that came without the header (or
+     * no request at all), so its calls may be retried
+     */
+    public static boolean isEdge() {
+        return INBOUND.get() == null;
+    }
+
+    /**
+     * Attempt number to send on an outgoing call from this thread
+     */
+    public static int outgoing() {
+        Integer current = CURRENT.get();
+        return Math.max(inbound(), current == null ? 0 : current);
+    }
+
+    static void setInbound(Integer attempt) {
+        if (attempt == null) {
+            INBOUND.remove();
+        } else {
+            INBOUND.set(attempt);
+        }
+    }
+
+    /**
+     * Set the attempt of the retry running on this thread; returns the
+     * previous value to restore when the retry ends
+     */
+    static Integer setCurrent(Integer attempt) {
+        Integer previous = CURRENT.get();
+        if (attempt == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(attempt);
+        }
+        return previous;
+    }
+
+    static int parse(String header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(header.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
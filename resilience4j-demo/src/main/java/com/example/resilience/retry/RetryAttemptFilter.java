@@ -0,0 +1,34 @@
+package com.example.resilience.retry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes the X-Retry-Attempt of an incoming request available to the
+ * retries made while serving it
+ */
+@Component
+public class RetryAttemptFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String header = request.getHeader(RetryAttempt.HEADER);
+        if (header == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RetryAttempt.setInbound(RetryAttempt.parse(header));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RetryAttempt.setInbound(null);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.resilience.retry;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Adds X-Retry-Attempt to outgoing RestTemplate calls
+ */
+public class RetryAttemptInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set(RetryAttempt.HEADER, Integer.toString(RetryAttempt.outgoing()));
+        return execution.execute(request, body);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.resilience.retry;
+
+import com.example.resilience.config.RetryBudgetProperties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting how many retries one retry instance may make
+ *
+ * Successful calls deposit a fraction of a token, every retry withdraws a
+ * whole one, and a small trickle per second keeps a quiet instance able to
+ * retry at all. While a dependency is healthy the bucket stays full; when it
+ * browns out, successes stop, the saved tokens are spent within a few
+ * failures and further retries are refused until calls succeed again. Extra
+ * load from retries is thereby held to about depositRatio of the successful
+ * load instead of maxAttempts times the failing load.
+ *
+ * Tokens are kept in thousandths so deposits stay lock-free.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final double trickleNanosPerToken;
+    private final AtomicLong balance;
+    private long lastTrickle = System.nanoTime();
+
+    public RetryBudget(RetryBudgetProperties.Budget budget) {
+        this.deposit = Math.round(budget.getDepositRatio() * SCALE);
+        this.capacity = (long) budget.getMaxTokens() * SCALE;
+        this.trickleNanosPerToken = budget.getMinRetriesPerSecond() > 0
+            ? 1e9 / (budget.getMinRetriesPerSecond() * SCALE)
+            : 0;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Credit a successful call
+     */
+    public void deposit() {
+        add(deposit);
+    }
+
+    /**
+     * Take one token for a retry; false when the budget is spent
+     */
+    public boolean tryWithdraw() {
+        trickle();
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getTokens() {
+        return (double) balance.get() / SCALE;
+    }
+
+    private synchronized void trickle() {
+        if (trickleNanosPerToken == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long earned = (long) ((now - lastTrickle) / trickleNanosPerToken);
+        if (earned > 0) {
+            lastTrickle += (long) (earned * trickleNanosPerToken);
+            add(earned);
+        }
+    }
+
+    private void add(long amount) {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + amount)));
+    }
+}
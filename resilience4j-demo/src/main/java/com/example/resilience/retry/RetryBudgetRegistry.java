@@ -0,0 +1,111 @@
+package com.example.resilience.retry;
+
+import com.example.resilience.config.RetryBudgetProperties;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts every resilience4j retry instance on a retry budget
+ *
+ * At startup each configured instance in the RetryRegistry is replaced by a
+ * BudgetedRetry, so @Retry annotations and programmatic callers alike draw
+ * from the instance's budget. Retries derived from an instance (such as the
+ * "-async" variants) share its budget.
+ *
+ * Metrics:
+ * - retry.budget.tokens{name} - retries currently affordable
+ * - retry.budget.rejected{name,reason} - retries refused, reason "exhausted"
+ *   (no tokens left) or "upstream_retry" (serving another service's request)
+ */
+@Component
+@EnableConfigurationProperties(RetryBudgetProperties.class)
+public class RetryBudgetRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudgetRegistry.class);
+
+    private final RetryBudgetProperties properties;
+    private final RetryRegistry retryRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    public RetryBudgetRegistry(RetryBudgetProperties properties, RetryRegistry retryRegistry,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.retryRegistry = retryRegistry;
+        this.meterRegistry = meterRegistry;
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Retry retry : retryRegistry.getAllRetries()) {
+            budgeted(retry.getName(), retry.getName());
+        }
+        logger.info("Retry budgets applied to {}", budgets.keySet());
+    }
+
+    /**
+     * The retry of the given name, created from the config if missing and
+     * drawing from the budget of budgetName
+     */
+    public Retry retry(String name, String budgetName, RetryConfig config) {
+        Retry retry = retryRegistry.retry(name, config);
+        if (retry instanceof BudgetedRetry || !properties.isEnabled()) {
+            return retry;
+        }
+        return budgeted(name, budgetName);
+    }
+
+    private synchronized Retry budgeted(String name, String budgetName) {
+        Retry retry = retryRegistry.retry(name);
+        if (retry instanceof BudgetedRetry) {
+            return retry;
+        }
+        Budget budget = budgets.computeIfAbsent(budgetName, this::createBudget);
+        Retry budgeted = new BudgetedRetry(retry, budget.tokens, budget.exhausted, budget.upstreamRetry);
+        retryRegistry.replace(name, budgeted);
+        return budgeted;
+    }
+
+    private Budget createBudget(String name) {
+        RetryBudget tokens = new RetryBudget(properties.forInstance(name));
+        Gauge.builder("retry.budget.tokens", tokens, RetryBudget::getTokens)
+            .description("Retries the retry budget can currently pay for")
+            .tag("name", name)
+            .register(meterRegistry);
+        return new Budget(tokens,
+            rejectedCounter(name, "exhausted"),
+            rejectedCounter(name, "upstream_retry"));
+    }
+
+    private Counter rejectedCounter(String name, String reason) {
+        return Counter.builder("retry.budget.rejected")
+            .description("Retries refused by the retry budget")
+            .tag("name", name)
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        budgets.forEach((name, budget) -> stats.put(name, Map.of(
+            "tokens", Math.round(budget.tokens.getTokens() * 10) / 10.0,
+            "rejectedExhausted", (long) budget.exhausted.count(),
+            "rejectedUpstreamRetry", (long) budget.upstreamRetry.count())));
+        return stats;
+    }
+
+    private record Budget(RetryBudget tokens, Counter exhausted, Counter upstreamRetry) {
+    }
+}
@@ -1,17 +1,32 @@
 package com.example.resilience.service;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.example.resilience.async.AsyncResilienceExecutor;
+import com.example.resilience.async.HedgingExecutor;
+import com.example.resilience.cache.StaleResponseCache;
+import com.example.resilience.cache.StaleResponseCache.Stale;
+import com.example.resilience.coalesce.RequestCoalescer;
+import com.example.resilience.coalesce.SingleFlight;
+import com.example.resilience.decorate.FunctionalChains;
 import com.example.resilience.model.ApiResponse;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.decorators.Decorators;
 
 /**
  * Service demonstrating Circuit Breaker Pattern with Resilience4j
@@ -21,6 +36,15 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
  * - CLOSED: Normal operation, requests pass through
  * - OPEN: Too many failures detected, requests are blocked
  * - HALF_OPEN: Testing if the service has recovered
+ *
+ * Reads remember their last good response: while backendService fails or is
+ * open, its fallbacks serve that response (status STALE) and refresh it in
+ * the background through the breaker. Identical concurrent reads
+ * (@SingleFlight) share one call, counted once by the breaker.
+ *
+ * The annotated operations are also available as Decorators chains built at
+ * startup (*Chain methods), which skip the AOP proxies but keep the same
+ * breakers, fallbacks and single flights.
  */
 @Service
 public class CircuitBreakerService {
@@ -28,6 +52,41 @@ public class CircuitBreakerService {
     private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerService.class);
     private final AtomicInteger callCounter = new AtomicInteger(0);
     private final Random random = new Random();
+    private final AsyncResilienceExecutor asyncExecutor;
+    private final HedgingExecutor hedgingExecutor;
+    private final StaleResponseCache responseCache;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RequestCoalescer requestCoalescer;
+    private final Function<Boolean, ApiResponse> externalServiceChain;
+    private final Function<Double, ApiResponse> paymentChain;
+    private final Function<Long, ApiResponse> slowExternalServiceChain;
+
+    public CircuitBreakerService(AsyncResilienceExecutor asyncExecutor, HedgingExecutor hedgingExecutor,
+                                 StaleResponseCache responseCache, CircuitBreakerRegistry circuitBreakerRegistry,
+                                 RequestCoalescer requestCoalescer) {
+        this.asyncExecutor = asyncExecutor;
+        this.hedgingExecutor = hedgingExecutor;
+        this.responseCache = responseCache;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.requestCoalescer = requestCoalescer;
+
+        // Called on this (not the proxy), the annotated methods are the plain operations
+        this.externalServiceChain = singleFlight("callExternalService", FunctionalChains.withFallback(
+            Decorators.ofFunction(this::callExternalService)
+                .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("backendService"))
+                .decorate(),
+            this::circuitBreakerFallback));
+        this.paymentChain = FunctionalChains.withFallback(
+            Decorators.ofFunction(this::processPayment)
+                .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("paymentService"))
+                .decorate(),
+            this::paymentFallback);
+        this.slowExternalServiceChain = singleFlight("slowExternalService", FunctionalChains.withFallback(
+            Decorators.ofFunction(this::slowExternalService)
+                .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("backendService"))
+                .decorate(),
+            this::circuitBreakerFallback));
+    }
 
     /**
      * Demonstrates basic circuit breaker functionality
@@ -36,8 +95,13 @@ public class CircuitBreakerService {
      * @param shouldFail - controls whether the operation should fail
      * @return ApiResponse with operation result
      */
+    @SingleFlight
     @CircuitBreaker(name = "backendService", fallbackMethod = "circuitBreakerFallback")
     public ApiResponse callExternalService(boolean shouldFail) {
+        return responseCache.put(StaleResponseCache.key("callExternalService", shouldFail), externalCall(shouldFail));
+    }
+
+    private ApiResponse externalCall(boolean shouldFail) {
         int callNumber = callCounter.incrementAndGet();
         logger.info("Circuit Breaker - Call #{} to external service at {}", callNumber, LocalDateTime.now());
 
@@ -85,8 +149,77 @@ public class CircuitBreakerService {
      * @param delayMs - delay in milliseconds
      * @return ApiResponse with operation result
      */
+    @SingleFlight
     @CircuitBreaker(name = "backendService", fallbackMethod = "circuitBreakerFallback")
     public ApiResponse slowExternalService(long delayMs) {
+        return responseCache.put(StaleResponseCache.key("slowExternalService", delayMs), callSlowService(delayMs));
+    }
+
+    /**
+     * Non-blocking variant of slowExternalService
+     * Runs in the slowService thread-pool bulkhead and is interrupted when the
+     * slowService time limit (2s) expires, so slow calls neither hold Tomcat
+     * threads nor run on after the caller has given up
+     * 
+     * @param delayMs - delay in milliseconds
+     * @return future ApiResponse with operation or fallback result
+     */
+    public CompletableFuture<ApiResponse> slowExternalServiceAsync(long delayMs) {
+        return asyncExecutor.execute("slowService", "backendService", () -> callSlowService(delayMs))
+            .thenApply(response -> responseCache.put(StaleResponseCache.key("slowExternalService", delayMs), response))
+            .exceptionally(ex -> slowServiceAsyncFallback(delayMs, AsyncResilienceExecutor.unwrap(ex)));
+    }
+
+    /**
+     * Hedged variant of slowExternalServiceAsync
+     * Each attempt takes delayMs, except that a tailRate share of attempts take
+     * five times as long; once the slow service's p95 is known, a call still
+     * running after it gets a second attempt and the faster one answers
+     * 
+     * @param delayMs - usual delay in milliseconds
+     * @param tailRate - share of attempts that are slow outliers
+     * @return future ApiResponse with operation or fallback result
+     */
+    public CompletableFuture<ApiResponse> slowExternalServiceHedged(long delayMs, double tailRate) {
+        return hedgingExecutor.execute("slowService", () -> {
+            long attemptDelay = random.nextDouble() < tailRate ? delayMs * 5 : delayMs;
+            return asyncExecutor.execute("slowService", "backendService", () -> callSlowService(attemptDelay));
+        })
+            .thenApply(response -> responseCache.put(StaleResponseCache.key("slowExternalService", delayMs), response))
+            .exceptionally(ex -> slowServiceAsyncFallback(delayMs, AsyncResilienceExecutor.unwrap(ex)));
+    }
+
+    /**
+     * callExternalService as a Decorators chain, without the AOP proxies
+     */
+    public Function<Boolean, ApiResponse> externalServiceChain() {
+        return externalServiceChain;
+    }
+
+    /**
+     * processPayment as a Decorators chain, without the AOP proxy
+     */
+    public Function<Double, ApiResponse> paymentChain() {
+        return paymentChain;
+    }
+
+    /**
+     * slowExternalService as a Decorators chain, without the AOP proxies
+     */
+    public Function<Long, ApiResponse> slowExternalServiceChain() {
+        return slowExternalServiceChain;
+    }
+
+    /**
+     * Coalesce a chain under the same name and key as its @SingleFlight
+     * method, so calls in either mode share flights and metrics
+     */
+    private <T> Function<T, ApiResponse> singleFlight(String method, Function<T, ApiResponse> chain) {
+        String name = CircuitBreakerService.class.getSimpleName() + "." + method;
+        return argument -> requestCoalescer.execute(name, List.of(argument), () -> chain.apply(argument));
+    }
+
+    private ApiResponse callSlowService(long delayMs) {
         int callNumber = callCounter.incrementAndGet();
         logger.info("Call #{} to slow service (delay: {}ms)", callNumber, delayMs);
 
@@ -122,6 +255,13 @@ public class CircuitBreakerService {
      */
     private ApiResponse circuitBreakerFallback(boolean shouldFail, Exception ex) {
         logger.warn("Circuit Breaker Fallback executed. Reason: {}", ex.getMessage());
+
+        Optional<Stale<ApiResponse>> stale = responseCache.getStale(
+            StaleResponseCache.key("callExternalService", shouldFail), ApiResponse.class,
+            () -> circuitBreakerRegistry.circuitBreaker("backendService").executeSupplier(() -> externalCall(shouldFail)));
+        if (stale.isPresent()) {
+            return staleResponse(stale.get());
+        }
         
         String message;
         if (ex instanceof CallNotPermittedException) {
@@ -145,6 +285,11 @@ public class CircuitBreakerService {
      */
     private ApiResponse circuitBreakerFallback(long delayMs, Exception ex) {
         logger.warn("Circuit Breaker Fallback executed for slow service. Reason: {}", ex.getMessage());
+
+        Optional<Stale<ApiResponse>> stale = staleSlowService(delayMs);
+        if (stale.isPresent()) {
+            return staleResponse(stale.get());
+        }
         
         String message;
         if (ex instanceof CallNotPermittedException) {
@@ -160,6 +305,62 @@ public class CircuitBreakerService {
         );
     }
 
+    /**
+     * The last good slow service response for the delay, refreshed in the
+     * background through the backendService breaker
+     */
+    private Optional<Stale<ApiResponse>> staleSlowService(long delayMs) {
+        return responseCache.getStale(
+            StaleResponseCache.key("slowExternalService", delayMs), ApiResponse.class,
+            () -> circuitBreakerRegistry.circuitBreaker("backendService").executeSupplier(() -> callSlowService(delayMs)));
+    }
+
+    /**
+     * The last good response, marked as stale with its age
+     */
+    private ApiResponse staleResponse(Stale<ApiResponse> stale) {
+        long ageSeconds = stale.age().toSeconds();
+        logger.info("Serving cached response from {}s ago", ageSeconds);
+        return new ApiResponse(
+            stale.value().getMessage() + " (cached " + ageSeconds + "s ago - service unavailable, refreshing)",
+            "STALE",
+            "CIRCUIT_BREAKER"
+        );
+    }
+
+    /**
+     * Fallback for slowExternalServiceAsync
+     * Also covers time limit and bulkhead rejections, which serve the last
+     * good response too when there is one
+     */
+    private ApiResponse slowServiceAsyncFallback(long delayMs, Throwable ex) {
+        if (ex instanceof TimeoutException || ex instanceof BulkheadFullException) {
+            Optional<Stale<ApiResponse>> stale = staleSlowService(delayMs);
+            if (stale.isPresent()) {
+                logger.warn("Slow service {} - serving cached response (requested delay: {}ms)",
+                    ex instanceof TimeoutException ? "timed out" : "bulkhead full", delayMs);
+                return staleResponse(stale.get());
+            }
+        }
+        if (ex instanceof TimeoutException) {
+            logger.warn("Slow service timed out (requested delay: {}ms)", delayMs);
+            return new ApiResponse(
+                "Slow service did not respond within its time limit - call cancelled. Using fallback response.",
+                "FALLBACK",
+                "TIME_LIMITER"
+            );
+        }
+        if (ex instanceof BulkheadFullException) {
+            logger.warn("Slow service bulkhead full - rejecting call");
+            return new ApiResponse(
+                "Too many slow service calls in progress. Please try again later.",
+                "FALLBACK",
+                "BULKHEAD"
+            );
+        }
+        return circuitBreakerFallback(delayMs, ex instanceof Exception e ? e : new RuntimeException(ex));
+    }
+
     /**
      * Fallback method specifically for payment processing
      * Provides critical business logic for handling payment failures
@@ -1,8 +1,15 @@
 package com.example.resilience.service;
 
+import com.example.resilience.async.AsyncResilienceExecutor;
+import com.example.resilience.async.AsyncRetryExecutor;
+import com.example.resilience.decorate.FunctionalChains;
 import com.example.resilience.model.ApiResponse;
+import com.example.resilience.ratelimit.TieredRateLimiterRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.decorators.Decorators;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,7 +17,9 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Service demonstrating Combined Resilience Patterns
@@ -24,6 +33,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 1. RateLimiter - First check if we should allow the request
  * 2. CircuitBreaker - Then check if the service is available
  * 3. Retry - Finally, retry if the operation fails
+ * 
+ * (With the default aspect order the retry is the outermost decorator, so
+ * each attempt passes the rate limiter and circuit breaker again.)
+ * 
+ * The annotated operations are also available as Decorators chains built at
+ * startup (*Chain methods) with that same order, which skip the AOP proxies.
  */
 @Service
 public class CombinedPatternsService {
@@ -31,6 +46,43 @@ public class CombinedPatternsService {
     private static final Logger logger = LoggerFactory.getLogger(CombinedPatternsService.class);
     private final AtomicInteger callCounter = new AtomicInteger(0);
     private final Random random = new Random();
+    private final AsyncResilienceExecutor asyncExecutor;
+    private final AsyncRetryExecutor asyncRetry;
+    private final Function<Double, ApiResponse> complexOperationChain;
+    private final Function<String, ApiResponse> databaseChain;
+    private final Function<String, ApiResponse> orderChain;
+
+    public CombinedPatternsService(AsyncResilienceExecutor asyncExecutor, AsyncRetryExecutor asyncRetry,
+                                   TieredRateLimiterRegistry rateLimiters,
+                                   CircuitBreakerRegistry circuitBreakerRegistry,
+                                   RetryRegistry retryRegistry) {
+        this.asyncExecutor = asyncExecutor;
+        this.asyncRetry = asyncRetry;
+
+        // Called on this (not the proxy), the annotated methods are the plain operations.
+        // A circuit breaker fallback sits inside the retry, as with the annotations.
+        // asyncRetry needs the retry budgets, so the registry already holds the budgeted retries.
+        this.complexOperationChain = Decorators.ofFunction(this::processComplexOperation)
+            .withRateLimiter(rateLimiters.rateLimiter("apiService"))
+            .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("paymentService"))
+            .withRetry(retryRegistry.retry("backendService"))
+            .decorate();
+        this.databaseChain = Decorators.ofFunction(FunctionalChains.withFallback(
+                Decorators.ofFunction(this::saveToDatabaseWithResilience)
+                    .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("backendService"))
+                    .decorate(),
+                this::databaseFallback))
+            .withRetry(retryRegistry.retry("orderService"))
+            .decorate();
+        this.orderChain = Decorators.ofFunction(FunctionalChains.withFallback(
+                Decorators.ofFunction(this::processOrderWithResilience)
+                    .withRateLimiter(rateLimiters.rateLimiter("default"))
+                    .withCircuitBreaker(circuitBreakerRegistry.circuitBreaker("backendService"))
+                    .decorate(),
+                this::orderFallback))
+            .withRetry(retryRegistry.retry("orderService"))
+            .decorate();
+    }
 
     /**
      * Demonstrates all three patterns working together
@@ -103,6 +155,52 @@ public class CombinedPatternsService {
     @CircuitBreaker(name = "backendService", fallbackMethod = "orderFallback")
     @Retry(name = "orderService")
     public ApiResponse processOrderWithResilience(String orderId) {
+        return processOrder(orderId);
+    }
+
+    /**
+     * processComplexOperation as a Decorators chain, without the AOP proxies
+     */
+    public Function<Double, ApiResponse> complexOperationChain() {
+        return complexOperationChain;
+    }
+
+    /**
+     * saveToDatabaseWithResilience as a Decorators chain, without the AOP proxies
+     */
+    public Function<String, ApiResponse> databaseChain() {
+        return databaseChain;
+    }
+
+    /**
+     * processOrderWithResilience as a Decorators chain, without the AOP proxies
+     */
+    public Function<String, ApiResponse> orderChain() {
+        return orderChain;
+    }
+
+    /**
+     * Non-blocking variant of processOrderWithResilience
+     * Retry -> Rate Limiter -> Circuit Breaker -> Time Limiter (500ms) ->
+     * orderProcessing thread-pool bulkhead; the processing time is spent on
+     * the bulkhead's threads instead of Tomcat's, is interrupted at the time
+     * limit, and retry back-off waits are scheduler timers. The orderProcessing
+     * retry takes another attempt after a timeout or a failed attempt, but not
+     * after a rejection by the rate limiter, circuit breaker or bulkhead.
+     * 
+     * @param orderId - the order ID to process
+     * @return future ApiResponse with operation or fallback result
+     */
+    public CompletableFuture<ApiResponse> processOrderAsync(String orderId) {
+        return asyncRetry.executeStage("orderProcessing",
+                () -> asyncExecutor.execute("orderProcessing", "backendService", "default", () -> processOrder(orderId)))
+            .exceptionally(ex -> {
+                Throwable cause = AsyncResilienceExecutor.unwrap(ex);
+                return orderFallback(orderId, cause instanceof Exception e ? e : new RuntimeException(cause));
+            });
+    }
+
+    private ApiResponse processOrder(String orderId) {
         int callNumber = callCounter.incrementAndGet();
         logger.info("Order processing - Call #{} - Order: {}", callNumber, orderId);
 
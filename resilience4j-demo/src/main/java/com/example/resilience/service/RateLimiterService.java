@@ -1,6 +1,11 @@
 package com.example.resilience.service;
 
+import com.example.resilience.decorate.FunctionalChains;
 import com.example.resilience.model.ApiResponse;
+import com.example.resilience.ratelimit.KeyedRateLimiter;
+import com.example.resilience.ratelimit.KeyedRateLimiterRegistry;
+import com.example.resilience.ratelimit.TieredRateLimiterRegistry;
+import io.github.resilience4j.decorators.Decorators;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import org.slf4j.Logger;
@@ -8,23 +13,49 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service demonstrating Rate Limiter Pattern with Resilience4j
  * 
  * The Rate Limiter pattern controls the rate at which operations are executed.
  * This prevents overloading services and ensures fair resource usage.
+ * 
+ * The annotated operations are also available as Decorators chains built at
+ * startup (standardOperationChain, premiumRequestChain), which skip the AOP
+ * proxy; resilience-decoration.services selects which one callers use.
  */
 @Service
 public class RateLimiterService {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimiterService.class);
     private final AtomicInteger requestCounter = new AtomicInteger(0);
+    private final KeyedRateLimiter apiRateLimiter;
+    private final Supplier<ApiResponse> standardOperationChain;
+    private final Function<String, ApiResponse> premiumRequestChain;
+
+    public RateLimiterService(KeyedRateLimiterRegistry keyedRateLimiters, TieredRateLimiterRegistry rateLimiters) {
+        this.apiRateLimiter = keyedRateLimiters.rateLimiter("apiService");
+
+        // Called on this (not the proxy), the annotated methods are the plain operations
+        this.standardOperationChain = Decorators.ofSupplier(this::performStandardOperation)
+            .withRateLimiter(rateLimiters.rateLimiter("default"))
+            .withFallback(List.of(Exception.class), ex -> rateLimiterFallback((Exception) ex))
+            .decorate();
+        this.premiumRequestChain = FunctionalChains.withFallback(
+            Decorators.ofFunction(this::processPremiumRequest)
+                .withRateLimiter(rateLimiters.rateLimiter("premiumService"))
+                .decorate(),
+            this::premiumRateLimiterFallback);
+    }
 
     /**
      * Demonstrates basic rate limiting
-     * Limited to 10 requests per second (configured in application.yml)
+     * Limited to 10 requests per second, up to 30 while other tiers are idle
+     * (configured in application.yml)
      * 
      * @return ApiResponse with operation result
      */
@@ -41,14 +72,18 @@ public class RateLimiterService {
     }
 
     /**
-     * Demonstrates rate limiting for API service
-     * Limited to 5 requests per second - simulates external API restrictions
+     * Demonstrates per-user rate limiting for API service
+     * Limited to 5 requests per second per user - simulates external API restrictions
+     * Each user has their own bucket, so one noisy user cannot lock out the others
      * 
      * @param userId - the user making the request
      * @return ApiResponse with operation result
      */
-    @RateLimiter(name = "apiService", fallbackMethod = "apiRateLimiterFallback")
     public ApiResponse callExternalApi(String userId) {
+        if (!apiRateLimiter.tryAcquire(userId)) {
+            return apiRateLimiterFallback(userId);
+        }
+        
         int requestNumber = requestCounter.incrementAndGet();
         logger.info("API call for user '{}' - Request #{}", userId, requestNumber);
         
@@ -78,6 +113,20 @@ public class RateLimiterService {
         );
     }
 
+    /**
+     * performStandardOperation as a Decorators chain, without the AOP proxy
+     */
+    public Supplier<ApiResponse> standardOperationChain() {
+        return standardOperationChain;
+    }
+
+    /**
+     * processPremiumRequest as a Decorators chain, without the AOP proxy
+     */
+    public Function<String, ApiResponse> premiumRequestChain() {
+        return premiumRequestChain;
+    }
+
     /**
      * Fallback method for standard rate limiter
      * Called when rate limit is exceeded
@@ -89,7 +138,8 @@ public class RateLimiterService {
         logger.warn("Rate limit exceeded for standard operation");
         
         return new ApiResponse(
-            "Rate limit exceeded. You can make 10 requests per second. Please slow down and try again.",
+            "Rate limit exceeded. You can make 10 requests per second (up to 30 while the service is quiet). " +
+                "Please slow down and try again.",
             "RATE_LIMITED",
             "RATE_LIMITER"
         );
@@ -98,7 +148,7 @@ public class RateLimiterService {
     /**
      * Fallback method for API service rate limiter
      */
-    private ApiResponse apiRateLimiterFallback(String userId, Exception ex) {
+    private ApiResponse apiRateLimiterFallback(String userId) {
         logger.warn("Rate limit exceeded for API service - User: {}", userId);
         
         return new ApiResponse(
@@ -1,15 +1,25 @@
 package com.example.resilience.service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.example.resilience.async.AsyncResilienceExecutor;
+import com.example.resilience.async.AsyncRetryExecutor;
+import com.example.resilience.decorate.FunctionalChains;
 import com.example.resilience.model.ApiResponse;
 
+import io.github.resilience4j.decorators.Decorators;
+import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.retry.annotation.Retry;
 
 /**
@@ -17,6 +27,9 @@ import io.github.resilience4j.retry.annotation.Retry;
  * 
  * The Retry pattern automatically retries failed operations before giving up.
  * This is useful for handling transient failures like network issues.
+ * 
+ * The annotated operations are also available as Decorators chains built at
+ * startup (*Chain methods), which skip the AOP proxies.
  */
 @Service
 public class RetryService {
@@ -24,6 +37,25 @@ public class RetryService {
     private static final Logger logger = LoggerFactory.getLogger(RetryService.class);
     private final AtomicInteger attemptCounter = new AtomicInteger(0);
     private final Random random = new Random();
+    private final AsyncRetryExecutor asyncRetry;
+    private final Function<Boolean, ApiResponse> operationChain;
+    private final Supplier<ApiResponse> unreliableOperationChain;
+
+    public RetryService(AsyncRetryExecutor asyncRetry, RetryRegistry retryRegistry) {
+        this.asyncRetry = asyncRetry;
+
+        // Called on this (not the proxy), the annotated methods are the plain operations.
+        // asyncRetry needs the retry budgets, so the registry already holds the budgeted retries.
+        this.operationChain = FunctionalChains.withFallback(
+            Decorators.ofFunction(this::performOperationWithRetry)
+                .withRetry(retryRegistry.retry("backendService"))
+                .decorate(),
+            this::retryFallback);
+        this.unreliableOperationChain = Decorators.ofSupplier(this::unreliableOperation)
+            .withRetry(retryRegistry.retry("orderService"))
+            .withFallback(List.of(Exception.class), ex -> retryFallback((Exception) ex))
+            .decorate();
+    }
 
     /**
      * Demonstrates basic retry functionality
@@ -80,6 +112,92 @@ public class RetryService {
         );
     }
 
+    /**
+     * performOperationWithRetry as a Decorators chain, without the AOP proxy
+     */
+    public Function<Boolean, ApiResponse> operationChain() {
+        return operationChain;
+    }
+
+    /**
+     * unreliableOperation as a Decorators chain, without the AOP proxy
+     */
+    public Supplier<ApiResponse> unreliableOperationChain() {
+        return unreliableOperationChain;
+    }
+
+    /**
+     * Non-blocking variant of performOperationWithRetry
+     * Back-off waits (backendService: 2s, 4s with full jitter) are scheduler
+     * timers, so no thread is held while waiting between attempts
+     * 
+     * Failures are simulated as I/O errors, which backendService retries
+     * 
+     * @param shouldFail - fail the first two attempts
+     * @return future ApiResponse with operation or fallback result
+     */
+    public CompletableFuture<ApiResponse> performOperationWithRetryAsync(boolean shouldFail) {
+        AtomicInteger attempts = new AtomicInteger();
+        return asyncRetry.execute("backendService", () -> {
+            int attempt = attempts.incrementAndGet();
+            logger.info("Async retry attempt #{} at {}", attempt, LocalDateTime.now());
+
+            if (shouldFail && attempt < 3) {
+                logger.warn("Simulating transient failure on attempt #{}", attempt);
+                throw new IOException("Simulated transient failure - this will trigger a retry");
+            }
+
+            return new ApiResponse(
+                "Operation successful after " + attempt + " attempt(s)",
+                "SUCCESS",
+                attempt,
+                "RETRY"
+            );
+        }).exceptionally(ex -> asyncRetryFallback(attempts.get(), AsyncResilienceExecutor.unwrap(ex)));
+    }
+
+    /**
+     * Non-blocking variant of unreliableOperation
+     * Up to 5 attempts (orderService) with back-off waits on the scheduler
+     * 
+     * @return future ApiResponse with operation or fallback result
+     */
+    public CompletableFuture<ApiResponse> unreliableOperationAsync() {
+        AtomicInteger attempts = new AtomicInteger();
+        return asyncRetry.execute("orderService", () -> {
+            int attempt = attempts.incrementAndGet();
+            logger.info("Async unreliable operation attempt #{}", attempt);
+
+            // 60% chance of failure on first two attempts
+            if (attempt <= 2 && random.nextDouble() < 0.6) {
+                logger.warn("Random transient failure on attempt #{}", attempt);
+                throw new IOException("Random service failure");
+            }
+
+            return new ApiResponse(
+                "Unreliable operation succeeded after " + attempt + " attempt(s)",
+                "SUCCESS",
+                attempt,
+                "RETRY"
+            );
+        }).exceptionally(ex -> asyncRetryFallback(attempts.get(), AsyncResilienceExecutor.unwrap(ex)));
+    }
+
+    /**
+     * Fallback for the async variants, once attempts are exhausted or the
+     * failure is not retryable
+     */
+    private ApiResponse asyncRetryFallback(int attempts, Throwable ex) {
+        logger.error("All async retry attempts failed. Last attempt: #{}", attempts, ex);
+
+        return new ApiResponse(
+            "Operation failed after " + attempts + " attempts. Fallback executed. Error: " + ex.getMessage(),
+            "FALLBACK",
+            attempts,
+            "RETRY"
+        );
+    }
+
     /**
      * Fallback method for performOperationWithRetry
      * Called when all retry attempts are exhausted